@@ -1,12 +1,16 @@
 package au.gov.amsa.sgb.decoder;
 
+import java.io.OutputStream;
+import java.io.Writer;
 import java.util.Optional;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.github.davidmoten.guavamini.Preconditions;
 
 import au.gov.amsa.sgb.decoder.internal.Bits;
+import au.gov.amsa.sgb.decoder.internal.LruCache;
 import au.gov.amsa.sgb.decoder.internal.Tac;
-import au.gov.amsa.sgb.decoder.internal.json.Json;
+import au.gov.amsa.sgb.decoder.internal.json.DetectionJson;
 import au.gov.amsa.sgb.decoder.vesselid.VesselId;
 
 /**
@@ -15,16 +19,27 @@ import au.gov.amsa.sgb.decoder.vesselid.VesselId;
  */
 public final class Beacon23HexId {
 
+    /**
+     * Capacity of the cache used by {@link #cached(String)} unless changed with
+     * {@link #setCacheCapacity(int)}.
+     */
+    public static final int DEFAULT_CACHE_CAPACITY = 10000;
+
+    private static volatile LruCache<BeaconId, Beacon23HexId> cache = new LruCache<>(DEFAULT_CACHE_CAPACITY);
+
     private final int countryCode;
     private final int tac;
     private final Optional<String> tacDescription;
     private final int serialNumber;
     private final boolean testProtocolFlag;
     private final Optional<VesselId> vesselId;
+    @JsonIgnore
+    private final BeaconId beaconId;
 
     private Beacon23HexId(String hex) {
         Preconditions.checkArgument(hex.length() == 23);
         Bits bits = Bits.fromHex(hex);
+        beaconId = BeaconId.fromBits(bits.getUnsignedLong(0, 60), bits.getUnsignedLong(60, 32));
         bits.skip(1);
         countryCode = bits.readUnsignedInt(10);
         bits.skip(3);
@@ -39,6 +54,34 @@ public final class Beacon23HexId {
         return new Beacon23HexId(hex);
     }
 
+    /**
+     * Returns the decoded id from a bounded least recently used cache shared by
+     * all callers (thread-safe), decoding only on a miss. Upper and lower case hex
+     * of the same id map to the same entry without making a normalised copy of
+     * {@code hex}.
+     *
+     * @param hex 23 hex characters
+     * @return decoded id, possibly shared with other callers
+     */
+    public static Beacon23HexId cached(String hex) {
+        return cache.get(BeaconId.fromHex(hex), key -> fromHex(hex));
+    }
+
+    /**
+     * Replaces the cache used by {@link #cached(String)} with an empty cache of
+     * the given capacity (statistics are reset).
+     *
+     * @param capacity maximum number of cached ids
+     */
+    public static void setCacheCapacity(int capacity) {
+        cache = new LruCache<>(capacity);
+    }
+
+    public static CacheStatistics cacheStatistics() {
+        LruCache<BeaconId, Beacon23HexId> c = cache;
+        return new CacheStatistics(c.capacity(), c.size(), c.hitCount(), c.missCount(), c.evictionCount());
+    }
+
     public int countryCode() {
         return countryCode;
     }
@@ -63,7 +106,48 @@ public final class Beacon23HexId {
         return vesselId;
     }
 
+    /**
+     * Returns the id as a compact value (two longs) for use as a map key.
+     *
+     * @return beacon id
+     */
+    public BeaconId beaconId() {
+        return beaconId;
+    }
+
     public String toJson() {
-        return Json.toJson(this);
+        return DetectionJson.toJson(this);
+    }
+
+    /**
+     * Writes the JSON of this id as UTF-8 to {@code out}, the same as
+     * {@link #toJson()} (or a pretty print of it). {@code out} is flushed but not
+     * closed.
+     *
+     * @param out    destination
+     * @param pretty true to indent the output
+     * @throws java.io.UncheckedIOException if writing fails
+     */
+    public void writeJson(OutputStream out, boolean pretty) {
+        DetectionJson.write(this, out, pretty);
+    }
+
+    public void writeJson(Writer writer, boolean pretty) {
+        DetectionJson.write(this, writer, pretty);
+    }
+
+    /**
+     * Returns the CBOR encoding of this id. It has the same structure as the JSON
+     * and {@link Cbor#toJson(byte[])} converts it back to the same JSON as
+     * {@link #toJson()}.
+     *
+     * @return CBOR bytes
+     */
+    public byte[] toCbor() {
+        return Cbor.toCbor(this);
+    }
+
+    public void writeCbor(OutputStream out) {
+        Cbor.write(this, out);
     }
 }
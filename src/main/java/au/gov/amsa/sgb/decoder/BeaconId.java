@@ -0,0 +1,176 @@
+package au.gov.amsa.sgb.decoder;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+import au.gov.amsa.sgb.decoder.internal.Hex;
+
+/**
+ * Compact value type for the 92 bit Beacon 23 Hex ID, suitable as a key for
+ * hash maps and for sorting. The ID is held in two longs: the first 60 bits
+ * (which are the Beacon 15 Hex ID) and the remaining 32 bits. Hex is only
+ * produced when asked for.
+ *
+ * <p>
+ * Ordering is the same as the ordering of the upper case hex strings.
+ */
+public final class BeaconId implements Comparable<BeaconId> {
+
+    private static final int NUM_HEX_CHARS = 23;
+    private static final int NUM_BEACON_15_HEX_CHARS = 15;
+    private static final int NUM_REMAINING_HEX_CHARS = NUM_HEX_CHARS - NUM_BEACON_15_HEX_CHARS;
+    private static final int NUM_REMAINING_BITS = NUM_REMAINING_HEX_CHARS * 4;
+    private static final long BEACON_15_MASK = (1L << (NUM_BEACON_15_HEX_CHARS * 4)) - 1;
+    private static final long REMAINING_MASK = (1L << NUM_REMAINING_BITS) - 1;
+
+    private final long beacon15Bits;
+    private final long remainingBits;
+
+    private BeaconId(long beacon15Bits, long remainingBits) {
+        this.beacon15Bits = beacon15Bits;
+        this.remainingBits = remainingBits;
+    }
+
+    /**
+     * Returns the id for the given bits.
+     *
+     * @param beacon15Bits  the first 60 bits (the Beacon 15 Hex ID) right aligned
+     * @param remainingBits the last 32 bits right aligned
+     * @return id
+     */
+    public static BeaconId fromBits(long beacon15Bits, long remainingBits) {
+        Preconditions.checkArgument((beacon15Bits & ~BEACON_15_MASK) == 0, "beacon15Bits must fit in 60 bits");
+        Preconditions.checkArgument((remainingBits & ~REMAINING_MASK) == 0, "remainingBits must fit in 32 bits");
+        return new BeaconId(beacon15Bits, remainingBits);
+    }
+
+    /**
+     * Parses a Beacon 23 Hex ID (upper or lower case).
+     *
+     * @param hex 23 hex characters
+     * @return id
+     */
+    public static BeaconId fromHex(CharSequence hex) {
+        Preconditions.checkArgument(hex.length() == NUM_HEX_CHARS, "hex length should be " + NUM_HEX_CHARS);
+        long a = 0;
+        for (int i = 0; i < NUM_BEACON_15_HEX_CHARS; i++) {
+            a = (a << 4) | Hex.digit(hex.charAt(i));
+        }
+        long b = 0;
+        for (int i = NUM_BEACON_15_HEX_CHARS; i < NUM_HEX_CHARS; i++) {
+            b = (b << 4) | Hex.digit(hex.charAt(i));
+        }
+        return new BeaconId(a, b);
+    }
+
+    static BeaconId from(int countryCode, int tac, int serialNo, boolean testProtocolMessage, long vesselIdBits) {
+        return new BeaconId(beacon15Bits(countryCode, tac, serialNo, testProtocolMessage, vesselIdBits),
+                remainingBits(vesselIdBits));
+    }
+
+    /**
+     * Returns the first 60 bits of the id: 1, country code (10 bits), 101, TAC (16
+     * bits), serial number (14 bits), test protocol flag and the first 15 bits of
+     * the 47 bit vessel id field. See C/T.018 Appendix B.
+     */
+    static long beacon15Bits(int countryCode, int tac, int serialNo, boolean testProtocolMessage,
+            long vesselIdBits) {
+        return (1L << 59) //
+                | ((long) countryCode << 49) //
+                | (0b101L << 46) //
+                | ((long) tac << 30) //
+                | ((long) serialNo << 16) //
+                | ((testProtocolMessage ? 1L : 0L) << 15) //
+                | (vesselIdBits >>> NUM_REMAINING_BITS);
+    }
+
+    /**
+     * Returns the last 32 bits of the id (the last 32 bits of the 47 bit vessel id
+     * field).
+     */
+    static long remainingBits(long vesselIdBits) {
+        return vesselIdBits & REMAINING_MASK;
+    }
+
+    /**
+     * Writes the 23 upper case hex characters of the id into {@code dest} from
+     * {@code offset} without allocating.
+     */
+    static void writeHex(long beacon15Bits, long remainingBits, char[] dest, int offset) {
+        for (int i = 0; i < NUM_BEACON_15_HEX_CHARS; i++) {
+            dest[offset + i] = Hex.toChar((int) (beacon15Bits >>> (56 - 4 * i)));
+        }
+        for (int i = 0; i < NUM_REMAINING_HEX_CHARS; i++) {
+            dest[offset + NUM_BEACON_15_HEX_CHARS + i] = Hex.toChar((int) (remainingBits >>> (28 - 4 * i)));
+        }
+    }
+
+    static int hash(long beacon15Bits, long remainingBits) {
+        long h = beacon15Bits * 0x9E3779B97F4A7C15L ^ remainingBits * 0xC2B2AE3D27D4EB4FL;
+        h ^= h >>> 31;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Returns the first 60 bits of the id (the Beacon 15 Hex ID) right aligned.
+     *
+     * @return first 60 bits
+     */
+    public long beacon15Bits() {
+        return beacon15Bits;
+    }
+
+    /**
+     * Returns the last 32 bits of the id right aligned.
+     *
+     * @return last 32 bits
+     */
+    public long remainingBits() {
+        return remainingBits;
+    }
+
+    public String beacon23HexId() {
+        char[] chars = new char[NUM_HEX_CHARS];
+        writeHex(beacon15Bits, remainingBits, chars, 0);
+        return new String(chars);
+    }
+
+    public String beacon15HexId() {
+        char[] chars = new char[NUM_HEX_CHARS];
+        writeHex(beacon15Bits, remainingBits, chars, 0);
+        return new String(chars, 0, NUM_BEACON_15_HEX_CHARS);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash(beacon15Bits, remainingBits);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        } else if (!(obj instanceof BeaconId)) {
+            return false;
+        } else {
+            BeaconId other = (BeaconId) obj;
+            return beacon15Bits == other.beacon15Bits && remainingBits == other.remainingBits;
+        }
+    }
+
+    @Override
+    public int compareTo(BeaconId o) {
+        // both values are non-negative so signed comparison is correct
+        int c = Long.compare(beacon15Bits, o.beacon15Bits);
+        if (c != 0) {
+            return c;
+        } else {
+            return Long.compare(remainingBits, o.remainingBits);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return beacon23HexId();
+    }
+
+}
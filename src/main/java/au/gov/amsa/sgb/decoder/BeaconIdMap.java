@@ -0,0 +1,227 @@
+package au.gov.amsa.sgb.decoder;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * Open addressing (linear probing) hash map keyed by {@link BeaconId}. Keys are
+ * stored as two primitive longs in parallel arrays so no key objects are held
+ * and the lookups {@link #get(long, long)}, {@link #put(long, long, Object)} and
+ * {@link #remove(long, long)} can be made without creating a {@link BeaconId}.
+ * Removal uses backward shift deletion so there are no tombstones.
+ *
+ * <p>
+ * Null values are not permitted. Not thread-safe.
+ *
+ * @param <V> value type
+ */
+public final class BeaconIdMap<V> {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    // resize when size exceeds capacity * 3 / 4
+    private static final int LOAD_FACTOR_NUMERATOR = 3;
+    private static final int LOAD_FACTOR_DENOMINATOR = 4;
+
+    private long[] beacon15Bits;
+    private long[] remainingBits;
+    // null means the slot is empty
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int threshold;
+
+    public BeaconIdMap() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param expectedSize number of entries that can be held without resizing
+     */
+    public BeaconIdMap(int expectedSize) {
+        Preconditions.checkArgument(expectedSize >= 0, "expectedSize must be non-negative");
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long minimum = (long) expectedSize * LOAD_FACTOR_DENOMINATOR / LOAD_FACTOR_NUMERATOR + 1;
+        int n = DEFAULT_INITIAL_CAPACITY;
+        while (n < minimum && n < MAX_CAPACITY) {
+            n <<= 1;
+        }
+        return n;
+    }
+
+    private void allocate(int capacity) {
+        beacon15Bits = new long[capacity];
+        remainingBits = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        threshold = (int) ((long) capacity * LOAD_FACTOR_NUMERATOR / LOAD_FACTOR_DENOMINATOR);
+    }
+
+    private int slot(long a, long b) {
+        return BeaconId.hash(a, b) & mask;
+    }
+
+    // returns the slot holding the key or the empty slot where it would go
+    private int find(long a, long b) {
+        int i = slot(a, b);
+        while (values[i] != null && (beacon15Bits[i] != a || remainingBits[i] != b)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public V get(BeaconId key) {
+        return get(key.beacon15Bits(), key.remainingBits());
+    }
+
+    /**
+     * Returns the value for the key with the given bits (see
+     * {@link BeaconId#fromBits(long, long)}) or null if not present.
+     *
+     * @param beacon15Bits  first 60 bits of the key
+     * @param remainingBits last 32 bits of the key
+     * @return value or null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long beacon15Bits, long remainingBits) {
+        return (V) values[find(beacon15Bits, remainingBits)];
+    }
+
+    public boolean containsKey(BeaconId key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Associates {@code value} with {@code key}.
+     *
+     * @param key   key
+     * @param value non-null value
+     * @return previous value or null
+     */
+    public V put(BeaconId key, V value) {
+        return put(key.beacon15Bits(), key.remainingBits(), value);
+    }
+
+    /**
+     * Associates {@code value} with the key with the given bits.
+     *
+     * @param beacon15Bits  first 60 bits of the key
+     * @param remainingBits last 32 bits of the key
+     * @param value         non-null value
+     * @return previous value or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long beacon15Bits, long remainingBits, V value) {
+        Preconditions.checkNotNull(value, "value cannot be null");
+        int i = find(beacon15Bits, remainingBits);
+        V previous = (V) values[i];
+        if (previous == null) {
+            this.beacon15Bits[i] = beacon15Bits;
+            this.remainingBits[i] = remainingBits;
+            size++;
+        }
+        values[i] = value;
+        if (size > threshold) {
+            resize();
+        }
+        return previous;
+    }
+
+    public V remove(BeaconId key) {
+        return remove(key.beacon15Bits(), key.remainingBits());
+    }
+
+    /**
+     * Removes the key with the given bits.
+     *
+     * @param beacon15Bits  first 60 bits of the key
+     * @param remainingBits last 32 bits of the key
+     * @return removed value or null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long beacon15Bits, long remainingBits) {
+        int i = find(beacon15Bits, remainingBits);
+        V previous = (V) values[i];
+        if (previous != null) {
+            deleteSlot(i);
+            size--;
+        }
+        return previous;
+    }
+
+    /**
+     * Empties slot {@code i} then moves later entries of the probe run back so
+     * that every entry stays reachable from its home slot.
+     */
+    private void deleteSlot(int i) {
+        int hole = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (values[j] == null) {
+                break;
+            }
+            int home = slot(beacon15Bits[j], remainingBits[j]);
+            // move j into the hole unless its home lies cyclically in (hole, j]
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                beacon15Bits[hole] = beacon15Bits[j];
+                remainingBits[hole] = remainingBits[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        values[hole] = null;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Calls {@code consumer} for every entry (in no particular order). A
+     * {@link BeaconId} is created for each entry.
+     *
+     * @param consumer receives each key and value
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super BeaconId, ? super V> consumer) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                consumer.accept(BeaconId.fromBits(beacon15Bits[i], remainingBits[i]), (V) values[i]);
+            }
+        }
+    }
+
+    private void resize() {
+        Preconditions.checkArgument(values.length < MAX_CAPACITY, "maximum capacity reached");
+        long[] oldBeacon15Bits = beacon15Bits;
+        long[] oldRemainingBits = remainingBits;
+        Object[] oldValues = values;
+        allocate(oldValues.length << 1);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int j = find(oldBeacon15Bits[i], oldRemainingBits[i]);
+                beacon15Bits[j] = oldBeacon15Bits[i];
+                remainingBits[j] = oldRemainingBits[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package au.gov.amsa.sgb.decoder;
+
+/**
+ * Snapshot of the statistics of a cache.
+ */
+public final class CacheStatistics {
+
+    private final int capacity;
+    private final int size;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+
+    CacheStatistics(int capacity, int size, long hitCount, long missCount, long evictionCount) {
+        this.capacity = capacity;
+        this.size = size;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    public long missCount() {
+        return missCount;
+    }
+
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns hits as a proportion of all requests (0 if there have been none).
+     *
+     * @return hit rate between 0 and 1
+     */
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics[capacity=" + capacity + ", size=" + size + ", hitCount=" + hitCount
+                + ", missCount=" + missCount + ", evictionCount=" + evictionCount + "]";
+    }
+
+}
@@ -0,0 +1,234 @@
+package au.gov.amsa.sgb.decoder;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.guavamini.annotations.VisibleForTesting;
+
+import au.gov.amsa.sgb.decoder.internal.Bits;
+
+/**
+ * Opt-in decoder that caches {@link Detection}s keyed on the 202 message bits
+ * so that the many copies of one burst received through different satellites
+ * and LUTs are only decoded once.
+ *
+ * <p>
+ * The cache is split into stripes by key hash. Reads are lock-free (each stripe
+ * is a {@link ConcurrentHashMap}) and only inserts lock their stripe. Each
+ * stripe holds at most its share of {@code maxSize} entries (the shares add up
+ * to {@code maxSize}) and evicts the oldest inserted entry when full. Entries
+ * also expire a fixed time after they were inserted and expired entries are
+ * dropped by the next insert into their stripe.
+ *
+ * <p>
+ * Instances are thread-safe. A cached {@link Detection} is returned to every
+ * caller with the same message which is safe because a {@link Detection} is not
+ * changed after construction (its accessors, BCH calculation and
+ * {@link Detection#beaconId()} only read its bits by index).
+ */
+public final class CachingDetectionDecoder {
+
+    private static final int MAX_STRIPES = 16;
+
+    private static final int NUM_HEX_CHARS = (DetectionLayout.NUM_BITS + DetectionLayout.NUM_HEX_PAD_BITS) / 4;
+
+    private final Stripe[] stripes;
+    private final long expiryNanos;
+    private final LongSupplier nanoClock;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize        maximum number of cached detections
+     * @param expiryDuration time after insertion that an entry expires
+     * @param unit           unit of {@code expiryDuration}
+     */
+    public CachingDetectionDecoder(int maxSize, long expiryDuration, TimeUnit unit) {
+        this(maxSize, unit.toNanos(expiryDuration), System::nanoTime);
+    }
+
+    @VisibleForTesting
+    CachingDetectionDecoder(int maxSize, long expiryNanos, LongSupplier nanoClock) {
+        Preconditions.checkArgument(maxSize > 0, "maxSize must be positive");
+        Preconditions.checkArgument(expiryNanos > 0, "expiry must be positive");
+        int numStripes = Math.min(MAX_STRIPES, Integer.highestOneBit(maxSize));
+        this.stripes = new Stripe[numStripes];
+        int remainder = maxSize % numStripes;
+        for (int i = 0; i < numStripes; i++) {
+            stripes[i] = new Stripe(maxSize / numStripes + (i < remainder ? 1 : 0));
+        }
+        this.expiryNanos = expiryNanos;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns the detection for the hex Ground Segment Representation, decoding
+     * it only if an equal message is not already cached.
+     *
+     * @param hex 51 hex characters (upper or lower case)
+     * @return detection (possibly shared with other callers)
+     */
+    public Detection fromHexGroundSegmentRepresentation(String hex) {
+        Preconditions.checkArgument(hex.length() == NUM_HEX_CHARS, "hex length should be " + NUM_HEX_CHARS);
+        Bits bits = Detection.bitsFromHexGroundSegmentRepresentation(hex);
+        Key key = new Key(bits);
+        Stripe stripe = stripes[key.hash & (stripes.length - 1)];
+        long now = nanoClock.getAsLong();
+        Entry entry = stripe.map.get(key);
+        if (entry != null && !isExpired(entry, now)) {
+            hits.increment();
+            return entry.detection;
+        }
+        // an expired entry is replaced by the insert
+        misses.increment();
+        Detection detection = Detection.from(bits);
+        return stripe.insert(new Entry(key, detection, now));
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.insertedNanos >= expiryNanos;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of entries evicted to keep within the maximum size
+     * (expired entries are not counted).
+     *
+     * @return number of evictions
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the number of cached entries (may include expired entries not yet
+     * removed).
+     *
+     * @return number of entries
+     */
+    public int size() {
+        int n = 0;
+        for (Stripe stripe : stripes) {
+            n += stripe.map.size();
+        }
+        return n;
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    private final class Stripe {
+
+        private final int capacity;
+        private final ConcurrentHashMap<Key, Entry> map = new ConcurrentHashMap<>();
+        // insertion order, guarded by this
+        private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+
+        Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized Detection insert(Entry entry) {
+            Entry existing = map.get(entry.key);
+            if (existing != null && !isExpired(existing, entry.insertedNanos)) {
+                // another thread decoded the same message first
+                return existing.detection;
+            }
+            // the node of a replaced (expired) entry stays in the queue until it
+            // reaches the head
+            map.put(entry.key, entry);
+            queue.add(entry);
+            // the queue is in insertion order so expired entries and the nodes of
+            // replaced entries are at its head
+            Entry oldest;
+            while ((oldest = queue.peek()) != null && isExpired(oldest, entry.insertedNanos)) {
+                queue.poll();
+                map.remove(oldest.key, oldest);
+            }
+            // only inserts change the map and every entry in it is also in the
+            // queue, so the map size is the live count
+            while (map.size() > capacity) {
+                oldest = queue.poll();
+                if (map.remove(oldest.key, oldest)) {
+                    evictions.increment();
+                }
+            }
+            return entry.detection;
+        }
+
+        synchronized void clear() {
+            map.clear();
+            queue.clear();
+        }
+    }
+
+    private static final class Entry {
+        final Key key;
+        final Detection detection;
+        final long insertedNanos;
+
+        Entry(Key key, Detection detection, long insertedNanos) {
+            this.key = key;
+            this.detection = detection;
+            this.insertedNanos = insertedNanos;
+        }
+    }
+
+    /**
+     * The 202 message bits in four longs.
+     */
+    private static final class Key {
+        private final long a;
+        private final long b;
+        private final long c;
+        private final long d;
+        final int hash;
+
+        Key(Bits bits) {
+            a = bits.getUnsignedLong(0, 64);
+            b = bits.getUnsignedLong(64, 64);
+            c = bits.getUnsignedLong(128, 64);
+            d = bits.getUnsignedLong(192, DetectionLayout.NUM_BITS - 192);
+            long h = a * 0x9E3779B97F4A7C15L;
+            h = (h ^ b) * 0x9E3779B97F4A7C15L;
+            h = (h ^ c) * 0x9E3779B97F4A7C15L;
+            h = (h ^ d) * 0x9E3779B97F4A7C15L;
+            // multiplying only carries bits upwards so mix the high bits down
+            // before the low bits pick the stripe
+            h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+            hash = (int) (h ^ (h >>> 33));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) obj;
+            return a == k.a && b == k.b && c == k.c && d == k.d;
+        }
+    }
+
+}
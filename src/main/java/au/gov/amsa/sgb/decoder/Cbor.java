@@ -0,0 +1,90 @@
+package au.gov.amsa.sgb.decoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.github.davidmoten.guavamini.Preconditions;
+
+import au.gov.amsa.sgb.decoder.internal.json.DetectionJson;
+
+/**
+ * CBOR (RFC 8949) encoding of {@link Detection} and {@link Beacon23HexId} with
+ * exactly the structure of their JSON (see {@code detection-schema.json}), and
+ * conversion of that CBOR back to JSON. The conversion of the CBOR of a
+ * detection is identical to {@link Detection#toJson()}.
+ */
+public final class Cbor {
+
+    private static final CBORFactory FACTORY = new CBORFactory();
+
+    private Cbor() {
+        // prevent instantiation
+    }
+
+    static byte[] toCbor(Detection d, FieldSet fields) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        write(d, fields, out);
+        return out.toByteArray();
+    }
+
+    static void write(Detection d, FieldSet fields, OutputStream out) {
+        try (JsonGenerator g = createGenerator(out)) {
+            DetectionJson.write(d, fields, g);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static byte[] toCbor(Beacon23HexId b) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        write(b, out);
+        return out.toByteArray();
+    }
+
+    static void write(Beacon23HexId b, OutputStream out) {
+        try (JsonGenerator g = createGenerator(out)) {
+            DetectionJson.write(b, g);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static JsonGenerator createGenerator(OutputStream out) throws IOException {
+        JsonGenerator g = FACTORY.createGenerator(out);
+        // the caller owns the stream
+        g.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return g;
+    }
+
+    public static String toJson(byte[] cbor) {
+        return toJson(cbor, false);
+    }
+
+    /**
+     * Returns the JSON of a CBOR encoded {@link Detection} or
+     * {@link Beacon23HexId} (or of any single CBOR data item).
+     *
+     * @param cbor   CBOR bytes
+     * @param pretty true to indent the output
+     * @return JSON
+     * @throws IllegalArgumentException if {@code cbor} is empty or malformed
+     */
+    public static String toJson(byte[] cbor, boolean pretty) {
+        StringWriter w = new StringWriter(cbor.length * 2);
+        try (JsonParser p = FACTORY.createParser(cbor);
+                JsonGenerator g = DetectionJson.createGenerator(w, pretty)) {
+            Preconditions.checkArgument(p.nextToken() != null, "no CBOR data item");
+            g.copyCurrentStructure(p);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("invalid CBOR: " + e.getMessage(), e);
+        }
+        return w.toString();
+    }
+
+}
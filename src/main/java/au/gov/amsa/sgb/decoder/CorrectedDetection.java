@@ -0,0 +1,25 @@
+package au.gov.amsa.sgb.decoder;
+
+/**
+ * A {@link Detection} decoded from a full message after BCH error correction
+ * together with the number of bits that were corrected.
+ */
+public final class CorrectedDetection {
+
+    private final Detection detection;
+    private final int numBitsCorrected;
+
+    CorrectedDetection(Detection detection, int numBitsCorrected) {
+        this.detection = detection;
+        this.numBitsCorrected = numBitsCorrected;
+    }
+
+    public Detection detection() {
+        return detection;
+    }
+
+    public int numBitsCorrected() {
+        return numBitsCorrected;
+    }
+
+}
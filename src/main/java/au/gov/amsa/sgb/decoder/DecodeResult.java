@@ -0,0 +1,113 @@
+package au.gov.amsa.sgb.decoder;
+
+import java.util.Optional;
+
+/**
+ * Outcome of {@link Detection#tryDecode(String)} and
+ * {@link Detection#tryDecode(byte[], int)}: either the decoded detection or an
+ * {@link ErrorCode} with the bit offset where decoding failed and the fields
+ * that did decode. Invalid input is reported here rather than by throwing, so
+ * no exception or stack trace is created for bad frames.
+ */
+public final class DecodeResult {
+
+    /**
+     * Value of {@link #errorBitOffset()} when there is no error.
+     */
+    public static final int NO_ERROR_BIT_OFFSET = -1;
+
+    public enum ErrorCode {
+        /**
+         * Decoded without error.
+         */
+        NONE,
+
+        /**
+         * The input does not hold exactly 202 bits. Nothing was decoded.
+         */
+        WRONG_LENGTH,
+
+        /**
+         * The input has a character that is not a hex character. Nothing was
+         * decoded.
+         */
+        ILLEGAL_CHARACTER,
+
+        /**
+         * A Modified Baudot code in the vessel id does not map to a character.
+         * Every field except the vessel id was decoded.
+         */
+        INVALID_BAUDOT_CODE;
+    }
+
+    private static final Optional<Detection> NO_DETECTION = Optional.empty();
+
+    private final ErrorCode errorCode;
+    private final int errorBitOffset;
+    private final Optional<Detection> decodedFields;
+
+    private DecodeResult(ErrorCode errorCode, int errorBitOffset, Optional<Detection> decodedFields) {
+        this.errorCode = errorCode;
+        this.errorBitOffset = errorBitOffset;
+        this.decodedFields = decodedFields;
+    }
+
+    static DecodeResult ok(Detection detection) {
+        return new DecodeResult(ErrorCode.NONE, NO_ERROR_BIT_OFFSET, Optional.of(detection));
+    }
+
+    static DecodeResult error(ErrorCode errorCode, int errorBitOffset) {
+        return new DecodeResult(errorCode, errorBitOffset, NO_DETECTION);
+    }
+
+    static DecodeResult error(ErrorCode errorCode, int errorBitOffset, Detection decodedFields) {
+        return new DecodeResult(errorCode, errorBitOffset, Optional.of(decodedFields));
+    }
+
+    public boolean isOk() {
+        return errorCode == ErrorCode.NONE;
+    }
+
+    public ErrorCode errorCode() {
+        return errorCode;
+    }
+
+    /**
+     * Returns the index in the 202 bits of the first bit of the value that could
+     * not be decoded (for {@link ErrorCode#WRONG_LENGTH} the first missing or
+     * surplus bit, for {@link ErrorCode#ILLEGAL_CHARACTER} the first bit of the
+     * character) or {@link #NO_ERROR_BIT_OFFSET} if there is no error.
+     *
+     * @return bit offset of the error
+     */
+    public int errorBitOffset() {
+        return errorBitOffset;
+    }
+
+    /**
+     * Returns the detection if decoding succeeded.
+     *
+     * @return detection if no error
+     */
+    public Optional<Detection> detection() {
+        return isOk() ? decodedFields : NO_DETECTION;
+    }
+
+    /**
+     * Returns the successfully decoded fields as a detection whose failed fields
+     * are absent (for {@link ErrorCode#INVALID_BAUDOT_CODE} the vessel id is
+     * empty). Empty if nothing was decoded. Same as {@link #detection()} if there
+     * is no error.
+     *
+     * @return successfully decoded fields
+     */
+    public Optional<Detection> decodedFields() {
+        return decodedFields;
+    }
+
+    @Override
+    public String toString() {
+        return isOk() ? "DecodeResult[NONE]" : "DecodeResult[" + errorCode + " at bit " + errorBitOffset + "]";
+    }
+
+}
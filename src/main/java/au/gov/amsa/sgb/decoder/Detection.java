@@ -1,18 +1,23 @@
 package au.gov.amsa.sgb.decoder;
 
-import java.math.BigDecimal;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.time.OffsetTime;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 import java.util.Optional;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.github.davidmoten.guavamini.Preconditions;
 import com.github.davidmoten.guavamini.annotations.VisibleForTesting;
 
+import au.gov.amsa.sgb.decoder.internal.BaudotCode;
+import au.gov.amsa.sgb.decoder.internal.Bch;
 import au.gov.amsa.sgb.decoder.internal.Bits;
 import au.gov.amsa.sgb.decoder.internal.Hex;
-import au.gov.amsa.sgb.decoder.internal.json.Json;
+import au.gov.amsa.sgb.decoder.internal.json.DetectionJson;
 import au.gov.amsa.sgb.decoder.rotatingfield.ActivationMethod;
 import au.gov.amsa.sgb.decoder.rotatingfield.BeaconFeedback;
 import au.gov.amsa.sgb.decoder.rotatingfield.Cancellation;
@@ -26,6 +31,7 @@ import au.gov.amsa.sgb.decoder.rotatingfield.Rls;
 import au.gov.amsa.sgb.decoder.rotatingfield.RlsProvider;
 import au.gov.amsa.sgb.decoder.rotatingfield.RlsType;
 import au.gov.amsa.sgb.decoder.rotatingfield.RotatingField;
+import au.gov.amsa.sgb.decoder.rotatingfield.RotatingFieldType;
 import au.gov.amsa.sgb.decoder.rotatingfield.TriggeringEvent;
 import au.gov.amsa.sgb.decoder.rotatingfield.UnknownRotatingField;
 import au.gov.amsa.sgb.decoder.vesselid.AircraftOperatorAndSerialNumber;
@@ -34,6 +40,7 @@ import au.gov.amsa.sgb.decoder.vesselid.Aviation24BitAddress;
 import au.gov.amsa.sgb.decoder.vesselid.Mmsi;
 import au.gov.amsa.sgb.decoder.vesselid.RadioCallSign;
 import au.gov.amsa.sgb.decoder.vesselid.VesselId;
+import au.gov.amsa.sgb.decoder.vesselid.VesselIdType;
 
 /**
  * Decodes a 202 bit binary beacon detection message. Based on C/T.018 Rev 6
@@ -43,10 +50,105 @@ public final class Detection {
 
     private static final String EPIRB_MMSI_PREFIX = "974";
 
+    private static final int NUM_BITS = DetectionLayout.NUM_BITS;
+
+    private static final int NUM_BYTES = DetectionLayout.NUM_BYTES;
+
+    private static final int NUM_PAD_BITS = DetectionLayout.NUM_PAD_BITS;
+
+    private static final int BITS_PER_HEX_CHAR = 4;
+
+    static final int NUM_BEACON_23_HEX_ID_CHARS = 23;
+
+    static final int NUM_BEACON_15_HEX_ID_CHARS = 15;
+
+    private static final int NUM_LATITUDE_DEGREES_BITS = 7;
+
+    private static final int NUM_LONGITUDE_DEGREES_BITS = 8;
+
+    private static final int NUM_POSITION_FRACTION_BITS = 15;
+
+    // 2^-15
+    private static final double POSITION_FRACTION_UNIT = 0x1p-15;
+
     private static final Bits NO_ENCODED_LOCATION_CAPABILITY = Bits
             .from("11111111000001111100000111111111111110000011111");
 
-    private static final Bits BCH_DIVISOR = Bits.from("1110001111110101110000101110111110011110010010111");
+    static final long NO_ENCODED_LOCATION_CAPABILITY_VALUE = NO_ENCODED_LOCATION_CAPABILITY.getUnsignedLong(0,
+            DetectionLayout.POSITION_LENGTH);
+
+    // shared so that toVesselIdType() does not allocate
+    private static final Optional<VesselIdType> NO_VESSEL_ID_TYPE = Optional.empty();
+    private static final Optional<VesselIdType> MMSI = Optional.of(VesselIdType.MMSI);
+    private static final Optional<VesselIdType> RADIO_CALL_SIGN = Optional.of(VesselIdType.RADIO_CALL_SIGN);
+    private static final Optional<VesselIdType> AIRCRAFT_REGISTRATION_MARKING = Optional
+            .of(VesselIdType.AIRCRAFT_REGISTRATION_MARKING);
+    private static final Optional<VesselIdType> AVIATION_24_BIT_ADDRESS = Optional
+            .of(VesselIdType.AVIATION_24_BIT_ADDRESS);
+    private static final Optional<VesselIdType> AIRCRAFT_OPERATOR_AND_SERIAL_NUMBER = Optional
+            .of(VesselIdType.AIRCRAFT_OPERATOR_AND_SERIAL_NUMBER);
+
+    // Lookup tables indexed by code (every code of the field's bit length has an
+    // entry) so that decoding a coded field is an array read returning a shared
+    // instance. Range, Optional and enum values are immutable.
+
+    private static final Optional<VesselIdType>[] VESSEL_ID_TYPES = createVesselIdTypes();
+
+    private static final BeaconType[] BEACON_TYPES = { BeaconType.ELT_NOT_DT, BeaconType.EPIRB, BeaconType.PLB,
+            BeaconType.ELT_DT, BeaconType.OTHER, BeaconType.OTHER, BeaconType.OTHER, BeaconType.SYSTEM };
+
+    private static final RotatingFieldType[] ROTATING_FIELD_TYPES = createRotatingFieldTypes();
+
+    private static final RotatingFieldReader[] ROTATING_FIELD_READERS = createRotatingFieldReaders();
+
+    private static final GnssStatus[] GNSS_STATUSES = { GnssStatus.NO_FIX, GnssStatus.LOCATION_2D,
+            GnssStatus.LOCATION_3D, GnssStatus.OTHER };
+
+    private static final Optional<Range>[] BATTERY_PERCENTS = createRanges(3, //
+            Range.min(0).max(5).build(), //
+            Range.min(5).exclusive().max(10).build(), //
+            Range.min(10).exclusive().max(25).build(), //
+            Range.min(25).exclusive().max(50).build(), //
+            Range.min(50).exclusive().max(75).build(), //
+            Range.min(75).exclusive().max(100).build());
+
+    private static final Optional<Range>[] DOPS = createRanges(4, //
+            Range.min(0).max(1).build(), //
+            Range.min(1).exclusive().max(2).build(), //
+            Range.min(2).exclusive().max(3).build(), //
+            Range.min(3).exclusive().max(4).build(), //
+            Range.min(4).exclusive().max(5).build(), //
+            Range.min(5).exclusive().max(6).build(), //
+            Range.min(6).exclusive().max(7).build(), //
+            Range.min(7).exclusive().max(8).build(), //
+            Range.min(8).exclusive().max(10).build(), //
+            Range.min(10).exclusive().max(12).build(), //
+            Range.min(12).exclusive().max(15).build(), //
+            Range.min(15).exclusive().max(20).build(), //
+            Range.min(20).exclusive().max(30).build(), //
+            Range.min(30).exclusive().max(50).build(), //
+            Range.min(50).exclusive().build());
+
+    private static final ActivationMethod[] ACTIVATION_METHODS = { ActivationMethod.MANUAL_ACTIVATION_BY_USER,
+            ActivationMethod.AUTOMATIC_ACTIVATION_BY_BEACON, ActivationMethod.AUTOMATIC_ACTIVATION_BY_EXTERNAL_MEANS,
+            ActivationMethod.OTHER };
+
+    private static final Optional<Range>[] BATTERY_PERCENTS_IN_FLIGHT_EMERGENCY = createRanges(2, //
+            Range.min(0).max(33).build(), //
+            Range.min(33).exclusive().max(66).build(), //
+            Range.min(66).exclusive().max(100).build());
+
+    private static final TriggeringEvent[] TRIGGERING_EVENTS = createTriggeringEvents();
+
+    private static final RlsProvider[] RLS_PROVIDERS = { RlsProvider.OTHER, RlsProvider.GALILEO,
+            RlsProvider.GLONASS, RlsProvider.OTHER, RlsProvider.OTHER, RlsProvider.OTHER, RlsProvider.OTHER,
+            RlsProvider.OTHER };
+
+    private static final RlsType[] RLS_TYPES = createRlsTypes();
+
+    private static final DeactivationMethod[] DEACTIVATION_METHODS = { DeactivationMethod.OTHER,
+            DeactivationMethod.AUTOMATIC_DEACTIVATION_BY_EXTERNAL_MEANS, DeactivationMethod.MANUAL_DEACTIVATION_BY_USER,
+            DeactivationMethod.OTHER };
 
     @JsonIgnore
     private final Bits bits;
@@ -65,7 +167,15 @@ public final class Detection {
     private final String beacon15HexId;
 
     private Detection(Bits bits) {
-        Preconditions.checkArgument(bits.length() == 202, "length should be 202 but was " + bits.length());
+        this(bits, true);
+    }
+
+    /**
+     * Decodes all fields, except the vessel id (left empty) if
+     * {@code decodeVesselId} is false.
+     */
+    private Detection(Bits bits, boolean decodeVesselId) {
+        Preconditions.checkArgument(bits.length() == NUM_BITS, "length should be 202 but was " + bits.length());
         this.bits = bits;
         tac = bits.readUnsignedInt(16);
         serialNo = bits.readUnsignedInt(14);
@@ -74,13 +184,24 @@ public final class Detection {
         hasEnabledRls = bits.readBoolean();
         testProtocolMessage = bits.readBoolean();
         encodedGnssPosition = readPosition(bits.readBits(47));
-        vesselId = readVesselId(bits);
+        if (decodeVesselId) {
+            vesselId = readVesselId(bits);
+        } else {
+            bits.skip(DetectionLayout.VESSEL_ID_LENGTH);
+            vesselId = Optional.empty();
+        }
         beaconType = readBeaconType(bits);
         // skip spare bits
         bits.skip(14);
         rotatingField = readRotatingField(bits);
-        beacon23HexId = readBeacon23HexID(bits.position(0));
-        beacon15HexId = beacon23HexId.substring(0, 15);
+        char[] hexId = new char[NUM_BEACON_23_HEX_ID_CHARS];
+        writeBeacon23HexId(bits, hexId);
+        beacon23HexId = new String(hexId);
+        beacon15HexId = new String(hexId, 0, NUM_BEACON_15_HEX_ID_CHARS);
+    }
+
+    Bits bits() {
+        return bits;
     }
 
     public static Detection fromBitString(String bitString) {
@@ -88,8 +209,154 @@ public final class Detection {
     }
 
     public static Detection fromHexGroundSegmentRepresentation(String hex) {
-        String bitString = Hex.hexToBinary(hex).substring(2);
-        return fromBitString(bitString);
+        return from(bitsFromHexGroundSegmentRepresentation(hex));
+    }
+
+    /**
+     * Decodes the 202 bit detection message right aligned (left padded with 6
+     * zero bits) in the 26 bytes starting at {@code offset}. This is the same
+     * layout as the bytes of the hex Ground Segment Representation prefixed with
+     * a zero hex character. The pad bits are ignored.
+     *
+     * @param bytes  bytes containing the detection message
+     * @param offset index of the first of the 26 bytes
+     * @return decoded detection
+     */
+    public static Detection from(byte[] bytes, int offset) {
+        return from(bitsFrom(bytes, offset));
+    }
+
+    /**
+     * Decodes the canonical 26 byte form of a detection (see {@link #toBytes()}).
+     *
+     * @param bytes 26 bytes, the 202 bit detection message left padded with 6
+     *              zero bits
+     * @return decoded detection
+     * @throws IllegalArgumentException if there are not exactly 26 bytes or the
+     *                                  pad bits are not zero
+     */
+    public static Detection fromBytes(byte[] bytes) {
+        Preconditions.checkArgument(bytes.length == NUM_BYTES, "bytes length should be " + NUM_BYTES);
+        Preconditions.checkArgument((bytes[0] & 0xFF) >>> (8 - NUM_PAD_BITS) == 0, "pad bits must be zero");
+        return from(bytes, 0);
+    }
+
+    /**
+     * Decodes the hex Ground Segment Representation without throwing for invalid
+     * input (see {@link DecodeResult}).
+     *
+     * @param hex 51 hex characters
+     * @return the detection or the error and the fields that did decode
+     */
+    public static DecodeResult tryDecode(String hex) {
+        int numBits = hex.length() * BITS_PER_HEX_CHAR - DetectionLayout.NUM_HEX_PAD_BITS;
+        if (numBits != NUM_BITS) {
+            return DecodeResult.error(DecodeResult.ErrorCode.WRONG_LENGTH, Math.max(0, Math.min(numBits, NUM_BITS)));
+        }
+        int index = Hex.indexOfNonHex(hex);
+        if (index != -1) {
+            return DecodeResult.error(DecodeResult.ErrorCode.ILLEGAL_CHARACTER,
+                    Math.max(0, index * BITS_PER_HEX_CHAR - DetectionLayout.NUM_HEX_PAD_BITS));
+        }
+        return tryDecode(bitsFromHexGroundSegmentRepresentation(hex));
+    }
+
+    /**
+     * Decodes the 26 bytes starting at {@code offset} as in
+     * {@link #from(byte[], int)} without throwing for invalid input (see
+     * {@link DecodeResult}).
+     *
+     * @param bytes  bytes containing the detection message
+     * @param offset index of the first of the 26 bytes
+     * @return the detection or the error and the fields that did decode
+     */
+    public static DecodeResult tryDecode(byte[] bytes, int offset) {
+        // compared without adding to offset so that a large offset cannot overflow
+        if (offset < 0 || offset > bytes.length - NUM_BYTES) {
+            long available = (bytes.length - (long) offset) * 8 - NUM_PAD_BITS;
+            return DecodeResult.error(DecodeResult.ErrorCode.WRONG_LENGTH,
+                    (int) Math.max(0, Math.min(available, NUM_BITS)));
+        }
+        return tryDecode(bitsFrom(bytes, offset));
+    }
+
+    private static DecodeResult tryDecode(Bits bits) {
+        int invalid = indexOfInvalidVesselIdBaudotCode(bits);
+        if (invalid == -1) {
+            return DecodeResult.ok(new Detection(bits));
+        } else {
+            return DecodeResult.error(DecodeResult.ErrorCode.INVALID_BAUDOT_CODE, invalid, new Detection(bits, false));
+        }
+    }
+
+    /**
+     * Returns the index in the detection bits of the first Modified Baudot code
+     * in the vessel id that does not map to a character, or -1 if there is none
+     * (the only field that can fail to decode). Reads by index and does not
+     * throw.
+     */
+    @VisibleForTesting
+    static int indexOfInvalidVesselIdBaudotCode(Bits bits) {
+        int type = bits.getUnsignedInt(DetectionLayout.VESSEL_ID_OFFSET, DetectionLayout.VESSEL_ID_TYPE_LENGTH);
+        int index = DetectionLayout.VESSEL_ID_OFFSET + DetectionLayout.VESSEL_ID_TYPE_LENGTH;
+        if (type == 2 || type == 3) {
+            // radio call sign or aircraft registration marking
+            return indexOfInvalidBaudotCode(bits, index, 7, false);
+        } else if (type == 4) {
+            // aircraft operator designator follows the 24 bit address and is
+            // absent if its 20 bits are zero
+            index += 24;
+            if (bits.getUnsignedInt(index, 20) == 0) {
+                return -1;
+            } else {
+                return indexOfInvalidBaudotCode(bits, index, 3, true);
+            }
+        } else if (type == 5) {
+            return indexOfInvalidBaudotCode(bits, index, 3, true);
+        } else {
+            return -1;
+        }
+    }
+
+    private static int indexOfInvalidBaudotCode(Bits bits, int index, int numChars, boolean isShort) {
+        int codeLength = isShort ? 5 : 6;
+        for (int i = 0; i < numChars; i++) {
+            int code = bits.getUnsignedInt(index, codeLength);
+            char ch = isShort ? BaudotCode.lookupShortCode(code) : BaudotCode.lookup(code);
+            if (ch == BaudotCode.INVALID) {
+                return index;
+            }
+            index += codeLength;
+        }
+        return -1;
+    }
+
+    static Bits bitsFrom(byte[] bytes, int offset) {
+        Preconditions.checkArgument(offset >= 0 && offset <= bytes.length - NUM_BYTES,
+                "not enough bytes for a 202 bit detection");
+        return Bits.from(bytes, offset * 8L + NUM_PAD_BITS, NUM_BITS);
+    }
+
+    /**
+     * Decodes the 202 bit detection message starting at bit {@code bitOffset} of
+     * {@code bytes} (bit 0 is the most significant bit of the byte at absolute
+     * index 0). The position and limit of {@code bytes} are not changed.
+     *
+     * @param bytes     bytes containing the detection message
+     * @param bitOffset index of the first bit of the detection message
+     * @return decoded detection
+     */
+    public static Detection from(ByteBuffer bytes, int bitOffset) {
+        return from(bitsFrom(bytes, bitOffset));
+    }
+
+    static Bits bitsFrom(ByteBuffer bytes, int bitOffset) {
+        return Bits.from(bytes, bitOffset, NUM_BITS);
+    }
+
+    static Bits bitsFromHexGroundSegmentRepresentation(String hex) {
+        // skip the two left padded zero bits
+        return Bits.fromHex(hex, DetectionLayout.NUM_HEX_PAD_BITS);
     }
 
     @VisibleForTesting
@@ -97,42 +364,126 @@ public final class Detection {
         return new Detection(bits);
     }
 
-    private String readBeacon23HexID(Bits bits) {
-        StringBuilder s = new StringBuilder();
-        s.append("1");
-        bits.position(0);
-        String tacBits = bits.readBitString(16);
-        String serialBits = bits.readBitString(14);
-        String countryCodeBits = bits.readBitString(10);
-        s.append(countryCodeBits);
-        s.append("101");
-        s.append(tacBits);
-        s.append(serialBits);
-        String testProtocolFlagBits = bits.position(42).readBitString(1);
-        s.append(testProtocolFlagBits);
-        String vesselIdBits = bits.position(90).readBitString(47);
-        s.append(vesselIdBits);
-        Bits b = Bits.from(s.toString());
-        return b.readHex(23);
+    static String readBeacon23HexID(Bits bits) {
+        char[] hexId = new char[NUM_BEACON_23_HEX_ID_CHARS];
+        writeBeacon23HexId(bits, hexId);
+        return new String(hexId);
+    }
+
+    /**
+     * Writes the 23 hex characters of the Beacon 23 Hex ID into the first 23
+     * elements of {@code dest} without allocating.
+     *
+     * @param bits detection bits (position is ignored and not changed)
+     * @param dest destination
+     */
+    static void writeBeacon23HexId(Bits bits, char[] dest) {
+        writeBeacon23HexId( //
+                bits.getUnsignedInt(DetectionLayout.COUNTRY_CODE_OFFSET, DetectionLayout.COUNTRY_CODE_LENGTH), //
+                bits.getUnsignedInt(DetectionLayout.TAC_OFFSET, DetectionLayout.TAC_LENGTH), //
+                bits.getUnsignedInt(DetectionLayout.SERIAL_NO_OFFSET, DetectionLayout.SERIAL_NO_LENGTH), //
+                bits.getBoolean(DetectionLayout.TEST_PROTOCOL_OFFSET), //
+                bits.getUnsignedLong(DetectionLayout.VESSEL_ID_OFFSET, DetectionLayout.VESSEL_ID_LENGTH), //
+                dest);
+    }
+
+    /**
+     * Writes the 23 hex characters of the Beacon 23 Hex ID for the given field
+     * values into the first 23 elements of {@code dest} without allocating.
+     */
+    static void writeBeacon23HexId(int countryCode, int tac, int serialNo, boolean testProtocolMessage,
+            long vesselIdBits, char[] dest) {
+        BeaconId.writeHex(BeaconId.beacon15Bits(countryCode, tac, serialNo, testProtocolMessage, vesselIdBits),
+                BeaconId.remainingBits(vesselIdBits), dest, 0);
+    }
+
+    private interface RotatingFieldReader {
+        RotatingField read(Bits bits);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Optional<VesselIdType>[] createVesselIdTypes() {
+        Optional<VesselIdType>[] table = (Optional<VesselIdType>[]) new Optional<?>[8];
+        Arrays.fill(table, NO_VESSEL_ID_TYPE);
+        table[1] = MMSI;
+        table[2] = RADIO_CALL_SIGN;
+        table[3] = AIRCRAFT_REGISTRATION_MARKING;
+        table[4] = AVIATION_24_BIT_ADDRESS;
+        table[5] = AIRCRAFT_OPERATOR_AND_SERIAL_NUMBER;
+        return table;
+    }
+
+    private static RotatingFieldType[] createRotatingFieldTypes() {
+        RotatingFieldType[] table = new RotatingFieldType[16];
+        Arrays.fill(table, RotatingFieldType.UNKNOWN);
+        table[0] = RotatingFieldType.OBJECTIVE_REQUIREMENTS;
+        table[1] = RotatingFieldType.ELT_DT_IN_FLIGHT_EMERGENCY;
+        table[2] = RotatingFieldType.RLS;
+        table[3] = RotatingFieldType.NATIONAL_USE;
+        table[15] = RotatingFieldType.CANCELLATION;
+        return table;
+    }
+
+    private static RotatingFieldReader[] createRotatingFieldReaders() {
+        RotatingFieldReader[] table = new RotatingFieldReader[16];
+        Arrays.fill(table, (RotatingFieldReader) Detection::readRotatingFieldUnknown);
+        table[0] = Detection::readRotatingFieldObjectiveRequirements;
+        table[1] = Detection::readRotatingFieldEltDtInFlightEmergency;
+        table[2] = Detection::readRotatingFieldRls;
+        table[3] = Detection::readRotatingFieldNationalUse;
+        table[15] = Detection::readRotatingFieldCancellationMessage;
+        return table;
+    }
+
+    /**
+     * Returns a table with an entry for each of the {@code 2^numBits} codes: the
+     * given ranges for the first codes and empty for the rest.
+     */
+    @SuppressWarnings("unchecked")
+    private static Optional<Range>[] createRanges(int numBits, Range... ranges) {
+        Optional<Range>[] table = (Optional<Range>[]) new Optional<?>[1 << numBits];
+        Arrays.fill(table, Optional.empty());
+        for (int i = 0; i < ranges.length; i++) {
+            table[i] = Optional.of(ranges[i]);
+        }
+        return table;
+    }
+
+    private static TriggeringEvent[] createTriggeringEvents() {
+        TriggeringEvent[] table = new TriggeringEvent[16];
+        Arrays.fill(table, TriggeringEvent.OTHER);
+        table[1] = TriggeringEvent.MANUAL_ACTIVATION_BY_CREW;
+        table[4] = TriggeringEvent.G_SWITCH_OR_DEFORMATION_ACTIVATION;
+        table[8] = TriggeringEvent.AUTOMATIC_ACTIVATION_FROM_AVIONICS_OR_TRIGGERING_SYSTEM;
+        return table;
+    }
+
+    private static RlsType[] createRlsTypes() {
+        RlsType[] table = new RlsType[16];
+        Arrays.fill(table, RlsType.OTHER);
+        table[1] = RlsType.ACKNOWLEDGEMENT_SERVICE;
+        table[15] = RlsType.TEST_SERVICE;
+        return table;
+    }
+
+    static BeaconId readBeaconId(Bits bits) {
+        return BeaconId.from( //
+                bits.getUnsignedInt(DetectionLayout.COUNTRY_CODE_OFFSET, DetectionLayout.COUNTRY_CODE_LENGTH), //
+                bits.getUnsignedInt(DetectionLayout.TAC_OFFSET, DetectionLayout.TAC_LENGTH), //
+                bits.getUnsignedInt(DetectionLayout.SERIAL_NO_OFFSET, DetectionLayout.SERIAL_NO_LENGTH), //
+                bits.getBoolean(DetectionLayout.TEST_PROTOCOL_OFFSET), //
+                bits.getUnsignedLong(DetectionLayout.VESSEL_ID_OFFSET, DetectionLayout.VESSEL_ID_LENGTH));
+    }
+
+    static RotatingFieldType toRotatingFieldType(int rotatingFieldId) {
+        return ROTATING_FIELD_TYPES[rotatingFieldId];
     }
 
     @VisibleForTesting
     static RotatingField readRotatingField(Bits bits) {
         // read rotating field identifier
         int rid = bits.readUnsignedInt(4);
-        if (rid == 0) {
-            return readRotatingFieldObjectiveRequirements(bits);
-        } else if (rid == 1) {
-            return readRotatingFieldEltDtInFlightEmergency(bits);
-        } else if (rid == 2) {
-            return readRotatingFieldRls(bits);
-        } else if (rid == 3) {
-            return readRotatingFieldNationalUse(bits);
-        } else if (rid == 15) {
-            return readRotatingFieldCancellationMessage(bits);
-        } else {
-            return readRotatingFieldUnknown(bits);
-        }
+        return ROTATING_FIELD_READERS[rid].read(bits);
     }
 
     private static ObjectiveRequirements readRotatingFieldObjectiveRequirements(Bits bits) {
@@ -156,15 +507,7 @@ public final class Detection {
     }
 
     private static GnssStatus toGnssStatus(int code) {
-        if (code == 0) {
-            return GnssStatus.NO_FIX;
-        } else if (code == 1) {
-            return GnssStatus.LOCATION_2D;
-        } else if (code == 2) {
-            return GnssStatus.LOCATION_3D;
-        } else {
-            return GnssStatus.OTHER;
-        }
+        return GNSS_STATUSES[code];
     }
 
     @VisibleForTesting
@@ -173,21 +516,7 @@ public final class Detection {
     }
 
     private static Optional<Range> toBatteryPercent(int code) {
-        if (code == 0) {
-            return Optional.of(Range.min(0).max(5).build());
-        } else if (code == 1) {
-            return Optional.of(Range.min(5).exclusive().max(10).build());
-        } else if (code == 2) {
-            return Optional.of(Range.min(10).exclusive().max(25).build());
-        } else if (code == 3) {
-            return Optional.of(Range.min(25).exclusive().max(50).build());
-        } else if (code == 4) {
-            return Optional.of(Range.min(50).exclusive().max(75).build());
-        } else if (code == 5) {
-            return Optional.of(Range.min(75).exclusive().max(100).build());
-        } else {
-            return Optional.empty();
-        }
+        return BATTERY_PERCENTS[code];
     }
 
     @VisibleForTesting
@@ -196,27 +525,7 @@ public final class Detection {
     }
 
     private static Optional<Range> toDop(int code) {
-        if (code == 0) {
-            return Optional.of(Range.min(0).max(1).build());
-        } else if (code <= 7) {
-            return Optional.of(Range.min(code).exclusive().max(code + 1).build());
-        } else if (code == 8) {
-            return Optional.of(Range.min(8).exclusive().max(10).build());
-        } else if (code == 9) {
-            return Optional.of(Range.min(10).exclusive().max(12).build());
-        } else if (code == 10) {
-            return Optional.of(Range.min(12).exclusive().max(15).build());
-        } else if (code == 11) {
-            return Optional.of(Range.min(15).exclusive().max(20).build());
-        } else if (code == 12) {
-            return Optional.of(Range.min(20).exclusive().max(30).build());
-        } else if (code == 13) {
-            return Optional.of(Range.min(30).exclusive().max(50).build());
-        } else if (code == 14) {
-            return Optional.of(Range.min(50).exclusive().build());
-        } else {
-            return Optional.empty();
-        }
+        return DOPS[code];
     }
 
     @VisibleForTesting
@@ -225,15 +534,7 @@ public final class Detection {
     }
 
     private static ActivationMethod toActivationMethod(int code) {
-        if (code == 0) {
-            return ActivationMethod.MANUAL_ACTIVATION_BY_USER;
-        } else if (code == 1) {
-            return ActivationMethod.AUTOMATIC_ACTIVATION_BY_BEACON;
-        } else if (code == 2) {
-            return ActivationMethod.AUTOMATIC_ACTIVATION_BY_EXTERNAL_MEANS;
-        } else {
-            return ActivationMethod.OTHER;
-        }
+        return ACTIVATION_METHODS[code];
     }
 
     private static EltDtInFlightEmergency readRotatingFieldEltDtInFlightEmergency(Bits bits) {
@@ -263,15 +564,7 @@ public final class Detection {
     }
 
     private static Optional<Range> toBatteryPercentInFlightEmergency(int code) {
-        if (code == 0) {
-            return Optional.of(Range.min(0).max(33).build());
-        } else if (code == 1) {
-            return Optional.of(Range.min(33).exclusive().max(66).build());
-        } else if (code == 2) {
-            return Optional.of(Range.min(66).exclusive().max(100).build());
-        } else {
-            return Optional.empty();
-        }
+        return BATTERY_PERCENTS_IN_FLIGHT_EMERGENCY[code];
     }
 
     @VisibleForTesting
@@ -280,15 +573,7 @@ public final class Detection {
     }
 
     private static TriggeringEvent toTriggeringEvent(int code) {
-        if (code == 1) {
-            return TriggeringEvent.MANUAL_ACTIVATION_BY_CREW;
-        } else if (code == 4) {
-            return TriggeringEvent.G_SWITCH_OR_DEFORMATION_ACTIVATION;
-        } else if (code == 8) {
-            return TriggeringEvent.AUTOMATIC_ACTIVATION_FROM_AVIONICS_OR_TRIGGERING_SYSTEM;
-        } else {
-            return TriggeringEvent.OTHER;
-        }
+        return TRIGGERING_EVENTS[code];
     }
 
     private static Rls readRotatingFieldRls(Bits bits) {
@@ -309,13 +594,7 @@ public final class Detection {
     }
 
     private static RlsProvider toRlsProvider(int code) {
-        if (code == 1) {
-            return RlsProvider.GALILEO;
-        } else if (code == 2) {
-            return RlsProvider.GLONASS;
-        } else {
-            return RlsProvider.OTHER;
-        }
+        return RLS_PROVIDERS[code];
     }
 
     @VisibleForTesting
@@ -350,13 +629,7 @@ public final class Detection {
     }
 
     private static RlsType toRlsType(int code) {
-        if (code == 1) {
-            return RlsType.ACKNOWLEDGEMENT_SERVICE;
-        } else if (code == 15) {
-            return RlsType.TEST_SERVICE;
-        } else {
-            return RlsType.OTHER;
-        }
+        return RLS_TYPES[code];
     }
 
     private static NationalUse readRotatingFieldNationalUse(Bits bits) {
@@ -372,13 +645,7 @@ public final class Detection {
     }
 
     private static DeactivationMethod toDeactivationMethod(int code) {
-        if (code == 1) {
-            return DeactivationMethod.AUTOMATIC_DEACTIVATION_BY_EXTERNAL_MEANS;
-        } else if (code == 2) {
-            return DeactivationMethod.MANUAL_DEACTIVATION_BY_USER;
-        } else {
-            return DeactivationMethod.OTHER;
-        }
+        return DEACTIVATION_METHODS[code];
     }
 
     private static RotatingField readRotatingFieldUnknown(Bits bits) {
@@ -398,35 +665,61 @@ public final class Detection {
         }
     }
 
+    /**
+     * Returns the latitude of the encoded position of the detection bits (read by
+     * index, position is not changed). Only meaningful if the position field is
+     * not {@link #NO_ENCODED_LOCATION_CAPABILITY_VALUE}.
+     */
+    static double getLatitude(Bits bits) {
+        return getPositionCoordinate(bits, DetectionLayout.POSITION_OFFSET, NUM_LATITUDE_DEGREES_BITS);
+    }
+
+    /**
+     * Returns the longitude of the encoded position of the detection bits (read
+     * by index, position is not changed). Only meaningful if the position field is
+     * not {@link #NO_ENCODED_LOCATION_CAPABILITY_VALUE}.
+     */
+    static double getLongitude(Bits bits) {
+        return getPositionCoordinate(bits,
+                DetectionLayout.POSITION_OFFSET + 1 + NUM_LATITUDE_DEGREES_BITS + NUM_POSITION_FRACTION_BITS,
+                NUM_LONGITUDE_DEGREES_BITS);
+    }
+
+    private static double getPositionCoordinate(Bits bits, int index, int numDegreesBits) {
+        boolean negative = bits.getBoolean(index);
+        int degrees = bits.getUnsignedInt(index + 1, numDegreesBits);
+        int fraction = bits.getUnsignedInt(index + 1 + numDegreesBits, NUM_POSITION_FRACTION_BITS);
+        return toCoordinate(negative, degrees, fraction);
+    }
+
     private static double readLat(Bits bits) {
-        return readPositionCoordinate(bits, 7);
+        return readPositionCoordinate(bits, NUM_LATITUDE_DEGREES_BITS);
     }
 
     private static double readLon(Bits bits) {
-        return readPositionCoordinate(bits, 8);
+        return readPositionCoordinate(bits, NUM_LONGITUDE_DEGREES_BITS);
     }
 
     private static double readPositionCoordinate(Bits bits, int numDegreesBits) {
-        int sign = bits.readBoolean() ? -1 : 1;
+        boolean negative = bits.readBoolean();
         int degrees = bits.readUnsignedInt(numDegreesBits);
-        // use BigDecimal so don't lose precision
-        BigDecimal d = readDecimalPart(bits);
-        d = d.add(BigDecimal.valueOf(degrees));
-        d = d.multiply(BigDecimal.valueOf(sign));
-        return d.doubleValue();
-    }
-
-    private static BigDecimal readDecimalPart(Bits bits) {
-        boolean[] decimalPart = bits.readBooleanArray(15);
-        BigDecimal d = BigDecimal.ZERO;
-        BigDecimal f = BigDecimal.ONE;
-        for (int i = 0; i < decimalPart.length; i++) {
-            f = f.divide(BigDecimal.valueOf(2));
-            if (decimalPart[i]) {
-                d = d.add(f);
-            }
+        int fraction = bits.readUnsignedInt(NUM_POSITION_FRACTION_BITS);
+        return toCoordinate(negative, degrees, fraction);
+    }
+
+    /**
+     * Returns {@code degrees + fraction / 2^15} with sign applied. At most 23
+     * significant bits are involved so the double arithmetic is exact (no
+     * rounding). A negative zero is returned as zero.
+     */
+    @VisibleForTesting
+    static double toCoordinate(boolean negative, int degrees, int fraction) {
+        double v = degrees + fraction * POSITION_FRACTION_UNIT;
+        if (negative && v != 0) {
+            return -v;
+        } else {
+            return v;
         }
-        return d;
     }
 
     @VisibleForTesting
@@ -447,10 +740,20 @@ public final class Detection {
         } else if (type == 5) {
             return Optional.of(readVesselIdAircraftOperatorAndSerialNumber(bits));
         } else {
+            // spare
+            bits.skip(44);
             return Optional.empty();
         }
     }
 
+    /**
+     * Returns the type for the 3 bit vessel id type code (empty for no vessel id
+     * and for spare codes) without allocating.
+     */
+    static Optional<VesselIdType> toVesselIdType(int code) {
+        return VESSEL_ID_TYPES[code];
+    }
+
     @VisibleForTesting
     static AircraftOperatorAndSerialNumber readVesselIdAircraftOperatorAndSerialNumber(Bits bits) {
         String aircraftOperatorDesignator = bits.readBaudotCharactersShort(3, "Aircraft Operator Designator");
@@ -519,20 +822,11 @@ public final class Detection {
 
     @VisibleForTesting
     static BeaconType readBeaconType(Bits bits) {
-        int v = bits.readUnsignedInt(3);
-        if (v == 0) {
-            return BeaconType.ELT_NOT_DT;
-        } else if (v == 1) {
-            return BeaconType.EPIRB;
-        } else if (v == 2) {
-            return BeaconType.PLB;
-        } else if (v == 3) {
-            return BeaconType.ELT_DT;
-        } else if (v == 7) {
-            return BeaconType.SYSTEM;
-        } else {
-            return BeaconType.OTHER;
-        }
+        return toBeaconType(bits.readUnsignedInt(3));
+    }
+
+    static BeaconType toBeaconType(int v) {
+        return BEACON_TYPES[v];
     }
 
     public int tac() {
@@ -583,15 +877,209 @@ public final class Detection {
         return beacon15HexId;
     }
 
+    /**
+     * Returns the Beacon 23 Hex ID as a compact value (two longs) for use as a
+     * map key. Built straight from the message bits, not from
+     * {@link #beacon23HexId()}.
+     *
+     * @return beacon id
+     */
+    public BeaconId beaconId() {
+        return readBeaconId(bits);
+    }
+
     public Bits calculateBchErrorCorrectionCode() {
-        return bits //
-                .concatWith(Bits.zeros(48)) //
-                .remainderOnPolynomialDivision(BCH_DIVISOR) //
-                .last(48);
+        return Bits.from(calculateBchErrorCorrectionCodeAsLong(), Bch.DEGREE);
+    }
+
+    /**
+     * Returns the 48 bit BCH error correction code for this detection right
+     * aligned in a long.
+     *
+     * @return BCH error correction code
+     */
+    public long calculateBchErrorCorrectionCodeAsLong() {
+        return Bch.parity(bits);
+    }
+
+    /**
+     * Decodes the full message (202 bit detection followed by the 48 bit BCH
+     * error correction code) hex-encoded to 63 chars using left padded zero bits
+     * and checks the BCH error correction code in the same pass over
+     * {@code hex}. The detection is decoded whatever the BCH status.
+     *
+     * @param hex full message hex
+     * @return detection and BCH status
+     */
+    public static VerifiedDetection fromFullMessage(String hex) {
+        Bits bits = Bits.zeros(NUM_BITS);
+        return verified(bits, Bch.load(hex, bits));
+    }
+
+    /**
+     * Decodes the full message (202 bit detection followed by the 48 bit BCH
+     * error correction code) left padded with zero bits to 32 bytes starting at
+     * {@code offset} and checks the BCH error correction code in the same pass
+     * over the bytes. The detection is decoded whatever the BCH status.
+     *
+     * @param bytes  bytes containing the full message
+     * @param offset index of the first of the 32 bytes
+     * @return detection and BCH status
+     */
+    public static VerifiedDetection fromFullMessage(byte[] bytes, int offset) {
+        Bits bits = Bits.zeros(NUM_BITS);
+        return verified(bits, Bch.load(bytes, offset, bits));
+    }
+
+    private static VerifiedDetection verified(Bits bits, long remainder) {
+        return new VerifiedDetection(new Detection(bits),
+                remainder == 0 ? VerifiedDetection.BchStatus.VALID : VerifiedDetection.BchStatus.INVALID);
+    }
+
+    /**
+     * Returns true if and only if the given full message (202 bit detection
+     * followed by the 48 bit BCH error correction code) hex-encoded to 63 chars
+     * using left padded zero bits has a correct BCH error correction code.
+     *
+     * @param hex full message hex
+     * @return true if the BCH error correction code is correct
+     */
+    public static boolean verifyBch(String hex) {
+        return Bch.verify(hex);
+    }
+
+    /**
+     * Returns true if and only if the full message (202 bit detection followed
+     * by the 48 bit BCH error correction code) left padded with zero bits to 32
+     * bytes starting at {@code offset} has a correct BCH error correction code.
+     *
+     * @param bytes  bytes containing the full message
+     * @param offset index of the first of the 32 bytes
+     * @return true if the BCH error correction code is correct
+     */
+    public static boolean verifyBch(byte[] bytes, int offset) {
+        return Bch.verify(bytes, offset);
+    }
+
+    /**
+     * Returns the canonical 26 byte form of this detection: the 202 bit message
+     * left padded with 6 zero bits (the layout read by {@link #fromBytes(byte[])}
+     * and {@link #from(byte[], int)}).
+     *
+     * @return 26 bytes
+     */
+    public byte[] toBytes() {
+        return bits.toBytes(NUM_PAD_BITS);
+    }
+
+    /**
+     * Writes the 26 bytes of {@link #toBytes()} into {@code dest} starting at
+     * {@code offset} without allocating.
+     *
+     * @param dest   destination
+     * @param offset index of the first of the 26 bytes
+     */
+    public void writeBytes(byte[] dest, int offset) {
+        bits.writeBytes(dest, offset, NUM_PAD_BITS);
+    }
+
+    /**
+     * Returns the hex Ground Segment Representation (the 202 bits left padded
+     * with 2 zero bits as 51 upper case hex characters) built from the bytes of
+     * {@link #toBytes()}.
+     *
+     * @return 51 hex characters
+     */
+    public String toHexGroundSegmentRepresentation() {
+        byte[] bytes = toBytes();
+        // the 26 bytes are 52 hex characters of which the first is the four
+        // extra (zero) pad bits
+        char[] hex = new char[NUM_BYTES * 2 - 1];
+        hex[0] = Hex.toChar(bytes[0]);
+        for (int i = 1; i < NUM_BYTES; i++) {
+            hex[2 * i - 1] = Hex.toChar(bytes[i] >>> 4);
+            hex[2 * i] = Hex.toChar(bytes[i]);
+        }
+        return new String(hex);
     }
 
     public String toJson() {
-        return Json.toJson(this);
+        return DetectionJson.toJson(this);
+    }
+
+    /**
+     * Writes the JSON of this detection as UTF-8 to {@code out} without building
+     * an intermediate String. The output is the same as {@link #toJson()} (or a
+     * pretty print of it). {@code out} is flushed but not closed.
+     *
+     * @param out    destination
+     * @param pretty true to indent the output
+     * @throws java.io.UncheckedIOException if writing fails
+     */
+    public void writeJson(OutputStream out, boolean pretty) {
+        DetectionJson.write(this, FieldSet.all(), out, pretty);
+    }
+
+    /**
+     * Writes the JSON of this detection to {@code writer}. See
+     * {@link #writeJson(OutputStream, boolean)}.
+     *
+     * @param writer destination
+     * @param pretty true to indent the output
+     * @throws java.io.UncheckedIOException if writing fails
+     */
+    public void writeJson(Writer writer, boolean pretty) {
+        DetectionJson.write(this, FieldSet.all(), writer, pretty);
+    }
+
+    /**
+     * Returns the JSON of the selected fields of this detection. Unselected
+     * fields are not serialized.
+     *
+     * @param fields selected fields
+     * @return compact JSON
+     */
+    public String toJson(FieldSet fields) {
+        return DetectionJson.toJson(this, fields);
+    }
+
+    /**
+     * Writes the JSON of the selected fields of this detection as UTF-8 to
+     * {@code out}. See {@link #writeJson(OutputStream, boolean)}.
+     *
+     * @param out    destination
+     * @param pretty true to indent the output
+     * @param fields selected fields
+     * @throws java.io.UncheckedIOException if writing fails
+     */
+    public void writeJson(OutputStream out, boolean pretty, FieldSet fields) {
+        DetectionJson.write(this, fields, out, pretty);
+    }
+
+    /**
+     * Returns the CBOR encoding of this detection. It has the same structure as
+     * the JSON and {@link Cbor#toJson(byte[])} converts it back to the same JSON
+     * as {@link #toJson()}.
+     *
+     * @return CBOR bytes
+     */
+    public byte[] toCbor() {
+        return Cbor.toCbor(this, FieldSet.all());
+    }
+
+    public byte[] toCbor(FieldSet fields) {
+        return Cbor.toCbor(this, fields);
+    }
+
+    /**
+     * Writes the CBOR encoding of this detection (see {@link #toCbor()}) to
+     * {@code out}. {@code out} is flushed but not closed.
+     *
+     * @param out destination
+     * @throws java.io.UncheckedIOException if writing fails
+     */
+    public void writeCbor(OutputStream out) {
+        Cbor.write(this, FieldSet.all(), out);
     }
 
     @Override
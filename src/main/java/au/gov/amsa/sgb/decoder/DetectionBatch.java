@@ -0,0 +1,304 @@
+package au.gov.amsa.sgb.decoder;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+import au.gov.amsa.sgb.decoder.internal.Bits;
+import au.gov.amsa.sgb.decoder.rotatingfield.RotatingField;
+import au.gov.amsa.sgb.decoder.rotatingfield.RotatingFieldType;
+import au.gov.amsa.sgb.decoder.vesselid.VesselId;
+import au.gov.amsa.sgb.decoder.vesselid.VesselIdType;
+
+/**
+ * Columnar (struct of arrays) decode of many detection messages. Each fixed
+ * field is written into a primitive array indexed by row so there are no per
+ * row objects and aggregating a field is a scan of one array. The vessel id and
+ * rotating field are kept as their raw bits and only decoded when
+ * {@link #vesselId(int)} or {@link #rotatingField(int)} is called.
+ *
+ * <p>
+ * Not thread-safe for concurrent calls to the decode methods but once decoded
+ * the batch can be read from many threads.
+ */
+public final class DetectionBatch {
+
+    private static final BeaconType[] BEACON_TYPES = BeaconType.values();
+
+    private final int capacity;
+    // scratch holder of the message being decoded, its fields are read by
+    // MutableDetection.readFixedFields as for DetectionDecoder
+    private final MutableDetection scratch = new MutableDetection();
+    private int size;
+
+    private final int[] tac;
+    private final int[] serialNo;
+    private final int[] countryCode;
+    private final boolean[] hasAtLeastOneEnabledHomingSignal;
+    private final boolean[] hasEnabledRls;
+    private final boolean[] testProtocolMessage;
+    private final boolean[] hasEncodedGnssPosition;
+    private final double[] latitude;
+    private final double[] longitude;
+    private final byte[] beaconType;
+    private final byte[] rotatingFieldId;
+    // raw 47 bits of the vessel id field (including the 3 bit type)
+    private final long[] vesselIdBits;
+    // raw 48 bits of the rotating field (including the 4 bit identifier)
+    private final long[] rotatingFieldBits;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity maximum number of detections that a decode can hold
+     */
+    public DetectionBatch(int capacity) {
+        Preconditions.checkArgument(capacity >= 0, "capacity must be non-negative");
+        this.capacity = capacity;
+        this.tac = new int[capacity];
+        this.serialNo = new int[capacity];
+        this.countryCode = new int[capacity];
+        this.hasAtLeastOneEnabledHomingSignal = new boolean[capacity];
+        this.hasEnabledRls = new boolean[capacity];
+        this.testProtocolMessage = new boolean[capacity];
+        this.hasEncodedGnssPosition = new boolean[capacity];
+        this.latitude = new double[capacity];
+        this.longitude = new double[capacity];
+        this.beaconType = new byte[capacity];
+        this.rotatingFieldId = new byte[capacity];
+        this.vesselIdBits = new long[capacity];
+        this.rotatingFieldBits = new long[capacity];
+    }
+
+    /**
+     * Decodes the first {@code n} messages, each a 202 bit detection right
+     * aligned (left padded with 6 zero bits) in the first 26 bytes of its array.
+     *
+     * @param messages detection messages
+     * @param n        number of messages to decode
+     * @return new batch of size {@code n}
+     */
+    public static DetectionBatch decode(byte[][] messages, int n) {
+        return new DetectionBatch(n).decodeFrom(messages, n);
+    }
+
+    /**
+     * Decodes {@code n} consecutive 26 byte records starting at the current
+     * position of {@code bytes}, each a 202 bit detection right aligned (left
+     * padded with 6 zero bits). The position and limit of {@code bytes} are not
+     * changed.
+     *
+     * @param bytes detection messages
+     * @param n     number of messages to decode
+     * @return new batch of size {@code n}
+     */
+    public static DetectionBatch decode(ByteBuffer bytes, int n) {
+        return new DetectionBatch(n).decodeFrom(bytes, n);
+    }
+
+    /**
+     * Replaces the contents of this batch with the decode of the first {@code n}
+     * messages. See {@link #decode(byte[][], int)}.
+     *
+     * @param messages detection messages
+     * @param n        number of messages to decode, at most the capacity
+     * @return this
+     */
+    public DetectionBatch decodeFrom(byte[][] messages, int n) {
+        checkSize(n);
+        Preconditions.checkArgument(n <= messages.length, "n must not exceed the number of messages");
+        size = 0;
+        for (int i = 0; i < n; i++) {
+            byte[] message = messages[i];
+            Preconditions.checkArgument(message.length >= DetectionLayout.NUM_BYTES,
+                    "not enough bytes for a 202 bit detection");
+            scratch.bits.load(message, DetectionLayout.NUM_PAD_BITS);
+            decodeRow(i);
+        }
+        size = n;
+        return this;
+    }
+
+    /**
+     * Replaces the contents of this batch with the decode of {@code n} records.
+     * See {@link #decode(ByteBuffer, int)}.
+     *
+     * @param bytes detection messages
+     * @param n     number of messages to decode, at most the capacity
+     * @return this
+     */
+    public DetectionBatch decodeFrom(ByteBuffer bytes, int n) {
+        checkSize(n);
+        Preconditions.checkArgument((long) bytes.position() + (long) n * DetectionLayout.NUM_BYTES <= bytes.limit(),
+                "not enough bytes for " + n + " detections");
+        size = 0;
+        int index = bytes.position();
+        for (int i = 0; i < n; i++) {
+            // bit offset as a long so that positions past 256MB do not overflow
+            scratch.bits.load(bytes, index * 8L + DetectionLayout.NUM_PAD_BITS);
+            decodeRow(i);
+            index += DetectionLayout.NUM_BYTES;
+        }
+        size = n;
+        return this;
+    }
+
+    private void checkSize(int n) {
+        Preconditions.checkArgument(n >= 0 && n <= capacity, "n must be between 0 and capacity " + capacity);
+    }
+
+    private void decodeRow(int i) {
+        MutableDetection d = scratch;
+        d.readFixedFields();
+        tac[i] = d.tac;
+        serialNo[i] = d.serialNo;
+        countryCode[i] = d.countryCode;
+        hasAtLeastOneEnabledHomingSignal[i] = d.hasAtLeastOneEnabledHomingSignal;
+        hasEnabledRls[i] = d.hasEnabledRls;
+        testProtocolMessage[i] = d.testProtocolMessage;
+        hasEncodedGnssPosition[i] = d.hasEncodedGnssPosition;
+        latitude[i] = d.latitude;
+        longitude[i] = d.longitude;
+        beaconType[i] = (byte) d.beaconType.ordinal();
+        rotatingFieldId[i] = (byte) d.rotatingFieldId;
+        vesselIdBits[i] = d.bits.getUnsignedLong(DetectionLayout.VESSEL_ID_OFFSET, DetectionLayout.VESSEL_ID_LENGTH);
+        rotatingFieldBits[i] = d.bits.getUnsignedLong(DetectionLayout.ROTATING_FIELD_OFFSET,
+                DetectionLayout.ROTATING_FIELD_LENGTH);
+    }
+
+    /**
+     * Returns the number of detections decoded.
+     *
+     * @return number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private int row(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("row " + i + " is not between 0 and " + (size - 1));
+        }
+        return i;
+    }
+
+    public int tac(int i) {
+        return tac[row(i)];
+    }
+
+    public int serialNo(int i) {
+        return serialNo[row(i)];
+    }
+
+    public int countryCode(int i) {
+        return countryCode[row(i)];
+    }
+
+    public boolean hasAtLeastOneEnabledHomingSignal(int i) {
+        return hasAtLeastOneEnabledHomingSignal[row(i)];
+    }
+
+    public boolean hasEnabledRls(int i) {
+        return hasEnabledRls[row(i)];
+    }
+
+    public boolean isTestProtocolMessage(int i) {
+        return testProtocolMessage[row(i)];
+    }
+
+    public boolean hasEncodedGnssPosition(int i) {
+        return hasEncodedGnssPosition[row(i)];
+    }
+
+    /**
+     * Returns the latitude of the encoded GNSS position of row {@code i} or
+     * {@code NaN} if it has no encoded position.
+     *
+     * @param i row
+     * @return latitude in degrees
+     */
+    public double latitude(int i) {
+        return latitude[row(i)];
+    }
+
+    /**
+     * Returns the longitude of the encoded GNSS position of row {@code i} or
+     * {@code NaN} if it has no encoded position.
+     *
+     * @param i row
+     * @return longitude in degrees
+     */
+    public double longitude(int i) {
+        return longitude[row(i)];
+    }
+
+    public BeaconType beaconType(int i) {
+        return BEACON_TYPES[beaconType[row(i)]];
+    }
+
+    public int rotatingFieldId(int i) {
+        return rotatingFieldId[row(i)];
+    }
+
+    public RotatingFieldType rotatingFieldType(int i) {
+        return Detection.toRotatingFieldType(rotatingFieldId(i));
+    }
+
+    public Optional<VesselIdType> vesselIdType(int i) {
+        int numBitsAfterType = DetectionLayout.VESSEL_ID_LENGTH - DetectionLayout.VESSEL_ID_TYPE_LENGTH;
+        return Detection.toVesselIdType((int) (vesselIdBits[row(i)] >>> numBitsAfterType));
+    }
+
+    /**
+     * Decodes the vessel id of row {@code i}.
+     *
+     * @param i row
+     * @return vessel id
+     */
+    public Optional<? extends VesselId> vesselId(int i) {
+        return Detection.readVesselId(Bits.from(vesselIdBits[row(i)], DetectionLayout.VESSEL_ID_LENGTH));
+    }
+
+    /**
+     * Decodes the rotating field of row {@code i}.
+     *
+     * @param i row
+     * @return rotating field
+     */
+    public RotatingField rotatingField(int i) {
+        return Detection.readRotatingField(Bits.from(rotatingFieldBits[row(i)], DetectionLayout.ROTATING_FIELD_LENGTH));
+    }
+
+    /**
+     * Returns the Beacon 23 Hex ID of row {@code i}.
+     *
+     * @param i row
+     * @return Beacon 23 Hex ID
+     */
+    public String beacon23HexId(int i) {
+        char[] chars = new char[Detection.NUM_BEACON_23_HEX_ID_CHARS];
+        Detection.writeBeacon23HexId(countryCode[row(i)], tac[i], serialNo[i], testProtocolMessage[i],
+                vesselIdBits[i], chars);
+        return new String(chars);
+    }
+
+    /**
+     * Returns the Beacon 23 Hex ID of row {@code i} as a compact value.
+     *
+     * @param i row
+     * @return beacon id
+     */
+    public BeaconId beaconId(int i) {
+        return BeaconId.from(countryCode[row(i)], tac[i], serialNo[i], testProtocolMessage[i], vesselIdBits[i]);
+    }
+
+    public String beacon15HexId(int i) {
+        return beacon23HexId(i).substring(0, Detection.NUM_BEACON_15_HEX_ID_CHARS);
+    }
+
+}
@@ -0,0 +1,72 @@
+package au.gov.amsa.sgb.decoder;
+
+import java.util.Optional;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+import au.gov.amsa.sgb.decoder.internal.Bch;
+import au.gov.amsa.sgb.decoder.internal.BchCorrector;
+import au.gov.amsa.sgb.decoder.internal.Bits;
+import au.gov.amsa.sgb.decoder.internal.Hex;
+
+/**
+ * Corrects up to 6 bit errors in a full message (202 bit detection followed by
+ * the 48 bit BCH error correction code) using the BCH code and decodes the
+ * corrected detection.
+ *
+ * <p>
+ * Not thread-safe (holds reusable scratch buffers). Use one instance per
+ * thread.
+ */
+public final class DetectionCorrector {
+
+    private final BchCorrector corrector = new BchCorrector();
+    private final byte[] buffer = new byte[Bch.NUM_MESSAGE_BYTES];
+
+    /**
+     * Corrects and decodes the full message hex-encoded to 63 chars using left
+     * padded zero bits.
+     *
+     * @param hex full message hex
+     * @return corrected detection or empty if the message has too many errors to
+     *         correct
+     */
+    public Optional<CorrectedDetection> correct(String hex) {
+        Preconditions.checkArgument(hex.length() == Bch.NUM_MESSAGE_HEX_CHARS,
+                "hex length should be " + Bch.NUM_MESSAGE_HEX_CHARS);
+        // the 63 chars are the last 63 of the 64 hex chars of the buffer
+        buffer[0] = (byte) Hex.digit(hex.charAt(0));
+        for (int i = 1; i < Bch.NUM_MESSAGE_BYTES; i++) {
+            buffer[i] = (byte) ((Hex.digit(hex.charAt(2 * i - 1)) << 4) | Hex.digit(hex.charAt(2 * i)));
+        }
+        return correctBuffer();
+    }
+
+    /**
+     * Corrects and decodes the full message left padded with zero bits to 32
+     * bytes starting at {@code offset}. {@code bytes} is not modified.
+     *
+     * @param bytes  bytes containing the full message
+     * @param offset index of the first of the 32 bytes
+     * @return corrected detection or empty if the message has too many errors to
+     *         correct
+     */
+    public Optional<CorrectedDetection> correct(byte[] bytes, int offset) {
+        Preconditions.checkArgument(offset >= 0 && offset <= bytes.length - Bch.NUM_MESSAGE_BYTES,
+                "not enough bytes for a 250 bit message");
+        System.arraycopy(bytes, offset, buffer, 0, Bch.NUM_MESSAGE_BYTES);
+        return correctBuffer();
+    }
+
+    private Optional<CorrectedDetection> correctBuffer() {
+        int numBitsCorrected = corrector.correct(buffer, 0);
+        if (numBitsCorrected == BchCorrector.UNCORRECTABLE) {
+            return Optional.empty();
+        } else {
+            // the detection is the first 202 bits after the pad bits
+            Detection d = Detection.from(Bits.from(buffer, Bch.NUM_MESSAGE_PAD_BITS, DetectionLayout.NUM_BITS));
+            return Optional.of(new CorrectedDetection(d, numBitsCorrected));
+        }
+    }
+
+}
@@ -0,0 +1,504 @@
+package au.gov.amsa.sgb.decoder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.OffsetTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+import au.gov.amsa.sgb.decoder.rotatingfield.BeaconFeedback;
+import au.gov.amsa.sgb.decoder.rotatingfield.Cancellation;
+import au.gov.amsa.sgb.decoder.rotatingfield.EltDtInFlightEmergency;
+import au.gov.amsa.sgb.decoder.rotatingfield.NationalUse;
+import au.gov.amsa.sgb.decoder.rotatingfield.ObjectiveRequirements;
+import au.gov.amsa.sgb.decoder.rotatingfield.Range;
+import au.gov.amsa.sgb.decoder.rotatingfield.RangeEnd;
+import au.gov.amsa.sgb.decoder.rotatingfield.Rls;
+import au.gov.amsa.sgb.decoder.rotatingfield.RotatingField;
+import au.gov.amsa.sgb.decoder.rotatingfield.UnknownRotatingField;
+import au.gov.amsa.sgb.decoder.vesselid.AircraftOperatorAndSerialNumber;
+import au.gov.amsa.sgb.decoder.vesselid.AircraftRegistrationMarking;
+import au.gov.amsa.sgb.decoder.vesselid.Aviation24BitAddress;
+import au.gov.amsa.sgb.decoder.vesselid.Mmsi;
+import au.gov.amsa.sgb.decoder.vesselid.RadioCallSign;
+import au.gov.amsa.sgb.decoder.vesselid.VesselId;
+
+/**
+ * Writes {@link Detection}s as CSV (RFC 4180 quoting, {@code '\n'} line ends)
+ * with one row per detection. The columns are fixed: one per non-object
+ * property in {@code detection-schema.json}, in schema order, named by the
+ * property path joined with {@code '.'} (for example
+ * {@code encodedGnssPosition.lat} or
+ * {@code rotatingField.dilutionPrecisionHdop.min.value}). The properties of all
+ * the vessel id and rotating field types are included, so a cell is empty when
+ * the value is absent or does not apply to the type in the detection.
+ *
+ * <p>
+ * Rows are formatted straight from the detection (no JSON is involved). Numbers
+ * and booleans are appended to a reusable row builder without a String per
+ * cell, and each row is copied into a reusable char buffer that is written to
+ * the {@link Writer} each time it fills and on {@link #flush()} and
+ * {@link #close()}. {@link #write(MutableDetection)} writes a row from a
+ * {@link DetectionDecoder} without building a {@link Detection} (only the
+ * vessel id and rotating field are decoded to objects). The writer is not
+ * closed by this class. Not thread-safe.
+ */
+public final class DetectionCsvWriter implements Closeable {
+
+    /**
+     * Size (in chars) of the buffer used when not specified.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private static final List<String> COLUMNS = columnNames();
+
+    private static final Map<String, Integer> INDEXES = indexes();
+
+    private static final int TAC = index("tac");
+    private static final int SERIAL_NO = index("serialNo");
+    private static final int COUNTRY_CODE = index("countryCode");
+    private static final int HOMING = index("hasAtLeastOneEnabledHomingSignal");
+    private static final int RLS = index("hasEnabledRls");
+    private static final int TEST_PROTOCOL = index("testProtocolMessage");
+    private static final int LAT = index("encodedGnssPosition.lat");
+    private static final int LON = index("encodedGnssPosition.lon");
+    private static final int VESSEL_ID_TYPE = index("vesselId.vesselIdType");
+    private static final int AIRCRAFT_OPERATOR_DESIGNATOR = index("vesselId.aircraftOperatorDesignator");
+    private static final int SERIAL_NUMBER = index("vesselId.serialNumber");
+    private static final int VESSEL_ID_VALUE = index("vesselId.value");
+    private static final int ADDRESS_HEX = index("vesselId.addressHex");
+    private static final int MMSI = index("vesselId.mmsi");
+    private static final int EPIRB_MMSI = index("vesselId.epirbMmsi");
+    private static final int BEACON_TYPE = index("beaconType");
+    private static final int ROTATING_FIELD_TYPE = index("rotatingField.rotatingFieldType");
+    private static final int DEACTIVATION_METHOD = index("rotatingField.deactivationMethod");
+    private static final int TIME_OF_LAST_ENCODED_LOCATION = index("rotatingField.timeOfLastEncodedLocation");
+    private static final int ALTITUDE = index("rotatingField.altitudeEncodedLocationMetres");
+    private static final int TRIGGERING_EVENT = index("rotatingField.triggeringEvent");
+    private static final int GNSS_STATUS = index("rotatingField.gnssStatus");
+    private static final RangeColumns BATTERY = new RangeColumns("rotatingField.remainingBatteryCapacityPercent");
+    private static final int BIT_STRING = index("rotatingField.bitString");
+    private static final int ELAPSED_TIME = index("rotatingField.elapsedTimeSinceActivationHours");
+    private static final int TIME_SINCE_LAST_ENCODED_LOCATION = index(
+            "rotatingField.timeSinceLastEncodedLocationMinutes");
+    private static final RangeColumns HDOP = new RangeColumns("rotatingField.dilutionPrecisionHdop");
+    private static final RangeColumns VDOP = new RangeColumns("rotatingField.dilutionPrecisionVdop");
+    private static final int ACTIVATION_METHOD = index("rotatingField.activationMethod");
+    private static final int CAN_PROCESS_ACK_RLM_TYPE_1 = index(
+            "rotatingField.canProcessAutomaticallyGeneratedAckRlmType1");
+    private static final int CAN_PROCESS_MANUAL_RLM = index("rotatingField.canProcessManuallyGeneratedRlm");
+    private static final int RLS_PROVIDER = index("rotatingField.rlsProvider");
+    private static final int RLM_TYPE_1_FEEDBACK = index("rotatingField.beaconFeedback.rlmType1FeedbackReceived");
+    private static final int RLM_TYPE_2_FEEDBACK = index("rotatingField.beaconFeedback.rlmType2FeedbackReceived");
+    private static final int RLS_TYPE = index("rotatingField.beaconFeedback.rlsType");
+    private static final int SHORT_RLM_PARAMETERS = index("rotatingField.beaconFeedback.shortRlmParametersBitString");
+    private static final int BEACON_23_HEX_ID = index("beacon23HexId");
+    private static final int BEACON_15_HEX_ID = index("beacon15HexId");
+
+    private final Writer writer;
+    private final char[] buffer;
+    // the cells of the current row appended in any order, cell i is
+    // row[cellStart[i], cellEnd[i]) or empty when cellStart[i] is negative
+    private final StringBuilder row = new StringBuilder(1024);
+    private final int[] cellStart = new int[COLUMNS.size()];
+    private final int[] cellEnd = new int[COLUMNS.size()];
+    private int count;
+    private long rowsWritten;
+    private boolean closed;
+
+    public DetectionCsvWriter(Writer writer) {
+        this(writer, true, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param writer     destination
+     * @param header     true to write the column names as the first row
+     * @param bufferSize number of chars buffered before a write to
+     *                   {@code writer}
+     */
+    public DetectionCsvWriter(Writer writer, boolean header, int bufferSize) {
+        Preconditions.checkNotNull(writer, "writer cannot be null");
+        Preconditions.checkArgument(bufferSize > 0, "bufferSize must be positive");
+        this.writer = writer;
+        this.buffer = new char[bufferSize];
+        if (header) {
+            startRow();
+            for (int i = 0; i < COLUMNS.size(); i++) {
+                set(i, COLUMNS.get(i));
+            }
+            writeRow();
+        }
+    }
+
+    /**
+     * Returns the column names in the order they are written.
+     *
+     * @return column names
+     */
+    public static List<String> columns() {
+        return COLUMNS;
+    }
+
+    public DetectionCsvWriter write(Detection d) {
+        checkNotClosed();
+        startRow();
+        set(TAC, d.tac());
+        set(SERIAL_NO, d.serialNo());
+        set(COUNTRY_CODE, d.countryCode());
+        set(HOMING, d.hasAtLeastOneEnabledHomingSignal());
+        set(RLS, d.hasEnabledRls());
+        set(TEST_PROTOCOL, d.isTestProtocolMessage());
+        if (d.encodedGnssPosition().isPresent()) {
+            EncodedGnssPosition p = d.encodedGnssPosition().get();
+            set(LAT, p.lat());
+            set(LON, p.lon());
+        }
+        if (d.vesselId().isPresent()) {
+            setCells(d.vesselId().get());
+        }
+        set(BEACON_TYPE, d.beaconType().name());
+        setCells(d.rotatingField());
+        set(BEACON_23_HEX_ID, d.beacon23HexId());
+        set(BEACON_15_HEX_ID, d.beacon15HexId());
+        writeRow();
+        rowsWritten++;
+        return this;
+    }
+
+    /**
+     * Writes the row of the last detection decoded into {@code d}. The row is the
+     * same as {@link #write(Detection)} of {@link MutableDetection#toDetection()}.
+     *
+     * @param d decoded detection
+     * @return this
+     * @throws IllegalStateException if no detection is decoded into {@code d}
+     */
+    public DetectionCsvWriter write(MutableDetection d) {
+        checkNotClosed();
+        startRow();
+        set(TAC, d.tac());
+        set(SERIAL_NO, d.serialNo());
+        set(COUNTRY_CODE, d.countryCode());
+        set(HOMING, d.hasAtLeastOneEnabledHomingSignal());
+        set(RLS, d.hasEnabledRls());
+        set(TEST_PROTOCOL, d.isTestProtocolMessage());
+        if (d.hasEncodedGnssPosition()) {
+            set(LAT, d.latitude());
+            set(LON, d.longitude());
+        }
+        Optional<? extends VesselId> vesselId = d.vesselId();
+        if (vesselId.isPresent()) {
+            setCells(vesselId.get());
+        }
+        set(BEACON_TYPE, d.beaconType().name());
+        setCells(d.rotatingField());
+        set(BEACON_23_HEX_ID, d.beacon23HexId());
+        set(BEACON_15_HEX_ID, d.beacon15HexId());
+        writeRow();
+        rowsWritten++;
+        return this;
+    }
+
+    public DetectionCsvWriter writeDetections(Iterable<? extends Detection> detections) {
+        for (Detection d : detections) {
+            write(d);
+        }
+        return this;
+    }
+
+    public DetectionCsvWriter writeDetections(Stream<? extends Detection> detections) {
+        detections.forEachOrdered(this::write);
+        return this;
+    }
+
+    private void setCells(VesselId v) {
+        set(VESSEL_ID_TYPE, v.vesselIdType().name());
+        if (v instanceof Mmsi) {
+            Mmsi m = (Mmsi) v;
+            setInteger(MMSI, m.mmsi());
+            setInteger(EPIRB_MMSI, m.epirbMmsi());
+        } else if (v instanceof RadioCallSign) {
+            setString(VESSEL_ID_VALUE, ((RadioCallSign) v).value());
+        } else if (v instanceof AircraftRegistrationMarking) {
+            setString(VESSEL_ID_VALUE, ((AircraftRegistrationMarking) v).value());
+        } else if (v instanceof Aviation24BitAddress) {
+            Aviation24BitAddress a = (Aviation24BitAddress) v;
+            set(ADDRESS_HEX, a.addressHex());
+            setString(AIRCRAFT_OPERATOR_DESIGNATOR, a.aircraftOperatorDesignator());
+        } else if (v instanceof AircraftOperatorAndSerialNumber) {
+            AircraftOperatorAndSerialNumber a = (AircraftOperatorAndSerialNumber) v;
+            set(AIRCRAFT_OPERATOR_DESIGNATOR, a.aircraftOperatorDesignator());
+            set(SERIAL_NUMBER, a.serialNumber());
+        } else {
+            throw new IllegalArgumentException("unsupported vessel id type: " + v.getClass().getName());
+        }
+    }
+
+    private void setCells(RotatingField r) {
+        set(ROTATING_FIELD_TYPE, r.rotatingFieldType().name());
+        if (r instanceof ObjectiveRequirements) {
+            ObjectiveRequirements o = (ObjectiveRequirements) r;
+            set(ELAPSED_TIME, o.elapsedTimeSinceActivationHours());
+            set(TIME_SINCE_LAST_ENCODED_LOCATION, o.timeSinceLastEncodedLocationMinutes());
+            set(ALTITUDE, o.altitudeEncodedLocationMetres());
+            HDOP.set(this, o.dilutionPrecisionHdop());
+            VDOP.set(this, o.dilutionPrecisionDop());
+            set(ACTIVATION_METHOD, o.activationMethod().name());
+            BATTERY.set(this, o.remainingBatteryCapacityPercent());
+            set(GNSS_STATUS, o.gnssStatus().name());
+        } else if (r instanceof EltDtInFlightEmergency) {
+            EltDtInFlightEmergency e = (EltDtInFlightEmergency) r;
+            set(TIME_OF_LAST_ENCODED_LOCATION, e.timeOfLastEncodedLocation());
+            set(ALTITUDE, e.altitudeEncodedLocationMetres());
+            set(TRIGGERING_EVENT, e.triggeringEvent().name());
+            set(GNSS_STATUS, e.gnssStatus().name());
+            BATTERY.set(this, e.remainingBatteryCapacityPercent());
+        } else if (r instanceof Rls) {
+            Rls rls = (Rls) r;
+            set(CAN_PROCESS_ACK_RLM_TYPE_1, rls.canProcessAutomaticallyGeneratedAckRlmType1());
+            set(CAN_PROCESS_MANUAL_RLM, rls.canProcessManuallyGeneratedRlm());
+            set(RLS_PROVIDER, rls.rlsProvider().name());
+            if (rls.beaconFeedback().isPresent()) {
+                BeaconFeedback b = rls.beaconFeedback().get();
+                set(RLM_TYPE_1_FEEDBACK, b.rlmType1FeedbackReceived());
+                set(RLM_TYPE_2_FEEDBACK, b.rlmType2FeedbackReceived());
+                set(RLS_TYPE, b.rlsType().name());
+                setString(SHORT_RLM_PARAMETERS, b.shortRlmParametersBitString());
+            }
+        } else if (r instanceof Cancellation) {
+            set(DEACTIVATION_METHOD, ((Cancellation) r).deactivationMethod().name());
+        } else if (r instanceof NationalUse) {
+            set(BIT_STRING, ((NationalUse) r).bitString());
+        } else if (r instanceof UnknownRotatingField) {
+            set(BIT_STRING, ((UnknownRotatingField) r).bitString());
+        } else {
+            throw new IllegalArgumentException("unsupported rotating field type: " + r.getClass().getName());
+        }
+    }
+
+    private void startRow() {
+        row.setLength(0);
+        Arrays.fill(cellStart, -1);
+    }
+
+    private void set(int column, int value) {
+        cellStart[column] = row.length();
+        row.append(value);
+        cellEnd[column] = row.length();
+    }
+
+    private void set(int column, boolean value) {
+        cellStart[column] = row.length();
+        row.append(value);
+        cellEnd[column] = row.length();
+    }
+
+    private void set(int column, double value) {
+        cellStart[column] = row.length();
+        row.append(value);
+        cellEnd[column] = row.length();
+    }
+
+    private void set(int column, CharSequence value) {
+        cellStart[column] = row.length();
+        row.append(value);
+        cellEnd[column] = row.length();
+    }
+
+    private void set(int column, OffsetTime time) {
+        cellStart[column] = row.length();
+        // same as the "time" format of the schema, seconds always present
+        DateTimeFormatter.ISO_OFFSET_TIME.formatTo(time, row);
+        cellEnd[column] = row.length();
+    }
+
+    private void setInteger(int column, Optional<Integer> value) {
+        if (value.isPresent()) {
+            set(column, (int) value.get());
+        }
+    }
+
+    private void setString(int column, Optional<String> value) {
+        if (value.isPresent()) {
+            set(column, value.get());
+        }
+    }
+
+    private void writeRow() {
+        for (int i = 0; i < cellStart.length; i++) {
+            if (i > 0) {
+                append(',');
+            }
+            int start = cellStart[i];
+            if (start >= 0) {
+                if (needsQuotes(start, cellEnd[i])) {
+                    appendQuoted(start, cellEnd[i]);
+                } else {
+                    append(start, cellEnd[i]);
+                }
+            }
+        }
+        append('\n');
+    }
+
+    private boolean needsQuotes(int start, int end) {
+        for (int i = start; i < end; i++) {
+            char ch = row.charAt(i);
+            if (ch == ',' || ch == '"' || ch == '\n' || ch == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void appendQuoted(int start, int end) {
+        append('"');
+        for (int i = start; i < end; i++) {
+            char ch = row.charAt(i);
+            if (ch == '"') {
+                append('"');
+            }
+            append(ch);
+        }
+        append('"');
+    }
+
+    private void append(char ch) {
+        if (count == buffer.length) {
+            drain();
+        }
+        buffer[count++] = ch;
+    }
+
+    // appends row[start, end)
+    private void append(int start, int end) {
+        int off = start;
+        int len = end - start;
+        while (len > 0) {
+            if (count == buffer.length) {
+                drain();
+            }
+            int n = Math.min(len, buffer.length - count);
+            row.getChars(off, off + n, buffer, count);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Writes all buffered chars to the writer and flushes it.
+     */
+    public void flush() {
+        checkNotClosed();
+        drain();
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes all buffered chars to the writer and flushes it. The writer is not
+     * closed. Subsequent calls have no effect.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            flush();
+            closed = true;
+        }
+    }
+
+    /**
+     * Returns the number of detections written (the header is not counted).
+     *
+     * @return rows written
+     */
+    public long rowsWritten() {
+        return rowsWritten;
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("writer is closed");
+        }
+    }
+
+    private void drain() {
+        try {
+            writer.write(buffer, 0, count);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        count = 0;
+    }
+
+    private static List<String> columnNames() {
+        List<String> list = new ArrayList<>();
+        for (List<String> path : DetectionSchema.leafPaths()) {
+            list.add(String.join(".", path));
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    private static Map<String, Integer> indexes() {
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            map.put(COLUMNS.get(i), i);
+        }
+        return map;
+    }
+
+    private static int index(String column) {
+        Integer index = INDEXES.get(column);
+        Preconditions.checkArgument(index != null, "column not in detection-schema.json: " + column);
+        return index;
+    }
+
+    /**
+     * The four columns of a {@link Range}.
+     */
+    private static final class RangeColumns {
+        private final int minValue;
+        private final int minExclusive;
+        private final int maxValue;
+        private final int maxExclusive;
+
+        RangeColumns(String prefix) {
+            this.minValue = index(prefix + ".min.value");
+            this.minExclusive = index(prefix + ".min.exclusive");
+            this.maxValue = index(prefix + ".max.value");
+            this.maxExclusive = index(prefix + ".max.exclusive");
+        }
+
+        void set(DetectionCsvWriter w, Optional<Range> range) {
+            if (range.isPresent()) {
+                set(w, range.get().min(), minValue, minExclusive);
+                set(w, range.get().max(), maxValue, maxExclusive);
+            }
+        }
+
+        private static void set(DetectionCsvWriter w, Optional<RangeEnd> end, int value, int exclusive) {
+            if (end.isPresent()) {
+                w.set(value, end.get().value());
+                w.set(exclusive, end.get().isExclusive());
+            }
+        }
+    }
+
+}
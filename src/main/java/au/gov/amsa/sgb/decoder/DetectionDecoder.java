@@ -0,0 +1,83 @@
+package au.gov.amsa.sgb.decoder;
+
+import java.nio.ByteBuffer;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * Decodes detection messages into a caller supplied {@link MutableDetection}
+ * without allocating. A streaming consumer can reuse one
+ * {@link MutableDetection} per thread for every message so that steady state
+ * decoding produces no garbage:
+ *
+ * <pre>
+ * DetectionDecoder decoder = new DetectionDecoder();
+ * MutableDetection d = new MutableDetection();
+ * for (byte[] message : messages) {
+ *     decoder.decode(message, 0, d);
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p>
+ * The decoder holds no mutable state (the scratch bits and characters belong to
+ * the {@link MutableDetection}) so it can be shared between threads.
+ */
+public final class DetectionDecoder {
+
+    /**
+     * Decodes the 202 bit detection message right aligned (left padded with 6
+     * zero bits) in the 26 bytes starting at {@code offset}. The pad bits are
+     * ignored.
+     *
+     * @param bytes  bytes containing the detection message
+     * @param offset index of the first of the 26 bytes
+     * @param into   destination, overwritten
+     * @return {@code into}
+     */
+    public MutableDetection decode(byte[] bytes, int offset, MutableDetection into) {
+        Preconditions.checkArgument(offset >= 0 && offset <= bytes.length - DetectionLayout.NUM_BYTES,
+                "not enough bytes for a 202 bit detection");
+        into.decoded = false;
+        into.bits.load(bytes, offset * 8L + DetectionLayout.NUM_PAD_BITS);
+        return decodeFields(into);
+    }
+
+    /**
+     * Decodes the 202 bit detection message starting at bit {@code bitOffset} of
+     * {@code bytes} (bit 0 is the most significant bit of the byte at absolute
+     * index 0). The position and limit of {@code bytes} are not changed.
+     *
+     * @param bytes     bytes containing the detection message
+     * @param bitOffset index of the first bit of the detection message
+     * @param into      destination, overwritten
+     * @return {@code into}
+     */
+    public MutableDetection decode(ByteBuffer bytes, int bitOffset, MutableDetection into) {
+        into.decoded = false;
+        into.bits.load(bytes, bitOffset);
+        return decodeFields(into);
+    }
+
+    /**
+     * Decodes the hex Ground Segment Representation (202 bits hex-encoded to 51
+     * chars using left padded zero bits) of a detection message.
+     *
+     * @param hex  51 upper or lower case hex characters
+     * @param into destination, overwritten
+     * @return {@code into}
+     */
+    public MutableDetection decodeHexGroundSegmentRepresentation(CharSequence hex, MutableDetection into) {
+        into.decoded = false;
+        into.bits.loadHex(hex, DetectionLayout.NUM_HEX_PAD_BITS);
+        return decodeFields(into);
+    }
+
+    private static MutableDetection decodeFields(MutableDetection d) {
+        d.readFixedFields();
+        Detection.writeBeacon23HexId(d.bits, d.beacon23HexIdChars);
+        d.decoded = true;
+        return d;
+    }
+
+}
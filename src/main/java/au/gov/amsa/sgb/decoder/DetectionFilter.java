@@ -0,0 +1,572 @@
+package au.gov.amsa.sgb.decoder;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+import au.gov.amsa.sgb.decoder.internal.Bits;
+import au.gov.amsa.sgb.decoder.internal.Hex;
+import au.gov.amsa.sgb.decoder.rotatingfield.RotatingFieldType;
+import au.gov.amsa.sgb.decoder.vesselid.VesselIdType;
+
+/**
+ * Predicate on the raw bits of a detection message so that unwanted messages
+ * can be dropped before decoding. Filters on country code, TAC, beacon type,
+ * test protocol flag, rotating field identifier and vessel id type are built
+ * with the static factory methods (or parsed from text, see
+ * {@link #parse(String)}) and combined with {@link #and(DetectionFilter)},
+ * {@link #or(DetectionFilter)} and {@link #negate()}.
+ *
+ * <p>
+ * Each filter is compiled on construction to a shift, mask and compare (or a
+ * bitmap lookup for a set of values) on one of the first three 64 bit words of
+ * the packed message, which hold every filterable field. Testing bytes or hex
+ * reads those words straight from the input without creating a
+ * {@link Detection} or any other object.
+ *
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+public final class DetectionFilter {
+
+    private static final int BITS_PER_WORD = 64;
+
+    private static final int BITS_PER_HEX_CHAR = 4;
+
+    private static final int HEX_CHARS_PER_WORD = BITS_PER_WORD / BITS_PER_HEX_CHAR;
+
+    // fields with at most this many bits are tested with a bitmap of their values
+    private static final int MAX_BITMAP_FIELD_LENGTH = 10;
+
+    private static final DetectionFilter ALL = new DetectionFilter((w0, w1, w2) -> true, "all");
+
+    private final Node node;
+    private final String text;
+
+    private DetectionFilter(Node node, String text) {
+        this.node = node;
+        this.text = text;
+    }
+
+    /**
+     * Returns the filter that accepts every message.
+     *
+     * @return filter accepting everything
+     */
+    public static DetectionFilter all() {
+        return ALL;
+    }
+
+    public static DetectionFilter countryCode(int... countryCodes) {
+        return in(Field.COUNTRY_CODE, values(countryCodes));
+    }
+
+    /**
+     * Returns the filter that accepts a TAC between {@code min} and {@code max}
+     * inclusive.
+     *
+     * @param min minimum TAC
+     * @param max maximum TAC
+     * @return filter
+     */
+    public static DetectionFilter tacRange(int min, int max) {
+        return in(Field.TAC, new int[][] { { min, max } });
+    }
+
+    public static DetectionFilter tac(int... tacs) {
+        return in(Field.TAC, values(tacs));
+    }
+
+    public static DetectionFilter beaconType(BeaconType... beaconTypes) {
+        List<BeaconType> list = Arrays.asList(beaconTypes);
+        return in(Field.BEACON_TYPE, codes(Field.BEACON_TYPE, code -> list.contains(Detection.toBeaconType(code))));
+    }
+
+    public static DetectionFilter testProtocolMessage(boolean value) {
+        return in(Field.TEST_PROTOCOL, values(value ? 1 : 0));
+    }
+
+    public static DetectionFilter rotatingFieldId(int... ids) {
+        return in(Field.ROTATING_FIELD_ID, values(ids));
+    }
+
+    public static DetectionFilter rotatingFieldType(RotatingFieldType... types) {
+        List<RotatingFieldType> list = Arrays.asList(types);
+        return in(Field.ROTATING_FIELD_ID,
+                codes(Field.ROTATING_FIELD_ID, code -> list.contains(Detection.toRotatingFieldType(code))));
+    }
+
+    /**
+     * Returns the filter that accepts a vessel id of one of the given types (a
+     * message without a vessel id is not accepted).
+     *
+     * @param types vessel id types
+     * @return filter
+     */
+    public static DetectionFilter vesselIdType(VesselIdType... types) {
+        List<VesselIdType> list = Arrays.asList(types);
+        return in(Field.VESSEL_ID_TYPE, codes(Field.VESSEL_ID_TYPE,
+                code -> Detection.toVesselIdType(code).map(list::contains).orElse(false)));
+    }
+
+    public DetectionFilter and(DetectionFilter other) {
+        Node a = node;
+        Node b = other.node;
+        return new DetectionFilter((w0, w1, w2) -> a.test(w0, w1, w2) && b.test(w0, w1, w2),
+                "(" + text + " and " + other.text + ")");
+    }
+
+    public DetectionFilter or(DetectionFilter other) {
+        Node a = node;
+        Node b = other.node;
+        return new DetectionFilter((w0, w1, w2) -> a.test(w0, w1, w2) || b.test(w0, w1, w2),
+                "(" + text + " or " + other.text + ")");
+    }
+
+    public DetectionFilter negate() {
+        Node a = node;
+        return new DetectionFilter((w0, w1, w2) -> !a.test(w0, w1, w2), "not " + text);
+    }
+
+    /**
+     * Tests the 202 bit detection message right aligned (left padded with 6 zero
+     * bits) in the 26 bytes starting at {@code offset} (the layout of
+     * {@link Detection#from(byte[], int)}).
+     *
+     * @param bytes  bytes containing the detection message
+     * @param offset index of the first of the 26 bytes
+     * @return true if accepted
+     */
+    public boolean test(byte[] bytes, int offset) {
+        Preconditions.checkArgument(offset >= 0 && offset <= bytes.length - DetectionLayout.NUM_BYTES,
+                "not enough bytes for a 202 bit detection");
+        return node.test(word(bytes, offset, 0), word(bytes, offset, 1), word(bytes, offset, 2));
+    }
+
+    /**
+     * Tests the hex Ground Segment Representation of a detection (51 hex chars).
+     *
+     * @param hex detection hex
+     * @return true if accepted
+     * @throws IllegalArgumentException if {@code hex} has the wrong length or a
+     *                                  non-hex character in a tested word
+     */
+    public boolean test(CharSequence hex) {
+        Preconditions.checkArgument(
+                hex.length() * BITS_PER_HEX_CHAR == DetectionLayout.NUM_BITS + DetectionLayout.NUM_HEX_PAD_BITS,
+                "hex length should be 51");
+        return node.test(word(hex, 0), word(hex, 1), word(hex, 2));
+    }
+
+    public boolean test(Detection d) {
+        Bits bits = d.bits();
+        return node.test(bits.word(0), bits.word(1), bits.word(2));
+    }
+
+    /**
+     * Returns word {@code k} of the detection bits: the 64 bits after the pad
+     * bits and the first {@code 64 * k} detection bits. {@code k} is at most 2.
+     */
+    static long word(byte[] bytes, int offset, int k) {
+        int start = offset + k * Long.BYTES;
+        long w = 0;
+        for (int i = start; i < start + Long.BYTES; i++) {
+            w = (w << Byte.SIZE) | (bytes[i] & 0xFF);
+        }
+        // shift out the pad bits and take the same number from the next byte
+        int pad = DetectionLayout.NUM_PAD_BITS;
+        return (w << pad) | ((bytes[start + Long.BYTES] & 0xFF) >>> (Byte.SIZE - pad));
+    }
+
+    static long word(CharSequence hex, int k) {
+        int start = k * HEX_CHARS_PER_WORD;
+        long w = 0;
+        for (int i = start; i < start + HEX_CHARS_PER_WORD; i++) {
+            w = (w << BITS_PER_HEX_CHAR) | Hex.digit(hex.charAt(i));
+        }
+        int pad = DetectionLayout.NUM_HEX_PAD_BITS;
+        return (w << pad) | (Hex.digit(hex.charAt(start + HEX_CHARS_PER_WORD)) >>> (BITS_PER_HEX_CHAR - pad));
+    }
+
+    /**
+     * Parses a filter expression. Conditions on the fields {@code countryCode},
+     * {@code tac}, {@code rotatingFieldId}, {@code beaconType},
+     * {@code rotatingFieldType}, {@code vesselIdType} and
+     * {@code testProtocolMessage} are combined with {@code and}, {@code or},
+     * {@code not} and parentheses ({@code and} binds tighter than {@code or},
+     * keywords are case insensitive). A condition is {@code field = value},
+     * {@code field != value} or {@code field in (value, ...)} where an integer
+     * value may be a range {@code min..max} (inclusive), an enum value is its
+     * name and a boolean is {@code true} or {@code false}. For example:
+     *
+     * <pre>
+     * testProtocolMessage = false and beaconType != SYSTEM
+     *     and (countryCode in (503, 512) or tac in (1000..1999, 2500))
+     * </pre>
+     *
+     * @param expression filter expression
+     * @return filter
+     * @throws IllegalArgumentException if the expression is not valid
+     */
+    public static DetectionFilter parse(String expression) {
+        return new Parser(expression).parse();
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    private static DetectionFilter in(Field field, int[][] ranges) {
+        StringBuilder s = new StringBuilder();
+        for (int[] range : ranges) {
+            Preconditions.checkArgument(range[0] >= 0 && range[0] <= range[1] && range[1] <= field.maxValue(),
+                    field.name + " value out of range: " + range[0] + (range[0] == range[1] ? "" : ".." + range[1]));
+            if (s.length() > 0) {
+                s.append(", ");
+            }
+            s.append(range[0]);
+            if (range[0] != range[1]) {
+                s.append("..").append(range[1]);
+            }
+        }
+        String text = field.name + " in (" + s + ")";
+        int w = field.wordIndex;
+        int shift = field.shift;
+        long mask = field.mask;
+        if (field.length <= MAX_BITMAP_FIELD_LENGTH) {
+            long[] bitmap = new long[(int) ((field.maxValue() + BITS_PER_WORD) / BITS_PER_WORD)];
+            for (int[] range : ranges) {
+                for (int v = range[0]; v <= range[1]; v++) {
+                    bitmap[v >>> 6] |= 1L << v;
+                }
+            }
+            if (bitmap.length == 1) {
+                long b = bitmap[0];
+                return new DetectionFilter((w0, w1, w2) -> ((b >>> ((word(w, w0, w1, w2) >>> shift) & mask)) & 1) != 0,
+                        text);
+            } else {
+                return new DetectionFilter((w0, w1, w2) -> {
+                    int v = (int) ((word(w, w0, w1, w2) >>> shift) & mask);
+                    return ((bitmap[v >>> 6] >>> v) & 1) != 0;
+                }, text);
+            }
+        } else if (ranges.length == 1) {
+            long min = ranges[0][0];
+            long max = ranges[0][1];
+            return new DetectionFilter((w0, w1, w2) -> {
+                long v = (word(w, w0, w1, w2) >>> shift) & mask;
+                return v >= min && v <= max;
+            }, text);
+        } else {
+            long[] mins = new long[ranges.length];
+            long[] maxs = new long[ranges.length];
+            for (int i = 0; i < ranges.length; i++) {
+                mins[i] = ranges[i][0];
+                maxs[i] = ranges[i][1];
+            }
+            return new DetectionFilter((w0, w1, w2) -> {
+                long v = (word(w, w0, w1, w2) >>> shift) & mask;
+                for (int i = 0; i < mins.length; i++) {
+                    if (v >= mins[i] && v <= maxs[i]) {
+                        return true;
+                    }
+                }
+                return false;
+            }, text);
+        }
+    }
+
+    private static long word(int index, long w0, long w1, long w2) {
+        if (index == 0) {
+            return w0;
+        } else if (index == 1) {
+            return w1;
+        } else {
+            return w2;
+        }
+    }
+
+    private static int[][] values(int... values) {
+        int[][] ranges = new int[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            ranges[i] = new int[] { values[i], values[i] };
+        }
+        return ranges;
+    }
+
+    private interface IntPredicate {
+        boolean test(int code);
+    }
+
+    private static int[][] codes(Field field, IntPredicate predicate) {
+        List<int[]> list = new ArrayList<>();
+        for (int code = 0; code <= field.maxValue(); code++) {
+            if (predicate.test(code)) {
+                list.add(new int[] { code, code });
+            }
+        }
+        return list.toArray(new int[0][]);
+    }
+
+    private interface Node {
+        boolean test(long w0, long w1, long w2);
+    }
+
+    /**
+     * A fixed width field of the detection bits located in one of the three
+     * words read by {@link DetectionFilter#word(byte[], int, int)}.
+     */
+    enum Field {
+        TAC("tac", DetectionLayout.TAC_OFFSET, DetectionLayout.TAC_LENGTH), //
+        COUNTRY_CODE("countryCode", DetectionLayout.COUNTRY_CODE_OFFSET, DetectionLayout.COUNTRY_CODE_LENGTH), //
+        TEST_PROTOCOL("testProtocolMessage", DetectionLayout.TEST_PROTOCOL_OFFSET, 1), //
+        VESSEL_ID_TYPE("vesselIdType", DetectionLayout.VESSEL_ID_OFFSET, DetectionLayout.VESSEL_ID_TYPE_LENGTH), //
+        BEACON_TYPE("beaconType", DetectionLayout.BEACON_TYPE_OFFSET, DetectionLayout.BEACON_TYPE_LENGTH), //
+        ROTATING_FIELD_ID("rotatingFieldId", DetectionLayout.ROTATING_FIELD_OFFSET,
+                DetectionLayout.ROTATING_FIELD_ID_LENGTH);
+
+        final String name;
+        final int length;
+        final int wordIndex;
+        final int shift;
+        final long mask;
+
+        Field(String name, int offset, int length) {
+            this.name = name;
+            this.length = length;
+            this.wordIndex = offset / BITS_PER_WORD;
+            // no field straddles two words
+            this.shift = BITS_PER_WORD - offset % BITS_PER_WORD - length;
+            this.mask = (1L << length) - 1;
+        }
+
+        long maxValue() {
+            return mask;
+        }
+
+        /**
+         * Returns the value of this field from word {@link #wordIndex}.
+         */
+        int get(long word) {
+            return (int) ((word >>> shift) & mask);
+        }
+    }
+
+    /**
+     * Recursive descent parser of the expression syntax described at
+     * {@link DetectionFilter#parse(String)}.
+     */
+    private static final class Parser {
+
+        private final String s;
+        private int pos;
+
+        Parser(String s) {
+            this.s = s;
+        }
+
+        DetectionFilter parse() {
+            DetectionFilter f = or();
+            skipWhitespace();
+            if (pos < s.length()) {
+                throw error("unexpected '" + s.charAt(pos) + "'");
+            }
+            return f;
+        }
+
+        private DetectionFilter or() {
+            DetectionFilter f = and();
+            while (keyword("or")) {
+                f = f.or(and());
+            }
+            return f;
+        }
+
+        private DetectionFilter and() {
+            DetectionFilter f = unary();
+            while (keyword("and")) {
+                f = f.and(unary());
+            }
+            return f;
+        }
+
+        private DetectionFilter unary() {
+            if (keyword("not")) {
+                return unary().negate();
+            } else if (symbol("(")) {
+                DetectionFilter f = or();
+                expect(")");
+                return f;
+            } else {
+                return condition();
+            }
+        }
+
+        private DetectionFilter condition() {
+            int start = pos;
+            String field = identifier("field name");
+            if (keyword("in")) {
+                expect("(");
+                List<String> values = new ArrayList<>();
+                do {
+                    values.add(value());
+                } while (symbol(","));
+                expect(")");
+                return filter(start, field, values);
+            } else if (symbol("!=")) {
+                return filter(start, field, Arrays.asList(value())).negate();
+            } else if (symbol("=")) {
+                return filter(start, field, Arrays.asList(value()));
+            } else {
+                throw error("expected '=', '!=' or 'in'");
+            }
+        }
+
+        private DetectionFilter filter(int start, String field, List<String> values) {
+            try {
+                switch (field) {
+                case "countryCode":
+                    return in(Field.COUNTRY_CODE, ranges(values));
+                case "tac":
+                    return in(Field.TAC, ranges(values));
+                case "rotatingFieldId":
+                    return in(Field.ROTATING_FIELD_ID, ranges(values));
+                case "beaconType":
+                    return beaconType(enums(BeaconType.class, values));
+                case "rotatingFieldType":
+                    return rotatingFieldType(enums(RotatingFieldType.class, values));
+                case "vesselIdType":
+                    return vesselIdType(enums(VesselIdType.class, values));
+                case "testProtocolMessage":
+                    Preconditions.checkArgument(values.size() == 1, "one value expected");
+                    return testProtocolMessage(bool(values.get(0)));
+                default:
+                    throw new IllegalArgumentException("unknown field '" + field + "'");
+                }
+            } catch (IllegalArgumentException e) {
+                pos = start;
+                throw error(e.getMessage());
+            }
+        }
+
+        private static int[][] ranges(List<String> values) {
+            int[][] ranges = new int[values.size()][];
+            for (int i = 0; i < ranges.length; i++) {
+                String v = values.get(i);
+                int j = v.indexOf("..");
+                if (j == -1) {
+                    int n = integer(v);
+                    ranges[i] = new int[] { n, n };
+                } else {
+                    ranges[i] = new int[] { integer(v.substring(0, j)), integer(v.substring(j + 2)) };
+                }
+            }
+            return ranges;
+        }
+
+        private static int integer(String v) {
+            try {
+                return Integer.parseInt(v);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("not an integer: " + v);
+            }
+        }
+
+        private static boolean bool(String v) {
+            if (v.equalsIgnoreCase("true")) {
+                return true;
+            } else if (v.equalsIgnoreCase("false")) {
+                return false;
+            } else {
+                throw new IllegalArgumentException("not a boolean: " + v);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T extends Enum<T>> T[] enums(Class<T> cls, List<String> values) {
+            T[] result = (T[]) Array.newInstance(cls, values.size());
+            for (int i = 0; i < result.length; i++) {
+                try {
+                    result[i] = Enum.valueOf(cls, values.get(i));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("not a " + cls.getSimpleName() + ": " + values.get(i));
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Reads an identifier, an integer or an integer range.
+         */
+        private String value() {
+            skipWhitespace();
+            int start = pos;
+            while (pos < s.length() && (Character.isLetterOrDigit(s.charAt(pos)) || s.charAt(pos) == '_'
+                    || s.startsWith("..", pos) && pos > start)) {
+                pos += s.startsWith("..", pos) ? 2 : 1;
+            }
+            if (pos == start) {
+                throw error("expected a value");
+            }
+            return s.substring(start, pos);
+        }
+
+        private String identifier(String description) {
+            skipWhitespace();
+            int start = pos;
+            while (pos < s.length() && Character.isJavaIdentifierPart(s.charAt(pos))) {
+                pos++;
+            }
+            if (pos == start || !Character.isJavaIdentifierStart(s.charAt(start))) {
+                pos = start;
+                throw error("expected " + description);
+            }
+            return s.substring(start, pos);
+        }
+
+        private boolean keyword(String keyword) {
+            skipWhitespace();
+            int end = pos + keyword.length();
+            if (s.regionMatches(true, pos, keyword, 0, keyword.length())
+                    && (end == s.length() || !Character.isJavaIdentifierPart(s.charAt(end)))) {
+                pos = end;
+                return true;
+            } else {
+                return false;
+            }
+        }
+
+        private boolean symbol(String symbol) {
+            skipWhitespace();
+            if (s.startsWith(symbol, pos)) {
+                pos += symbol.length();
+                return true;
+            } else {
+                return false;
+            }
+        }
+
+        private void expect(String symbol) {
+            if (!symbol(symbol)) {
+                throw error("expected '" + symbol + "'");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(
+                    String.format(Locale.ENGLISH, "%s at position %d of filter: %s", message, pos, s));
+        }
+    }
+
+}
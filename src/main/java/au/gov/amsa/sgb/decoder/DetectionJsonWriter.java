@@ -0,0 +1,207 @@
+package au.gov.amsa.sgb.decoder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.davidmoten.guavamini.Preconditions;
+
+import au.gov.amsa.sgb.decoder.internal.json.DetectionJson;
+
+/**
+ * Writes many {@link Detection}s and/or {@link Beacon23HexId}s as JSON to a
+ * channel, either as newline delimited JSON (one compact JSON object per line)
+ * or as a single JSON array. Records are encoded straight into a reusable
+ * UTF-8 byte buffer (no String per record and no intermediate buffer) which is
+ * written to the channel when the next value does not fit and on
+ * {@link #flush()} and {@link #close()}.
+ *
+ * <p>
+ * Each record is the same as {@link Detection#toJson()} or
+ * {@link Beacon23HexId#toJson()}. The channel should be in blocking mode. It is
+ * not closed by this writer. Not thread-safe.
+ */
+public final class DetectionJsonWriter implements Closeable {
+
+    /**
+     * Size of the buffer used when not specified.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Smallest allowed buffer size.
+     */
+    public static final int MIN_BUFFER_SIZE = 512;
+
+    public enum Format {
+        /**
+         * Newline delimited JSON, each record followed by {@code '\n'}.
+         */
+        NDJSON,
+
+        /**
+         * A single JSON array of records.
+         */
+        ARRAY;
+    }
+
+    private final WritableByteChannel channel;
+    private final Format format;
+    private final JsonGenerator generator;
+    private long bytesWritten;
+    private long recordsWritten;
+    private boolean closed;
+
+    public DetectionJsonWriter(WritableByteChannel channel, Format format) {
+        this(channel, format, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param channel    destination (blocking mode)
+     * @param format     output format
+     * @param bufferSize maximum number of bytes buffered before a write to the
+     *                   channel, at least {@link #MIN_BUFFER_SIZE}
+     */
+    public DetectionJsonWriter(WritableByteChannel channel, Format format, int bufferSize) {
+        Preconditions.checkNotNull(channel, "channel cannot be null");
+        Preconditions.checkNotNull(format, "format cannot be null");
+        Preconditions.checkArgument(bufferSize >= MIN_BUFFER_SIZE, "bufferSize must be at least " + MIN_BUFFER_SIZE);
+        this.channel = channel;
+        this.format = format;
+        this.generator = DetectionJson.createGenerator(new ChannelOutputStream(), new byte[bufferSize]);
+        // records are separated explicitly
+        generator.setRootValueSeparator(null);
+        if (format == Format.ARRAY) {
+            run(generator::writeStartArray);
+        }
+    }
+
+    public DetectionJsonWriter write(Detection detection) {
+        checkNotClosed();
+        run(() -> DetectionJson.write(detection, generator));
+        endRecord();
+        return this;
+    }
+
+    public DetectionJsonWriter write(Beacon23HexId id) {
+        checkNotClosed();
+        run(() -> DetectionJson.write(id, generator));
+        endRecord();
+        return this;
+    }
+
+    public DetectionJsonWriter writeDetections(Iterable<? extends Detection> detections) {
+        for (Detection d : detections) {
+            write(d);
+        }
+        return this;
+    }
+
+    public DetectionJsonWriter writeDetections(Stream<? extends Detection> detections) {
+        detections.forEachOrdered(this::write);
+        return this;
+    }
+
+    public DetectionJsonWriter writeBeacon23HexIds(Iterable<? extends Beacon23HexId> ids) {
+        for (Beacon23HexId id : ids) {
+            write(id);
+        }
+        return this;
+    }
+
+    public DetectionJsonWriter writeBeacon23HexIds(Stream<? extends Beacon23HexId> ids) {
+        ids.forEachOrdered(this::write);
+        return this;
+    }
+
+    private void endRecord() {
+        if (format == Format.NDJSON) {
+            run(() -> generator.writeRaw('\n'));
+        }
+        recordsWritten++;
+    }
+
+    /**
+     * Writes all buffered bytes to the channel.
+     */
+    public void flush() {
+        checkNotClosed();
+        run(generator::flush);
+    }
+
+    /**
+     * Completes the output (closing the array for {@link Format#ARRAY}) and
+     * writes all buffered bytes to the channel. The channel is not closed.
+     * Subsequent calls have no effect.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            if (format == Format.ARRAY) {
+                run(generator::writeEndArray);
+            }
+            run(generator::close);
+            closed = true;
+        }
+    }
+
+    /**
+     * Returns the number of bytes written to the channel so far (buffered bytes
+     * are not counted until flushed).
+     *
+     * @return bytes written to the channel
+     */
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    public long recordsWritten() {
+        return recordsWritten;
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("writer is closed");
+        }
+    }
+
+    private interface IORunnable {
+        void run() throws IOException;
+    }
+
+    private static void run(IORunnable r) {
+        try {
+            r.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the generator's buffer (or a value too large to buffer) straight to
+     * the channel.
+     */
+    private final class ChannelOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ByteBuffer bb = ByteBuffer.wrap(b, off, len);
+            while (bb.hasRemaining()) {
+                bytesWritten += channel.write(bb);
+            }
+        }
+    }
+
+}
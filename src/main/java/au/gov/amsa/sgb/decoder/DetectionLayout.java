@@ -0,0 +1,60 @@
+package au.gov.amsa.sgb.decoder;
+
+/**
+ * Bit offsets and lengths of the fields of the 202 bit detection message (C/T.018
+ * Rev 6 section 3.2).
+ */
+final class DetectionLayout {
+
+    private DetectionLayout() {
+        // prevent instantiation
+    }
+
+    static final int NUM_BITS = 202;
+
+    /**
+     * Number of bytes of the detection message right aligned (left padded with
+     * zero bits) in a byte array.
+     */
+    static final int NUM_BYTES = (NUM_BITS + 7) / 8;
+
+    static final int NUM_PAD_BITS = NUM_BYTES * 8 - NUM_BITS;
+
+    /**
+     * Number of leading zero bits in the hex Ground Segment Representation.
+     */
+    static final int NUM_HEX_PAD_BITS = 2;
+
+    static final int TAC_OFFSET = 0;
+    static final int TAC_LENGTH = 16;
+
+    static final int SERIAL_NO_OFFSET = 16;
+    static final int SERIAL_NO_LENGTH = 14;
+
+    static final int COUNTRY_CODE_OFFSET = 30;
+    static final int COUNTRY_CODE_LENGTH = 10;
+
+    static final int HOMING_SIGNAL_OFFSET = 40;
+
+    static final int RLS_OFFSET = 41;
+
+    static final int TEST_PROTOCOL_OFFSET = 42;
+
+    static final int POSITION_OFFSET = 43;
+    static final int POSITION_LENGTH = 47;
+
+    static final int VESSEL_ID_OFFSET = 90;
+    static final int VESSEL_ID_TYPE_LENGTH = 3;
+    static final int VESSEL_ID_LENGTH = 47;
+
+    static final int BEACON_TYPE_OFFSET = 137;
+    static final int BEACON_TYPE_LENGTH = 3;
+
+    static final int SPARE_OFFSET = 140;
+    static final int SPARE_LENGTH = 14;
+
+    static final int ROTATING_FIELD_OFFSET = 154;
+    static final int ROTATING_FIELD_ID_LENGTH = 4;
+    static final int ROTATING_FIELD_LENGTH = 48;
+
+}
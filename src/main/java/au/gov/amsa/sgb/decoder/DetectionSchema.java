@@ -0,0 +1,122 @@
+package au.gov.amsa.sgb.decoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Navigation of {@code detection-schema.json} (loaded once). {@code $ref} is
+ * followed and a {@code oneOf} (the vessel id and rotating field types) is
+ * treated as the union of its alternatives.
+ */
+final class DetectionSchema {
+
+    private static final JsonNode ROOT = load();
+
+    private DetectionSchema() {
+        // prevent instantiation
+    }
+
+    private static JsonNode load() {
+        try (InputStream in = DetectionSchema.class.getResourceAsStream("/detection-schema.json")) {
+            return new ObjectMapper().readTree(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns true if and only if the property names in {@code path} lead from
+     * the Detection object to a property in the schema.
+     *
+     * @param path property names from the root
+     * @return true if the path is in the schema
+     */
+    static boolean containsPath(List<String> path) {
+        List<JsonNode> nodes = resolve(ROOT);
+        for (String name : path) {
+            List<JsonNode> next = new ArrayList<>();
+            for (JsonNode node : nodes) {
+                JsonNode property = node.path("properties").get(name);
+                if (property != null) {
+                    next.addAll(resolve(property));
+                }
+            }
+            if (next.isEmpty()) {
+                return false;
+            }
+            nodes = next;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the paths of every non-object property below the Detection object
+     * in schema order (properties of later {@code oneOf} alternatives that an
+     * earlier alternative already has share its path).
+     *
+     * @return leaf paths, each a list of property names from the root
+     */
+    static List<List<String>> leafPaths() {
+        List<List<String>> paths = new ArrayList<>();
+        addLeafPaths(resolve(ROOT), Collections.emptyList(), paths);
+        return paths;
+    }
+
+    private static void addLeafPaths(List<JsonNode> objects, List<String> prefix, List<List<String>> paths) {
+        // union of the properties of the alternatives in order of first appearance
+        Map<String, List<JsonNode>> properties = new LinkedHashMap<>();
+        for (JsonNode object : objects) {
+            Iterator<Entry<String, JsonNode>> it = object.path("properties").fields();
+            while (it.hasNext()) {
+                Entry<String, JsonNode> entry = it.next();
+                properties.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).addAll(resolve(entry.getValue()));
+            }
+        }
+        for (Entry<String, List<JsonNode>> entry : properties.entrySet()) {
+            List<String> path = new ArrayList<>(prefix);
+            path.add(entry.getKey());
+            List<JsonNode> children = new ArrayList<>();
+            for (JsonNode node : entry.getValue()) {
+                if (node.has("properties")) {
+                    children.add(node);
+                }
+            }
+            if (children.isEmpty()) {
+                paths.add(Collections.unmodifiableList(path));
+            } else {
+                addLeafPaths(children, path, paths);
+            }
+        }
+    }
+
+    /**
+     * Follows {@code $ref} and expands {@code oneOf} to the alternatives.
+     */
+    private static List<JsonNode> resolve(JsonNode node) {
+        List<JsonNode> list = new ArrayList<>();
+        JsonNode ref = node.get("$ref");
+        if (ref != null) {
+            // refs are of the form #/definitions/Name
+            list.addAll(resolve(ROOT.at(ref.asText().substring(1))));
+        } else if (node.has("oneOf")) {
+            for (JsonNode alternative : node.get("oneOf")) {
+                list.addAll(resolve(alternative));
+            }
+        } else {
+            list.add(node);
+        }
+        return list;
+    }
+
+}
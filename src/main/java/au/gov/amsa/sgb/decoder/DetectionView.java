@@ -0,0 +1,177 @@
+package au.gov.amsa.sgb.decoder;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+import au.gov.amsa.sgb.decoder.internal.Bits;
+import au.gov.amsa.sgb.decoder.rotatingfield.RotatingField;
+import au.gov.amsa.sgb.decoder.vesselid.VesselId;
+
+/**
+ * Lazy view of a 202 bit binary beacon detection message with the same
+ * accessors as {@link Detection}. Nothing is decoded on construction. Fixed
+ * width integer and boolean fields are read straight from the bits on each
+ * call and object valued fields are decoded when first accessed and then
+ * memoised. Consumers that only read a few fields (for example
+ * {@link #countryCode()}, {@link #beaconType()} and {@link #beacon15HexId()})
+ * only pay for those fields.
+ *
+ * <p>
+ * Not thread-safe (memoisation is unsynchronized). Use {@link #toDetection()}
+ * to obtain an immutable fully decoded {@link Detection}.
+ */
+public final class DetectionView {
+
+    private final Bits bits;
+
+    // memoised, null until first accessed
+    private Optional<EncodedGnssPosition> encodedGnssPosition;
+    private Optional<VesselId> vesselId;
+    private BeaconType beaconType;
+    private RotatingField rotatingField;
+    private String beacon23HexId;
+    private String beacon15HexId;
+
+    private DetectionView(Bits bits) {
+        Preconditions.checkArgument(bits.length() == DetectionLayout.NUM_BITS,
+                "length should be 202 but was " + bits.length());
+        this.bits = bits;
+    }
+
+    public static DetectionView fromBitString(String bitString) {
+        return new DetectionView(Bits.from(bitString));
+    }
+
+    public static DetectionView fromHexGroundSegmentRepresentation(String hex) {
+        return new DetectionView(Detection.bitsFromHexGroundSegmentRepresentation(hex));
+    }
+
+    /**
+     * Views the 202 bit detection message right aligned (left padded with 6 zero
+     * bits) in the 26 bytes starting at {@code offset}. The bytes are copied so
+     * later changes to {@code bytes} do not affect the view.
+     *
+     * @param bytes  bytes containing the detection message
+     * @param offset index of the first of the 26 bytes
+     * @return view
+     */
+    public static DetectionView from(byte[] bytes, int offset) {
+        return new DetectionView(Detection.bitsFrom(bytes, offset));
+    }
+
+    /**
+     * Views the 202 bit detection message starting at bit {@code bitOffset} of
+     * {@code bytes} (bit 0 is the most significant bit of the byte at absolute
+     * index 0). The bits are copied and the position and limit of {@code bytes}
+     * are not changed.
+     *
+     * @param bytes     bytes containing the detection message
+     * @param bitOffset index of the first bit of the detection message
+     * @return view
+     */
+    public static DetectionView from(ByteBuffer bytes, int bitOffset) {
+        return new DetectionView(Detection.bitsFrom(bytes, bitOffset));
+    }
+
+    private Bits at(int position) {
+        return bits.duplicate().position(position);
+    }
+
+    public int tac() {
+        return bits.getUnsignedInt(DetectionLayout.TAC_OFFSET, DetectionLayout.TAC_LENGTH);
+    }
+
+    public int serialNo() {
+        return bits.getUnsignedInt(DetectionLayout.SERIAL_NO_OFFSET, DetectionLayout.SERIAL_NO_LENGTH);
+    }
+
+    public int countryCode() {
+        return bits.getUnsignedInt(DetectionLayout.COUNTRY_CODE_OFFSET, DetectionLayout.COUNTRY_CODE_LENGTH);
+    }
+
+    public boolean hasAtLeastOneEnabledHomingSignal() {
+        return bits.getBoolean(DetectionLayout.HOMING_SIGNAL_OFFSET);
+    }
+
+    public boolean hasEnabledRls() {
+        return bits.getBoolean(DetectionLayout.RLS_OFFSET);
+    }
+
+    public boolean isTestProtocolMessage() {
+        return bits.getBoolean(DetectionLayout.TEST_PROTOCOL_OFFSET);
+    }
+
+    public Optional<EncodedGnssPosition> encodedGnssPosition() {
+        if (encodedGnssPosition == null) {
+            encodedGnssPosition = Detection.readPosition(
+                    at(DetectionLayout.POSITION_OFFSET).readBits(DetectionLayout.POSITION_LENGTH));
+        }
+        return encodedGnssPosition;
+    }
+
+    public Optional<? extends VesselId> vesselId() {
+        if (vesselId == null) {
+            vesselId = Detection.readVesselId(at(DetectionLayout.VESSEL_ID_OFFSET));
+        }
+        return vesselId;
+    }
+
+    public BeaconType beaconType() {
+        if (beaconType == null) {
+            beaconType = Detection.readBeaconType(at(DetectionLayout.BEACON_TYPE_OFFSET));
+        }
+        return beaconType;
+    }
+
+    public RotatingField rotatingField() {
+        if (rotatingField == null) {
+            rotatingField = Detection.readRotatingField(at(DetectionLayout.ROTATING_FIELD_OFFSET));
+        }
+        return rotatingField;
+    }
+
+    public String beacon23HexId() {
+        if (beacon23HexId == null) {
+            beacon23HexId = Detection.readBeacon23HexID(at(0));
+        }
+        return beacon23HexId;
+    }
+
+    public String beacon15HexId() {
+        if (beacon15HexId == null) {
+            beacon15HexId = beacon23HexId().substring(0, Detection.NUM_BEACON_15_HEX_ID_CHARS);
+        }
+        return beacon15HexId;
+    }
+
+    /**
+     * Returns the Beacon 23 Hex ID as a compact value read straight from the bits
+     * (not memoised).
+     *
+     * @return beacon id
+     */
+    public BeaconId beaconId() {
+        return Detection.readBeaconId(bits);
+    }
+
+    /**
+     * Returns the fully decoded {@link Detection} for the viewed bits.
+     *
+     * @return decoded detection
+     */
+    public Detection toDetection() {
+        return Detection.from(bits.duplicate());
+    }
+
+    public String toJson() {
+        return toDetection().toJson();
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+
+}
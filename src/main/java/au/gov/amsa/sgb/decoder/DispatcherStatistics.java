@@ -0,0 +1,97 @@
+package au.gov.amsa.sgb.decoder;
+
+/**
+ * Snapshot of the statistics of one {@link Priority} lane of a
+ * {@link PriorityDispatcher}.
+ */
+public final class DispatcherStatistics {
+
+    private final Priority priority;
+    private final int capacity;
+    private final int queueDepth;
+    private final long offeredCount;
+    private final long rejectedCount;
+    private final long dispatchedCount;
+    private final long totalLatencyNanos;
+    private final long maxLatencyNanos;
+
+    DispatcherStatistics(Priority priority, int capacity, int queueDepth, long offeredCount, long rejectedCount,
+            long dispatchedCount, long totalLatencyNanos, long maxLatencyNanos) {
+        this.priority = priority;
+        this.capacity = capacity;
+        this.queueDepth = queueDepth;
+        this.offeredCount = offeredCount;
+        this.rejectedCount = rejectedCount;
+        this.dispatchedCount = dispatchedCount;
+        this.totalLatencyNanos = totalLatencyNanos;
+        this.maxLatencyNanos = maxLatencyNanos;
+    }
+
+    public Priority priority() {
+        return priority;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of items waiting to be dispatched.
+     *
+     * @return queue depth
+     */
+    public int queueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Returns the number of items offered including rejected items.
+     *
+     * @return number of items offered
+     */
+    public long offeredCount() {
+        return offeredCount;
+    }
+
+    /**
+     * Returns the number of items rejected because the lane was full.
+     *
+     * @return number of items rejected
+     */
+    public long rejectedCount() {
+        return rejectedCount;
+    }
+
+    public long dispatchedCount() {
+        return dispatchedCount;
+    }
+
+    /**
+     * Returns the mean time in nanoseconds from offer to dispatch of the
+     * dispatched items (0 if none have been dispatched).
+     *
+     * @return mean latency in nanoseconds
+     */
+    public double meanLatencyNanos() {
+        return dispatchedCount == 0 ? 0 : (double) totalLatencyNanos / dispatchedCount;
+    }
+
+    /**
+     * Returns the maximum time in nanoseconds from offer to dispatch of the
+     * dispatched items (0 if none have been dispatched).
+     *
+     * @return maximum latency in nanoseconds
+     */
+    public long maxLatencyNanos() {
+        return maxLatencyNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "DispatcherStatistics[priority=" + priority + ", capacity=" + capacity + ", queueDepth=" + queueDepth
+                + ", offeredCount=" + offeredCount + ", rejectedCount=" + rejectedCount + ", dispatchedCount="
+                + dispatchedCount + ", meanLatencyNanos=" + meanLatencyNanos() + ", maxLatencyNanos="
+                + maxLatencyNanos + "]";
+    }
+
+}
@@ -0,0 +1,157 @@
+package au.gov.amsa.sgb.decoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * Selection of the fields of the {@link Detection} JSON to serialize (see
+ * {@link Detection#toJson(FieldSet)}). Built once from JSON pointers (RFC 6901)
+ * into the JSON of a detection, for example {@code /beacon15HexId},
+ * {@code /encodedGnssPosition} or {@code /rotatingField/rotatingFieldType}.
+ * Every pointer is checked against {@code detection-schema.json} (a pointer
+ * below the vessel id or rotating field may name a property of any of their
+ * types).
+ *
+ * <p>
+ * Selecting an object selects everything below it. An object with a selected
+ * descendant is written (if present in the detection) with only its selected
+ * fields, so it may be written as {@code {}} if the detection has a type of
+ * vessel id or rotating field without those fields. Unselected fields are not
+ * serialized at all rather than being removed afterwards.
+ *
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+public final class FieldSet {
+
+    private static final FieldSet ALL = new FieldSet(true, Collections.emptyMap(), Collections.emptyList());
+
+    private final boolean all;
+    private final Map<String, FieldSet> fields;
+    private final List<String> pointers;
+
+    private FieldSet(boolean all, Map<String, FieldSet> fields, List<String> pointers) {
+        this.all = all;
+        this.fields = fields;
+        this.pointers = pointers;
+    }
+
+    /**
+     * Returns the selection of every field (the same output as
+     * {@link Detection#toJson()}).
+     *
+     * @return all fields
+     */
+    public static FieldSet all() {
+        return ALL;
+    }
+
+    public static FieldSet of(String... jsonPointers) {
+        return of(Arrays.asList(jsonPointers));
+    }
+
+    /**
+     * Returns the selection of the given JSON pointers.
+     *
+     * @param jsonPointers pointers into the detection JSON, the empty pointer
+     *                     selects everything
+     * @return selection
+     * @throws IllegalArgumentException if a pointer is malformed or is not a path
+     *                                  in {@code detection-schema.json}
+     */
+    public static FieldSet of(Collection<String> jsonPointers) {
+        Node root = new Node();
+        for (String pointer : jsonPointers) {
+            Preconditions.checkNotNull(pointer, "pointer cannot be null");
+            List<String> tokens = tokens(pointer);
+            Preconditions.checkArgument(DetectionSchema.containsPath(tokens),
+                    "not a path in detection-schema.json: " + pointer);
+            Node node = root;
+            for (String token : tokens) {
+                if (node.all) {
+                    break;
+                }
+                node = node.children.computeIfAbsent(token, t -> new Node());
+            }
+            node.all = true;
+            node.children.clear();
+        }
+        if (root.all) {
+            return ALL;
+        }
+        return root.toFieldSet(Collections.unmodifiableList(new ArrayList<>(jsonPointers)));
+    }
+
+    private static List<String> tokens(String pointer) {
+        if (pointer.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Preconditions.checkArgument(pointer.charAt(0) == '/', "JSON pointer must start with '/': " + pointer);
+        List<String> tokens = new ArrayList<>();
+        for (String token : pointer.substring(1).split("/", -1)) {
+            tokens.add(token.replace("~1", "/").replace("~0", "~"));
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns true if the field with the given name (at this level) is to be
+     * written.
+     *
+     * @param name field name
+     * @return true if selected
+     */
+    public boolean contains(String name) {
+        return all || fields.containsKey(name);
+    }
+
+    /**
+     * Returns the selection below the field with the given name. Only call if
+     * {@link #contains(String)} returns true for {@code name}.
+     *
+     * @param name field name
+     * @return selection of the fields of the named object
+     */
+    public FieldSet field(String name) {
+        if (all) {
+            return ALL;
+        } else {
+            FieldSet f = fields.get(name);
+            Preconditions.checkArgument(f != null, "field not selected: " + name);
+            return f;
+        }
+    }
+
+    public boolean isAll() {
+        return all;
+    }
+
+    @Override
+    public String toString() {
+        return all ? "FieldSet[all]" : "FieldSet" + pointers;
+    }
+
+    private static final class Node {
+        boolean all;
+        final Map<String, Node> children = new LinkedHashMap<>();
+
+        FieldSet toFieldSet(List<String> pointers) {
+            if (all) {
+                return ALL;
+            }
+            Map<String, FieldSet> map = new LinkedHashMap<>();
+            for (Map.Entry<String, Node> entry : children.entrySet()) {
+                map.put(entry.getKey(), entry.getValue().toFieldSet(Collections.emptyList()));
+            }
+            return new FieldSet(false, Collections.unmodifiableMap(map), pointers);
+        }
+    }
+
+}
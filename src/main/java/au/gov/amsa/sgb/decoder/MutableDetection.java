@@ -0,0 +1,306 @@
+package au.gov.amsa.sgb.decoder;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import au.gov.amsa.sgb.decoder.internal.Bits;
+import au.gov.amsa.sgb.decoder.rotatingfield.RotatingField;
+import au.gov.amsa.sgb.decoder.rotatingfield.RotatingFieldType;
+import au.gov.amsa.sgb.decoder.vesselid.VesselId;
+import au.gov.amsa.sgb.decoder.vesselid.VesselIdType;
+
+/**
+ * Mutable holder of a decoded detection that is filled by
+ * {@link DetectionDecoder} and can be reset and reused so that decoding a stream
+ * of messages allocates nothing per message.
+ *
+ * <p>
+ * The fixed width fields are held as primitives and enums. The Beacon Hex IDs
+ * are returned as {@link CharSequence} views that are overwritten by the next
+ * decode (call {@code toString()} to keep a copy). The variable fields
+ * ({@link #vesselId()}, {@link #rotatingField()}) and {@link #toDetection()}
+ * are decoded on demand and do allocate.
+ *
+ * <p>
+ * The field accessors (and reads of the Beacon Hex ID views) throw
+ * {@link IllegalStateException} when no detection is decoded: after
+ * construction, after {@link #reset()} and after a failed decode, so that a
+ * failed decode never exposes the fields of the previous message.
+ *
+ * <p>
+ * Not thread-safe.
+ */
+public final class MutableDetection {
+
+    final Bits bits = Bits.zeros(DetectionLayout.NUM_BITS);
+    final char[] beacon23HexIdChars = new char[Detection.NUM_BEACON_23_HEX_ID_CHARS];
+
+    private final CharSequence beacon23HexId = new CharArrayView(Detection.NUM_BEACON_23_HEX_ID_CHARS);
+    private final CharSequence beacon15HexId = new CharArrayView(Detection.NUM_BEACON_15_HEX_ID_CHARS);
+
+    boolean decoded;
+    int tac;
+    int serialNo;
+    int countryCode;
+    boolean hasAtLeastOneEnabledHomingSignal;
+    boolean hasEnabledRls;
+    boolean testProtocolMessage;
+    boolean hasEncodedGnssPosition;
+    double latitude;
+    double longitude;
+    int vesselIdTypeCode;
+    BeaconType beaconType;
+    int rotatingFieldId;
+    RotatingFieldType rotatingFieldType;
+
+    public MutableDetection() {
+        reset();
+    }
+
+    /**
+     * Clears all fields so that this holds no detection.
+     *
+     * @return this
+     */
+    public MutableDetection reset() {
+        bits.clear();
+        Arrays.fill(beacon23HexIdChars, '0');
+        decoded = false;
+        tac = 0;
+        serialNo = 0;
+        countryCode = 0;
+        hasAtLeastOneEnabledHomingSignal = false;
+        hasEnabledRls = false;
+        testProtocolMessage = false;
+        hasEncodedGnssPosition = false;
+        latitude = Double.NaN;
+        longitude = Double.NaN;
+        vesselIdTypeCode = 0;
+        beaconType = null;
+        rotatingFieldId = 0;
+        rotatingFieldType = null;
+        return this;
+    }
+
+    /**
+     * Reads the fixed width fields from {@link #bits} by their
+     * {@link DetectionLayout} positions (does not set {@link #decoded} or the
+     * Beacon Hex IDs). The one place these fields are read for both
+     * {@link DetectionDecoder} and {@link DetectionBatch}. Does not allocate.
+     */
+    void readFixedFields() {
+        tac = bits.getUnsignedInt(DetectionLayout.TAC_OFFSET, DetectionLayout.TAC_LENGTH);
+        serialNo = bits.getUnsignedInt(DetectionLayout.SERIAL_NO_OFFSET, DetectionLayout.SERIAL_NO_LENGTH);
+        countryCode = bits.getUnsignedInt(DetectionLayout.COUNTRY_CODE_OFFSET,
+                DetectionLayout.COUNTRY_CODE_LENGTH);
+        hasAtLeastOneEnabledHomingSignal = bits.getBoolean(DetectionLayout.HOMING_SIGNAL_OFFSET);
+        hasEnabledRls = bits.getBoolean(DetectionLayout.RLS_OFFSET);
+        testProtocolMessage = bits.getBoolean(DetectionLayout.TEST_PROTOCOL_OFFSET);
+        long position = bits.getUnsignedLong(DetectionLayout.POSITION_OFFSET, DetectionLayout.POSITION_LENGTH);
+        if (position == Detection.NO_ENCODED_LOCATION_CAPABILITY_VALUE) {
+            hasEncodedGnssPosition = false;
+            latitude = Double.NaN;
+            longitude = Double.NaN;
+        } else {
+            hasEncodedGnssPosition = true;
+            latitude = Detection.getLatitude(bits);
+            longitude = Detection.getLongitude(bits);
+        }
+        vesselIdTypeCode = bits.getUnsignedInt(DetectionLayout.VESSEL_ID_OFFSET,
+                DetectionLayout.VESSEL_ID_TYPE_LENGTH);
+        beaconType = Detection.toBeaconType(
+                bits.getUnsignedInt(DetectionLayout.BEACON_TYPE_OFFSET, DetectionLayout.BEACON_TYPE_LENGTH));
+        rotatingFieldId = bits.getUnsignedInt(DetectionLayout.ROTATING_FIELD_OFFSET,
+                DetectionLayout.ROTATING_FIELD_ID_LENGTH);
+        rotatingFieldType = Detection.toRotatingFieldType(rotatingFieldId);
+    }
+
+    /**
+     * Returns true if and only if a detection has been decoded into this since
+     * construction or the last {@link #reset()}.
+     *
+     * @return true if this holds a decoded detection
+     */
+    public boolean isDecoded() {
+        return decoded;
+    }
+
+    public int tac() {
+        checkDecoded();
+        return tac;
+    }
+
+    public int serialNo() {
+        checkDecoded();
+        return serialNo;
+    }
+
+    public int countryCode() {
+        checkDecoded();
+        return countryCode;
+    }
+
+    public boolean hasAtLeastOneEnabledHomingSignal() {
+        checkDecoded();
+        return hasAtLeastOneEnabledHomingSignal;
+    }
+
+    public boolean hasEnabledRls() {
+        checkDecoded();
+        return hasEnabledRls;
+    }
+
+    public boolean isTestProtocolMessage() {
+        checkDecoded();
+        return testProtocolMessage;
+    }
+
+    public boolean hasEncodedGnssPosition() {
+        checkDecoded();
+        return hasEncodedGnssPosition;
+    }
+
+    /**
+     * Returns the latitude of the encoded GNSS position or {@code NaN} if
+     * {@link #hasEncodedGnssPosition()} is false.
+     *
+     * @return latitude in degrees
+     */
+    public double latitude() {
+        checkDecoded();
+        return latitude;
+    }
+
+    /**
+     * Returns the longitude of the encoded GNSS position or {@code NaN} if
+     * {@link #hasEncodedGnssPosition()} is false.
+     *
+     * @return longitude in degrees
+     */
+    public double longitude() {
+        checkDecoded();
+        return longitude;
+    }
+
+    public Optional<VesselIdType> vesselIdType() {
+        checkDecoded();
+        return Detection.toVesselIdType(vesselIdTypeCode);
+    }
+
+    public BeaconType beaconType() {
+        checkDecoded();
+        return beaconType;
+    }
+
+    /**
+     * Returns the 4 bit rotating field identifier.
+     *
+     * @return rotating field identifier
+     */
+    public int rotatingFieldId() {
+        checkDecoded();
+        return rotatingFieldId;
+    }
+
+    public RotatingFieldType rotatingFieldType() {
+        checkDecoded();
+        return rotatingFieldType;
+    }
+
+    /**
+     * Returns a view of the Beacon 23 Hex ID that is overwritten by the next
+     * decode.
+     *
+     * @return Beacon 23 Hex ID
+     */
+    public CharSequence beacon23HexId() {
+        return beacon23HexId;
+    }
+
+    /**
+     * Returns a view of the Beacon 15 Hex ID that is overwritten by the next
+     * decode.
+     *
+     * @return Beacon 15 Hex ID
+     */
+    public CharSequence beacon15HexId() {
+        return beacon15HexId;
+    }
+
+    /**
+     * Decodes the vessel id field (allocates).
+     *
+     * @return vessel id
+     */
+    public Optional<? extends VesselId> vesselId() {
+        checkDecoded();
+        return Detection.readVesselId(bits.position(DetectionLayout.VESSEL_ID_OFFSET));
+    }
+
+    /**
+     * Decodes the rotating field (allocates).
+     *
+     * @return rotating field
+     */
+    public RotatingField rotatingField() {
+        checkDecoded();
+        return Detection.readRotatingField(bits.position(DetectionLayout.ROTATING_FIELD_OFFSET));
+    }
+
+    /**
+     * Returns an immutable {@link Detection} decoded from a copy of the bits held
+     * by this.
+     *
+     * @return detection
+     */
+    public Detection toDetection() {
+        checkDecoded();
+        return Detection.from(bits.position(0).readBits(DetectionLayout.NUM_BITS));
+    }
+
+    private void checkDecoded() {
+        if (!decoded) {
+            throw new IllegalStateException("no detection has been decoded");
+        }
+    }
+
+    /**
+     * View of the first {@code length} Beacon Hex ID characters that reads the
+     * current decode (throws if there is none).
+     */
+    private final class CharArrayView implements CharSequence {
+
+        private final int length;
+
+        CharArrayView(int length) {
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            checkDecoded();
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("index " + index);
+            }
+            return beacon23HexIdChars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            checkDecoded();
+            return new String(beacon23HexIdChars, 0, length);
+        }
+
+    }
+
+}
@@ -0,0 +1,83 @@
+package au.gov.amsa.sgb.decoder;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * Operational priority of a detection message, classified from the raw 4 bit
+ * rotating field identifier without decoding the message. Declared most urgent
+ * first (see {@link PriorityDispatcher}).
+ */
+public enum Priority {
+
+    /**
+     * Cancellation (rotating field 15) and ELT(DT) in-flight emergency (rotating
+     * field 1) messages.
+     */
+    URGENT,
+
+    /**
+     * All other messages.
+     */
+    ROUTINE;
+
+    private static final int CANCELLATION_ID = 15;
+
+    private static final int ELT_DT_IN_FLIGHT_EMERGENCY_ID = 1;
+
+    private static final int BITS_PER_HEX_CHAR = 4;
+
+    private static final DetectionFilter.Field ROTATING_FIELD_ID = DetectionFilter.Field.ROTATING_FIELD_ID;
+
+    /**
+     * Returns the priority for the raw rotating field identifier.
+     *
+     * @param rotatingFieldId rotating field identifier (0 to 15)
+     * @return priority
+     */
+    public static Priority of(int rotatingFieldId) {
+        Preconditions.checkArgument(rotatingFieldId >= 0 && rotatingFieldId <= ROTATING_FIELD_ID.maxValue(),
+                "rotatingFieldId must be between 0 and 15");
+        if (rotatingFieldId == CANCELLATION_ID || rotatingFieldId == ELT_DT_IN_FLIGHT_EMERGENCY_ID) {
+            return URGENT;
+        } else {
+            return ROUTINE;
+        }
+    }
+
+    /**
+     * Returns the priority of the 202 bit detection message right aligned (left
+     * padded with 6 zero bits) in the 26 bytes starting at {@code offset}.
+     *
+     * @param bytes  bytes containing the detection message
+     * @param offset index of the first of the 26 bytes
+     * @return priority
+     */
+    public static Priority of(byte[] bytes, int offset) {
+        Preconditions.checkArgument(offset >= 0 && offset <= bytes.length - DetectionLayout.NUM_BYTES,
+                "not enough bytes for a 202 bit detection");
+        return ofWord(DetectionFilter.word(bytes, offset, ROTATING_FIELD_ID.wordIndex));
+    }
+
+    /**
+     * Returns the priority of the hex Ground Segment Representation of a
+     * detection (51 hex chars).
+     *
+     * @param hex detection hex
+     * @return priority
+     */
+    public static Priority of(CharSequence hex) {
+        Preconditions.checkArgument(
+                hex.length() * BITS_PER_HEX_CHAR == DetectionLayout.NUM_BITS + DetectionLayout.NUM_HEX_PAD_BITS,
+                "hex length should be 51");
+        return ofWord(DetectionFilter.word(hex, ROTATING_FIELD_ID.wordIndex));
+    }
+
+    public static Priority of(Detection d) {
+        return ofWord(d.bits().word(ROTATING_FIELD_ID.wordIndex));
+    }
+
+    private static Priority ofWord(long word) {
+        return of(ROTATING_FIELD_ID.get(word));
+    }
+
+}
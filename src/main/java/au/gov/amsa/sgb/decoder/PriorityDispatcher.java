@@ -0,0 +1,246 @@
+package au.gov.amsa.sgb.decoder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.guavamini.annotations.VisibleForTesting;
+
+/**
+ * Bounded queue with one lane per {@link Priority} that always dispatches from
+ * the most urgent non-empty lane, so urgent messages overtake any backlog of
+ * routine messages. Each lane has its own capacity, so a flood of routine
+ * messages is rejected from its own lane and cannot delay or displace urgent
+ * messages. Within a lane items are dispatched in the order offered.
+ *
+ * <p>
+ * Per lane queue depth, counts and offer-to-dispatch latency are available
+ * from {@link #statistics(Priority)}.
+ *
+ * <p>
+ * Instances are thread-safe.
+ *
+ * @param <T> item type
+ */
+public final class PriorityDispatcher<T> {
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final Function<? super T, Priority> classifier;
+    private final LongSupplier nanoClock;
+    private final Lane[] lanes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    // guarded by lock
+    private int size;
+
+    /**
+     * Constructor.
+     *
+     * @param classifier          returns the priority of an item
+     * @param capacityPerPriority maximum number of waiting items in each lane
+     */
+    public PriorityDispatcher(Function<? super T, Priority> classifier, int capacityPerPriority) {
+        this(classifier, capacityPerPriority, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    PriorityDispatcher(Function<? super T, Priority> classifier, int capacityPerPriority, LongSupplier nanoClock) {
+        Preconditions.checkNotNull(classifier);
+        Preconditions.checkArgument(capacityPerPriority > 0, "capacityPerPriority must be positive");
+        this.classifier = classifier;
+        this.nanoClock = nanoClock;
+        this.lanes = new Lane[PRIORITIES.length];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(capacityPerPriority);
+        }
+    }
+
+    /**
+     * Returns a dispatcher of raw 26 byte detection messages (202 bits left
+     * padded with 6 zero bits) classified by {@link Priority#of(byte[], int)}.
+     *
+     * @param capacityPerPriority maximum number of waiting messages in each lane
+     * @return dispatcher
+     */
+    public static PriorityDispatcher<byte[]> forMessages(int capacityPerPriority) {
+        return new PriorityDispatcher<>(message -> Priority.of(message, 0), capacityPerPriority);
+    }
+
+    /**
+     * Returns a dispatcher of hex Ground Segment Representations (51 hex chars)
+     * classified by {@link Priority#of(CharSequence)}.
+     *
+     * @param capacityPerPriority maximum number of waiting messages in each lane
+     * @return dispatcher
+     */
+    public static PriorityDispatcher<String> forHex(int capacityPerPriority) {
+        return new PriorityDispatcher<>(Priority::of, capacityPerPriority);
+    }
+
+    /**
+     * Adds the item to the lane of its priority if that lane is not full.
+     * Classification happens before the lock is taken.
+     *
+     * @param item item to dispatch
+     * @return true if added, false if the lane was full
+     */
+    public boolean offer(T item) {
+        Preconditions.checkNotNull(item);
+        Priority priority = classifier.apply(item);
+        Lane lane = lanes[priority.ordinal()];
+        lock.lock();
+        try {
+            lane.offeredCount++;
+            if (lane.size == lane.items.length) {
+                lane.rejectedCount++;
+                return false;
+            }
+            lane.add(item, nanoClock.getAsLong());
+            size++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns the oldest item of the most urgent non-empty lane.
+     *
+     * @return item or null if there are no waiting items
+     */
+    public T poll() {
+        lock.lock();
+        try {
+            return size == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns the oldest item of the most urgent non-empty lane,
+     * waiting if necessary for an item to be offered.
+     *
+     * @return item
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public T take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns the oldest item of the most urgent non-empty lane,
+     * waiting up to the given time for an item to be offered.
+     *
+     * @param timeout maximum time to wait
+     * @param unit    unit of {@code timeout}
+     * @return item or null if the time elapsed with no waiting items
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of waiting items in all lanes.
+     *
+     * @return number of waiting items
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public DispatcherStatistics statistics(Priority priority) {
+        Lane lane = lanes[priority.ordinal()];
+        lock.lock();
+        try {
+            return new DispatcherStatistics(priority, lane.items.length, lane.size, lane.offeredCount,
+                    lane.rejectedCount, lane.dispatchedCount, lane.totalLatencyNanos, lane.maxLatencyNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // call with lock held and size > 0
+    @SuppressWarnings("unchecked")
+    private T dequeue() {
+        long now = nanoClock.getAsLong();
+        for (Lane lane : lanes) {
+            if (lane.size > 0) {
+                size--;
+                return (T) lane.remove(now);
+            }
+        }
+        throw new IllegalStateException("size does not match lanes");
+    }
+
+    /**
+     * Ring buffer of items and their offer times. Guarded by the dispatcher lock.
+     */
+    private static final class Lane {
+        final Object[] items;
+        final long[] offeredNanos;
+        int head;
+        int size;
+        long offeredCount;
+        long rejectedCount;
+        long dispatchedCount;
+        long totalLatencyNanos;
+        long maxLatencyNanos;
+
+        Lane(int capacity) {
+            this.items = new Object[capacity];
+            this.offeredNanos = new long[capacity];
+        }
+
+        void add(Object item, long now) {
+            int tail = (head + size) % items.length;
+            items[tail] = item;
+            offeredNanos[tail] = now;
+            size++;
+        }
+
+        Object remove(long now) {
+            Object item = items[head];
+            long latency = now - offeredNanos[head];
+            items[head] = null;
+            head = (head + 1) % items.length;
+            size--;
+            dispatchedCount++;
+            totalLatencyNanos += latency;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+            return item;
+        }
+    }
+
+}
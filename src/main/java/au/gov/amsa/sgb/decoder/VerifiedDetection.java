@@ -0,0 +1,43 @@
+package au.gov.amsa.sgb.decoder;
+
+/**
+ * A {@link Detection} decoded from a full message (202 bit detection followed
+ * by the 48 bit BCH error correction code) together with the result of checking
+ * the BCH code. See {@link Detection#fromFullMessage(String)}.
+ */
+public final class VerifiedDetection {
+
+    public enum BchStatus {
+        /**
+         * The BCH code matches the detection bits.
+         */
+        VALID,
+
+        /**
+         * The BCH code does not match the detection bits (the message has bit
+         * errors, see {@link DetectionCorrector}).
+         */
+        INVALID;
+    }
+
+    private final Detection detection;
+    private final BchStatus bchStatus;
+
+    VerifiedDetection(Detection detection, BchStatus bchStatus) {
+        this.detection = detection;
+        this.bchStatus = bchStatus;
+    }
+
+    public Detection detection() {
+        return detection;
+    }
+
+    public BchStatus bchStatus() {
+        return bchStatus;
+    }
+
+    public boolean isBchValid() {
+        return bchStatus == BchStatus.VALID;
+    }
+
+}
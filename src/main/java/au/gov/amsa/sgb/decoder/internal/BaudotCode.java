@@ -1,8 +1,5 @@
 package au.gov.amsa.sgb.decoder.internal;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import com.github.davidmoten.guavamini.annotations.VisibleForTesting;
 
 /**
@@ -10,63 +7,100 @@ import com.github.davidmoten.guavamini.annotations.VisibleForTesting;
  */
 public final class BaudotCode {
 
-    private static final Map<Integer, Character> MAP = createMap();
+    /**
+     * Returned by {@link #lookup(int)} for a code that does not map to a
+     * character.
+     */
+    public static final char INVALID = '\0';
+
+    private static final int NUM_CODES = 64;
+
+    private static final int SHORT_CODE_OFFSET = 32;
+
+    // indexed by 6 bit code, INVALID if no mapping
+    private static final char[] CHARS = createTable();
 
     private BaudotCode() {
         // prevent instantiation
     }
 
-    private static Map<Integer, Character> createMap() {
-        Map<Integer, Character> m = new HashMap<>();
-        m.put(val("111000"), 'A');
-        m.put(val("110011"), 'B');
-        m.put(val("101110"), 'C');
-        m.put(val("110010"), 'D');
-        m.put(val("110000"), 'E');
-        m.put(val("110110"), 'F');
-        m.put(val("101011"), 'G');
-        m.put(val("100101"), 'H');
-        m.put(val("101100"), 'I');
-        m.put(val("111010"), 'J');
-        m.put(val("111110"), 'K');
-        m.put(val("101001"), 'L');
-        m.put(val("100111"), 'M');
-        m.put(val("100110"), 'N');
-        m.put(val("100011"), 'O');
-        m.put(val("101101"), 'P');
-        m.put(val("111101"), 'Q');
-        m.put(val("101010"), 'R');
-        m.put(val("110100"), 'S');
-        m.put(val("100001"), 'T');
-        m.put(val("111100"), 'U');
-        m.put(val("101111"), 'V');
-        m.put(val("111001"), 'W');
-        m.put(val("110111"), 'X');
-        m.put(val("110101"), 'Y');
-        m.put(val("110001"), 'Z');
-        m.put(val("100100"), ' ');
-        m.put(val("011000"), '-');
-        m.put(val("010111"), '/');
-        m.put(val("001101"), '0');
-        m.put(val("011101"), '1');
-        m.put(val("011001"), '2');
-        m.put(val("010000"), '3');
-        m.put(val("001010"), '4');
-        m.put(val("000001"), '5');
-        m.put(val("010101"), '6');
-        m.put(val("011100"), '7');
-        m.put(val("001100"), '8');
-        m.put(val("000011"), '9');
-        return m;
+    private static char[] createTable() {
+        char[] t = new char[NUM_CODES];
+        put(t, "111000", 'A');
+        put(t, "110011", 'B');
+        put(t, "101110", 'C');
+        put(t, "110010", 'D');
+        put(t, "110000", 'E');
+        put(t, "110110", 'F');
+        put(t, "101011", 'G');
+        put(t, "100101", 'H');
+        put(t, "101100", 'I');
+        put(t, "111010", 'J');
+        put(t, "111110", 'K');
+        put(t, "101001", 'L');
+        put(t, "100111", 'M');
+        put(t, "100110", 'N');
+        put(t, "100011", 'O');
+        put(t, "101101", 'P');
+        put(t, "111101", 'Q');
+        put(t, "101010", 'R');
+        put(t, "110100", 'S');
+        put(t, "100001", 'T');
+        put(t, "111100", 'U');
+        put(t, "101111", 'V');
+        put(t, "111001", 'W');
+        put(t, "110111", 'X');
+        put(t, "110101", 'Y');
+        put(t, "110001", 'Z');
+        put(t, "100100", ' ');
+        put(t, "011000", '-');
+        put(t, "010111", '/');
+        put(t, "001101", '0');
+        put(t, "011101", '1');
+        put(t, "011001", '2');
+        put(t, "010000", '3');
+        put(t, "001010", '4');
+        put(t, "000001", '5');
+        put(t, "010101", '6');
+        put(t, "011100", '7');
+        put(t, "001100", '8');
+        put(t, "000011", '9');
+        return t;
     }
 
-    private static Integer val(String s) {
-        return Integer.parseInt(s, 2);
+    private static void put(char[] table, String code, char ch) {
+        table[Integer.parseInt(code, 2)] = ch;
+    }
+
+    /**
+     * Returns the character for a 6 bit code or {@link #INVALID} if the code
+     * does not map to a character.
+     *
+     * @param code 6 bit code
+     * @return character or {@link #INVALID}
+     */
+    public static char lookup(int code) {
+        if (code < 0 || code >= NUM_CODES) {
+            return INVALID;
+        } else {
+            return CHARS[code];
+        }
+    }
+
+    /**
+     * Returns the character for a 5 bit short code (the 6 bit code without its
+     * leading 1 bit) or {@link #INVALID} if the code does not map to a character.
+     *
+     * @param shortCode 5 bit code
+     * @return character or {@link #INVALID}
+     */
+    public static char lookupShortCode(int shortCode) {
+        return lookup(shortCode + SHORT_CODE_OFFSET);
     }
 
     public static char toChar(int code) {
-        Character ch = MAP.get(code);
-        if (ch == null) {
+        char ch = lookup(code);
+        if (ch == INVALID) {
             throw new IllegalArgumentException("character not found for decimal BaudotCode " + code);
         } else {
             return ch;
@@ -74,12 +108,18 @@ public final class BaudotCode {
     }
 
     public static char toCharFromShortCode(int shortCode) {
-        return toChar(shortCode + 32);
+        return toChar(shortCode + SHORT_CODE_OFFSET);
     }
 
     @VisibleForTesting
     static int size() {
-        return MAP.size();
+        int n = 0;
+        for (char ch : CHARS) {
+            if (ch != INVALID) {
+                n++;
+            }
+        }
+        return n;
     }
 
 }
@@ -0,0 +1,249 @@
+package au.gov.amsa.sgb.decoder.internal;
+
+import com.github.davidmoten.guavamini.Preconditions;
+import com.github.davidmoten.guavamini.annotations.VisibleForTesting;
+
+/**
+ * Table driven (CRC style) calculation of the BCH(250,202) error correction
+ * code for SGB detection messages. See C/T.018 Appendix B.
+ *
+ * <p>
+ * The parity of a message {@code m(x)} is {@code m(x).x^48 mod g(x)} where
+ * {@code g(x)} is the degree 48 generator polynomial. Because {@code g(x)} has
+ * a non-zero constant term a full 250 bit message (data followed by parity) is
+ * valid if and only if its parity is zero, so verification uses the same
+ * engine.
+ */
+public final class Bch {
+
+    private Bch() {
+        // prevent instantiation
+    }
+
+    public static final int DEGREE = 48;
+
+    /**
+     * Generator polynomial from C/T.018 Appendix B (the 49 bit divisor).
+     */
+    @VisibleForTesting
+    static final String GENERATOR_BIT_STRING = "1110001111110101110000101110111110011110010010111";
+
+    private static final long MASK = (1L << DEGREE) - 1;
+
+    /**
+     * Generator polynomial without its leading {@code x^48} term.
+     */
+    private static final long POLY = Long.parseLong(GENERATOR_BIT_STRING.substring(1), 2);
+
+    private static final long[] BYTE_TABLE = createTable(8);
+
+    private static final long[] NIBBLE_TABLE = createTable(4);
+
+    private static final int NUM_DATA_BITS = 202;
+
+    private static final int NUM_MESSAGE_BITS = NUM_DATA_BITS + DEGREE;
+
+    /**
+     * Number of bytes of a full 250 bit message right aligned (left padded with
+     * zero bits) in a byte array.
+     */
+    public static final int NUM_MESSAGE_BYTES = (NUM_MESSAGE_BITS + 7) / 8;
+
+    /**
+     * Number of zero bits that left pad a full 250 bit message to
+     * {@link #NUM_MESSAGE_BYTES} bytes.
+     */
+    public static final int NUM_MESSAGE_PAD_BITS = NUM_MESSAGE_BYTES * 8 - NUM_MESSAGE_BITS;
+
+    /**
+     * Number of hex characters of a full 250 bit message left padded with zero
+     * bits (same form as the Ground Segment Representation of a detection).
+     */
+    public static final int NUM_MESSAGE_HEX_CHARS = (NUM_MESSAGE_BITS + 3) / 4;
+
+    private static long[] createTable(int numBits) {
+        long[] table = new long[1 << numBits];
+        for (int i = 0; i < table.length; i++) {
+            long r = ((long) i) << (DEGREE - numBits);
+            for (int j = 0; j < numBits; j++) {
+                if ((r & (1L << (DEGREE - 1))) != 0) {
+                    r = ((r << 1) ^ POLY) & MASK;
+                } else {
+                    r = (r << 1) & MASK;
+                }
+            }
+            table[i] = r;
+        }
+        return table;
+    }
+
+    private static long updateByte(long r, int b) {
+        return ((r << 8) & MASK) ^ BYTE_TABLE[((int) (r >>> (DEGREE - 8)) ^ b) & 0xFF];
+    }
+
+    private static long updateNibble(long r, int nibble) {
+        return ((r << 4) & MASK) ^ NIBBLE_TABLE[((int) (r >>> (DEGREE - 4)) ^ nibble) & 0xF];
+    }
+
+    /**
+     * Returns the 48 bit BCH parity of all the bits in {@code bits} (right
+     * aligned in the returned long). Does not change the position of
+     * {@code bits}.
+     *
+     * @param bits message bits
+     * @return parity
+     */
+    public static long parity(Bits bits) {
+        int n = bits.length();
+        // leading zero bits don't change the remainder so treat a partial first
+        // byte as left padded with zeros
+        int i = n % 8;
+        long r = 0;
+        if (i > 0) {
+            r = updateByte(r, (int) bits.extract(0, i));
+        }
+        for (; i < n; i += 8) {
+            r = updateByte(r, (int) bits.extract(i, 8));
+        }
+        return r;
+    }
+
+    /**
+     * Returns the 48 bit BCH parity of the bits in {@code bytes} from
+     * {@code offset} for {@code length} bytes, most significant bit first.
+     *
+     * @param bytes  message bytes
+     * @param offset start index in {@code bytes}
+     * @param length number of bytes
+     * @return parity
+     */
+    public static long parity(byte[] bytes, int offset, int length) {
+        return parity(0, bytes, offset, length);
+    }
+
+    /**
+     * Returns true if and only if the full 250 bit message (202 data bits
+     * followed by 48 BCH bits) right aligned in the 32 bytes starting at
+     * {@code offset} has a correct BCH code. The 6 leading pad bits are ignored.
+     *
+     * @param bytes  message bytes
+     * @param offset start index in {@code bytes}
+     * @return true if BCH code matches the data bits
+     */
+    public static boolean verify(byte[] bytes, int offset) {
+        return remainder(bytes, offset) == 0;
+    }
+
+    /**
+     * Returns the 48 bit parity of the full 250 bit message (202 data bits
+     * followed by 48 BCH bits) right aligned in the 32 bytes starting at
+     * {@code offset}. The 6 leading pad bits are ignored. The result is zero if
+     * and only if the BCH code matches the data bits.
+     *
+     * @param bytes  message bytes
+     * @param offset start index in {@code bytes}
+     * @return parity of the full message
+     */
+    public static long remainder(byte[] bytes, int offset) {
+        Preconditions.checkArgument(offset >= 0 && offset <= bytes.length - NUM_MESSAGE_BYTES,
+                "not enough bytes for a 250 bit message");
+        // ignore the pad bits
+        long r = updateByte(0, bytes[offset] & 0x3);
+        return parity(r, bytes, offset + 1, NUM_MESSAGE_BYTES - 1);
+    }
+
+    private static long parity(long r, byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            r = updateByte(r, bytes[i]);
+        }
+        return r;
+    }
+
+    /**
+     * Copies the 202 data bits of the full 250 bit message (202 data bits
+     * followed by 48 BCH bits) right aligned in the 32 bytes starting at
+     * {@code offset} into {@code data} and returns the parity of the full message
+     * (see {@link #remainder(byte[], int)}), reading each byte once. The 6
+     * leading pad bits are ignored.
+     *
+     * @param bytes  message bytes
+     * @param offset start index in {@code bytes}
+     * @param data   destination of the data bits, length 202, owned by the caller
+     * @return parity of the full message, zero if and only if the BCH code
+     *         matches the data bits
+     */
+    public static long load(byte[] bytes, int offset, Bits data) {
+        Preconditions.checkArgument(offset >= 0 && offset <= bytes.length - NUM_MESSAGE_BYTES,
+                "not enough bytes for a 250 bit message");
+        Preconditions.checkArgument(data.length() == NUM_DATA_BITS, "data length should be " + NUM_DATA_BITS);
+        // the first byte has 2 data bits after the pad bits, the next 25 bytes are
+        // all data and the last 6 are the BCH code
+        int b = bytes[offset] & 0x3;
+        long r = updateByte(0, b);
+        data.insert(0, b, 2);
+        int index = 2;
+        for (int i = offset + 1; i < offset + NUM_MESSAGE_BYTES; i++) {
+            r = updateByte(r, bytes[i]);
+            if (index < NUM_DATA_BITS) {
+                data.insert(index, bytes[i], 8);
+                index += 8;
+            }
+        }
+        data.position(0);
+        return r;
+    }
+
+    /**
+     * Copies the 202 data bits of the full 250 bit message (202 data bits
+     * followed by 48 BCH bits) hex encoded to 63 characters using left padded
+     * zero bits into {@code data} and returns the parity of the full message,
+     * parsing each character once. The 2 leading pad bits are ignored.
+     *
+     * @param hex  63 hex characters
+     * @param data destination of the data bits, length 202, owned by the caller
+     * @return parity of the full message, zero if and only if the BCH code
+     *         matches the data bits
+     * @throws IllegalArgumentException if {@code hex} has the wrong length or a
+     *                                  non-hex character
+     */
+    public static long load(CharSequence hex, Bits data) {
+        Preconditions.checkArgument(hex.length() == NUM_MESSAGE_HEX_CHARS,
+                "hex length should be " + NUM_MESSAGE_HEX_CHARS);
+        Preconditions.checkArgument(data.length() == NUM_DATA_BITS, "data length should be " + NUM_DATA_BITS);
+        // the first char has 2 data bits after the pad bits, the next 50 chars are
+        // all data and the last 12 are the BCH code
+        int v = Hex.digit(hex.charAt(0)) & 0x3;
+        long r = updateNibble(0, v);
+        data.insert(0, v, 2);
+        int index = 2;
+        for (int i = 1; i < NUM_MESSAGE_HEX_CHARS; i++) {
+            v = Hex.digit(hex.charAt(i));
+            r = updateNibble(r, v);
+            if (index < NUM_DATA_BITS) {
+                data.insert(index, v, 4);
+                index += 4;
+            }
+        }
+        data.position(0);
+        return r;
+    }
+
+    /**
+     * Returns true if and only if the full 250 bit message (202 data bits
+     * followed by 48 BCH bits) hex encoded to 63 characters using left padded
+     * zero bits has a correct BCH code. The 2 leading pad bits are ignored.
+     *
+     * @param hex 63 hex characters
+     * @return true if BCH code matches the data bits
+     */
+    public static boolean verify(CharSequence hex) {
+        Preconditions.checkArgument(hex.length() == NUM_MESSAGE_HEX_CHARS,
+                "hex length should be " + NUM_MESSAGE_HEX_CHARS);
+        long r = updateNibble(0, Hex.digit(hex.charAt(0)) & 0x3);
+        for (int i = 1; i < NUM_MESSAGE_HEX_CHARS; i++) {
+            r = updateNibble(r, Hex.digit(hex.charAt(i)));
+        }
+        return r == 0;
+    }
+
+}
@@ -0,0 +1,209 @@
+package au.gov.amsa.sgb.decoder.internal;
+
+import java.util.Arrays;
+
+/**
+ * Corrects up to 6 bit errors in a full 250 bit SGB message (202 data bits
+ * followed by 48 BCH bits). The BCH(250,202) code is a shortened BCH(255,207)
+ * code over GF(2^8) (primitive polynomial {@code x^8+x^4+x^3+x^2+1}) whose
+ * generator polynomial has roots {@code a^1..a^12}.
+ *
+ * <p>
+ * Decoding is by syndrome calculation, Berlekamp-Massey and Chien search. The
+ * syndromes are evaluated on the 48 bit remainder from the table driven
+ * {@link Bch} engine rather than on the whole message so a message without
+ * errors costs one pass of {@link Bch} and nothing else.
+ *
+ * <p>
+ * Instances hold scratch state so are not thread-safe but can be reused. No
+ * allocation happens during {@link #correct(byte[], int)}.
+ */
+public final class BchCorrector {
+
+    /**
+     * Maximum number of bit errors that can be corrected.
+     */
+    public static final int MAX_CORRECTABLE_ERRORS = 6;
+
+    /**
+     * Returned by {@link #correct(byte[], int)} when the message has more errors
+     * than can be corrected.
+     */
+    public static final int UNCORRECTABLE = -1;
+
+    private static final int PRIMITIVE_POLYNOMIAL = 0x11D;
+    private static final int FIELD_SIZE = 256;
+    private static final int N = FIELD_SIZE - 1;
+    private static final int NUM_SYNDROMES = 2 * MAX_CORRECTABLE_ERRORS;
+    private static final int NUM_MESSAGE_BITS = 250;
+
+    // antilog table doubled in length so the sum of two logs can index it
+    private static final int[] EXP = createExp();
+    private static final int[] LOG = createLog();
+
+    // index 0 unused so that syndromes[j] = r(a^j)
+    private final int[] syndromes = new int[NUM_SYNDROMES + 1];
+    private final int[] lambda = new int[NUM_SYNDROMES + 2];
+    private final int[] previous = new int[NUM_SYNDROMES + 2];
+    private final int[] temp = new int[NUM_SYNDROMES + 2];
+    private final int[] errorDegrees = new int[MAX_CORRECTABLE_ERRORS];
+
+    private static int[] createExp() {
+        int[] exp = new int[2 * N];
+        int x = 1;
+        for (int i = 0; i < N; i++) {
+            exp[i] = x;
+            exp[i + N] = x;
+            x <<= 1;
+            if ((x & FIELD_SIZE) != 0) {
+                x ^= PRIMITIVE_POLYNOMIAL;
+            }
+        }
+        return exp;
+    }
+
+    private static int[] createLog() {
+        int[] log = new int[FIELD_SIZE];
+        for (int i = 0; i < N; i++) {
+            log[EXP[i]] = i;
+        }
+        return log;
+    }
+
+    private static int multiply(int a, int b) {
+        if (a == 0 || b == 0) {
+            return 0;
+        } else {
+            return EXP[LOG[a] + LOG[b]];
+        }
+    }
+
+    private static int divide(int a, int b) {
+        if (a == 0) {
+            return 0;
+        } else {
+            return EXP[LOG[a] + N - LOG[b]];
+        }
+    }
+
+    /**
+     * Corrects in place the full 250 bit message right aligned (left padded with
+     * 6 zero bits) in the 32 bytes starting at {@code offset}. If the message is
+     * uncorrectable the bytes are not changed.
+     *
+     * @param bytes  message bytes
+     * @param offset index of the first of the 32 bytes
+     * @return number of bits corrected (0 to 6) or {@link #UNCORRECTABLE}
+     */
+    public int correct(byte[] bytes, int offset) {
+        long remainder = Bch.remainder(bytes, offset);
+        if (remainder == 0) {
+            return 0;
+        }
+        calculateSyndromes(remainder);
+        int numErrors = berlekampMassey();
+        if (numErrors > MAX_CORRECTABLE_ERRORS || !chienSearch(numErrors)) {
+            return UNCORRECTABLE;
+        }
+        for (int k = 0; k < numErrors; k++) {
+            int degree = errorDegrees[k];
+            bytes[offset + Bch.NUM_MESSAGE_BYTES - 1 - (degree >>> 3)] ^= (byte) (1 << (degree & 7));
+        }
+        return numErrors;
+    }
+
+    /**
+     * Calculates {@code r(a^j)} for j = 1..12 where {@code r(x)} is the received
+     * message. {@code remainder} is {@code r(x).x^48 mod g(x)} so
+     * {@code r(a^j) = remainder(a^j).a^(-48j)}.
+     */
+    private void calculateSyndromes(long remainder) {
+        for (int j = 1; j <= NUM_SYNDROMES; j += 2) {
+            int s = 0;
+            long r = remainder;
+            while (r != 0) {
+                int k = Long.numberOfTrailingZeros(r);
+                s ^= EXP[(j * k) % N];
+                r &= r - 1;
+            }
+            syndromes[j] = multiply(s, EXP[N - (Bch.DEGREE * j) % N]);
+        }
+        // binary code so S(2j) = S(j)^2
+        for (int j = 2; j <= NUM_SYNDROMES; j += 2) {
+            syndromes[j] = multiply(syndromes[j / 2], syndromes[j / 2]);
+        }
+    }
+
+    /**
+     * Calculates the error locator polynomial into {@code lambda} and returns its
+     * degree.
+     */
+    private int berlekampMassey() {
+        Arrays.fill(lambda, 0);
+        Arrays.fill(previous, 0);
+        lambda[0] = 1;
+        previous[0] = 1;
+        int l = 0;
+        int m = 1;
+        int b = 1;
+        for (int n = 0; n < NUM_SYNDROMES; n++) {
+            int d = syndromes[n + 1];
+            for (int i = 1; i <= l; i++) {
+                d ^= multiply(lambda[i], syndromes[n + 1 - i]);
+            }
+            if (d == 0) {
+                m++;
+            } else {
+                int coef = divide(d, b);
+                if (2 * l <= n) {
+                    System.arraycopy(lambda, 0, temp, 0, lambda.length);
+                    subtractShifted(coef, m);
+                    l = n + 1 - l;
+                    System.arraycopy(temp, 0, previous, 0, previous.length);
+                    b = d;
+                    m = 1;
+                } else {
+                    subtractShifted(coef, m);
+                    m++;
+                }
+            }
+        }
+        return l;
+    }
+
+    // lambda = lambda - coef.x^m.previous
+    private void subtractShifted(int coef, int m) {
+        for (int i = 0; i + m < lambda.length; i++) {
+            lambda[i + m] ^= multiply(coef, previous[i]);
+        }
+    }
+
+    /**
+     * Finds the roots of {@code lambda} amongst the positions of the shortened
+     * code. A root {@code a^(-e)} means an error in the coefficient of
+     * {@code x^e}. Returns true if and only if exactly {@code numErrors} roots
+     * were found.
+     */
+    private boolean chienSearch(int numErrors) {
+        int found = 0;
+        for (int e = 0; e < NUM_MESSAGE_BITS; e++) {
+            // a^(-e) as a log
+            int x = (N - e) % N;
+            int v = lambda[0];
+            for (int i = 1; i <= numErrors; i++) {
+                if (lambda[i] != 0) {
+                    v ^= EXP[(LOG[lambda[i]] + x * i) % N];
+                }
+            }
+            if (v == 0) {
+                if (found == numErrors) {
+                    return false;
+                }
+                errorDegrees[found] = e;
+                found++;
+            }
+        }
+        return found == numErrors;
+    }
+
+}
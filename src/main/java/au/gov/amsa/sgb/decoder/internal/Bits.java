@@ -1,43 +1,259 @@
 package au.gov.amsa.sgb.decoder.internal;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.Optional;
 
 import com.github.davidmoten.guavamini.Preconditions;
 
+/**
+ * Sequence of bits packed most significant bit first into 64 bit words (bit
+ * {@code i} is held in word {@code i / 64} at shift {@code 63 - i % 64}).
+ * Unused bits in the last word are always zero so that whole words can be
+ * compared directly.
+ */
 public final class Bits {
 
     private static final int BITS_PER_HEX_CHAR = 4;
-    private final boolean[] bits;
+    private static final int BITS_PER_WORD = 64;
+    private static final int LOG2_BITS_PER_WORD = 6;
+    private static final int WORD_INDEX_MASK = BITS_PER_WORD - 1;
+
+    private final long[] words;
+    private final int length;
     private int pos;
 
-    private Bits(boolean[] bits) {
-        this.bits = bits;
+    private Bits(long[] words, int length) {
+        this.words = words;
+        this.length = length;
     }
 
     public static Bits from(boolean[] bits) {
-        return new Bits(bits);
+        long[] words = new long[numWords(bits.length)];
+        for (int i = 0; i < bits.length; i++) {
+            if (bits[i]) {
+                words[i >>> LOG2_BITS_PER_WORD] |= mask(i);
+            }
+        }
+        return new Bits(words, bits.length);
     }
 
     public static Bits zeros(int length) {
-        return Bits.from(new boolean[length]);
+        return new Bits(new long[numWords(length)], length);
     }
 
     public static Bits from(String bitString) {
-        boolean[] bits = new boolean[bitString.length()];
-        for (int i = 0; i < bits.length; i++) {
+        int length = bitString.length();
+        long[] words = new long[numWords(length)];
+        for (int i = 0; i < length; i++) {
             char ch = bitString.charAt(i);
             if (ch == '1') {
-                bits[i] = true;
+                words[i >>> LOG2_BITS_PER_WORD] |= mask(i);
             } else if (ch != '0') {
                 throw new IllegalArgumentException("illegal character in bit string " + bitString);
             }
         }
-        return from(bits);
+        return new Bits(words, length);
+    }
+
+    /**
+     * Returns the low {@code numBits} bits of {@code value}, most significant bit
+     * first.
+     *
+     * @param value   value
+     * @param numBits number of bits, between 1 and 64 inclusive
+     * @return bits
+     */
+    public static Bits from(long value, int numBits) {
+        Preconditions.checkArgument(numBits > 0 && numBits <= BITS_PER_WORD);
+        Bits b = zeros(numBits);
+        b.insert(0, value, numBits);
+        return b;
+    }
+
+    /**
+     * Returns {@code numBits} bits read most significant bit first from
+     * {@code bytes} starting at bit {@code bitOffset} (bit 0 is the most
+     * significant bit of {@code bytes[0]}).
+     *
+     * @param bytes     source bytes
+     * @param bitOffset index of the first bit to read
+     * @param numBits   number of bits to read
+     * @return bits
+     */
+    public static Bits from(byte[] bytes, long bitOffset, int numBits) {
+        return from(ByteBuffer.wrap(bytes), bitOffset, numBits);
+    }
+
+    /**
+     * Returns {@code numBits} bits read most significant bit first from
+     * {@code bytes} starting at bit {@code bitOffset} (bit 0 is the most
+     * significant bit of the byte at absolute index 0). The position and limit of
+     * {@code bytes} are not changed.
+     *
+     * @param bytes     source bytes
+     * @param bitOffset index of the first bit to read
+     * @param numBits   number of bits to read
+     * @return bits
+     */
+    public static Bits from(ByteBuffer bytes, long bitOffset, int numBits) {
+        Preconditions.checkArgument(bitOffset >= 0 && numBits >= 0 && bitOffset + numBits <= bytes.limit() * 8L,
+                "not enough bytes");
+        Bits b = zeros(numBits);
+        b.fill(null, bytes, bitOffset);
+        return b;
+    }
+
+    /**
+     * Overwrites the content of this with {@link #length()} bits read most
+     * significant bit first from {@code bytes} starting at bit {@code bitOffset}
+     * and sets the position to 0. Bits are otherwise treated as immutable so only
+     * use this on an instance that is owned by the caller and has not been
+     * shared or duplicated. Does not allocate.
+     *
+     * @param bytes     source bytes
+     * @param bitOffset index of the first bit to read
+     * @return this
+     */
+    public Bits load(byte[] bytes, long bitOffset) {
+        Preconditions.checkArgument(bitOffset >= 0 && bitOffset + length <= bytes.length * 8L, "not enough bytes");
+        fill(bytes, null, bitOffset);
+        return this;
+    }
+
+    /**
+     * Overwrites the content of this with {@link #length()} bits read most
+     * significant bit first from {@code bytes} starting at bit {@code bitOffset}
+     * (bit 0 is the most significant bit of the byte at absolute index 0) and
+     * sets the position to 0. The position and limit of {@code bytes} are not
+     * changed. Same restrictions as {@link #load(byte[], long)}.
+     *
+     * @param bytes     source bytes
+     * @param bitOffset index of the first bit to read
+     * @return this
+     */
+    public Bits load(ByteBuffer bytes, long bitOffset) {
+        Preconditions.checkArgument(bitOffset >= 0 && bitOffset + length <= bytes.limit() * 8L, "not enough bytes");
+        fill(null, bytes, bitOffset);
+        return this;
+    }
+
+    /**
+     * Overwrites the content of this with the bits of the upper or lower case hex
+     * characters in {@code hex} without the first {@code numLeadingBitsToSkip}
+     * bits and sets the position to 0. Same restrictions as
+     * {@link #load(byte[], long)}.
+     *
+     * @param hex                  hex characters
+     * @param numLeadingBitsToSkip number of leading (pad) bits to drop, less than
+     *                             4
+     * @return this
+     * @throws IllegalArgumentException if {@code hex} contains a non-hex character
+     *                                  or has the wrong length
+     */
+    public Bits loadHex(CharSequence hex, int numLeadingBitsToSkip) {
+        Preconditions.checkArgument(numLeadingBitsToSkip >= 0 && numLeadingBitsToSkip < BITS_PER_HEX_CHAR);
+        if (hex.length() * BITS_PER_HEX_CHAR - numLeadingBitsToSkip != length) {
+            // message only built on failure so that loading does not allocate
+            throw new IllegalArgumentException("hex length should be "
+                    + (length + numLeadingBitsToSkip + BITS_PER_HEX_CHAR - 1) / BITS_PER_HEX_CHAR);
+        }
+        int n = BITS_PER_HEX_CHAR - numLeadingBitsToSkip;
+        insert(0, Hex.digit(hex.charAt(0)), n);
+        for (int i = 1; i < hex.length(); i++) {
+            insert(n, Hex.digit(hex.charAt(i)), BITS_PER_HEX_CHAR);
+            n += BITS_PER_HEX_CHAR;
+        }
+        pos = 0;
+        return this;
+    }
+
+    /**
+     * Sets all bits to zero and the position to 0. Same restrictions as
+     * {@link #load(byte[], long)}.
+     *
+     * @return this
+     */
+    public Bits clear() {
+        Arrays.fill(words, 0);
+        pos = 0;
+        return this;
+    }
+
+    // reads from exactly one of array and buffer (absolute indexes). The bit
+    // offset is a long because the bit index of a byte past 256MB overflows int.
+    private void fill(byte[] array, ByteBuffer buffer, long bitOffset) {
+        int numBits = length;
+        int i = 0;
+        int index = (int) (bitOffset >>> 3);
+        int shift = (int) (bitOffset & 7);
+        // align to a byte boundary of the source first
+        if (shift != 0 && numBits > 0) {
+            int n = Math.min(8 - shift, numBits);
+            insert(0, (byteAt(array, buffer, index) & 0xFF) >>> (8 - shift - n), n);
+            i = n;
+            index++;
+        }
+        while (i + 8 <= numBits) {
+            insert(i, byteAt(array, buffer, index), 8);
+            i += 8;
+            index++;
+        }
+        if (i < numBits) {
+            insert(i, (byteAt(array, buffer, index) & 0xFF) >>> (8 - numBits + i), numBits - i);
+        }
+        pos = 0;
+    }
+
+    private static byte byteAt(byte[] array, ByteBuffer buffer, int index) {
+        if (array != null) {
+            return array[index];
+        } else {
+            return buffer.get(index);
+        }
     }
 
     public static Bits fromHex(String hex) {
-        return Bits.from(Hex.hexToBinary(hex));
+        return fromHex(hex, 0);
+    }
+
+    /**
+     * Returns the bits of the upper or lower case hex characters in {@code hex}
+     * without the first {@code numLeadingBitsToSkip} bits. Each hex character is
+     * parsed straight into the packed words.
+     *
+     * @param hex                  hex characters
+     * @param numLeadingBitsToSkip number of leading (pad) bits to drop, less than
+     *                             64
+     * @return bits
+     * @throws IllegalArgumentException if {@code hex} contains a non-hex character
+     */
+    public static Bits fromHex(CharSequence hex, int numLeadingBitsToSkip) {
+        int numBits = hex.length() * BITS_PER_HEX_CHAR;
+        Preconditions.checkArgument(numLeadingBitsToSkip >= 0 && numLeadingBitsToSkip < BITS_PER_WORD
+                && numLeadingBitsToSkip <= numBits);
+        long[] words = new long[numWords(numBits)];
+        for (int i = 0; i < hex.length(); i++) {
+            int index = i * BITS_PER_HEX_CHAR;
+            words[index >>> LOG2_BITS_PER_WORD] |= ((long) Hex.digit(hex.charAt(i))) << (BITS_PER_WORD
+                    - BITS_PER_HEX_CHAR - (index & WORD_INDEX_MASK));
+        }
+        int s = numLeadingBitsToSkip;
+        if (s > 0) {
+            for (int i = 0; i < words.length; i++) {
+                long next = i + 1 < words.length ? words[i + 1] : 0;
+                words[i] = (words[i] << s) | (next >>> (BITS_PER_WORD - s));
+            }
+        }
+        int length = numBits - s;
+        return new Bits(Arrays.copyOf(words, numWords(length)), length);
+    }
+
+    private static int numWords(int numBits) {
+        return (numBits + BITS_PER_WORD - 1) >>> LOG2_BITS_PER_WORD;
+    }
+
+    private static long mask(int index) {
+        return 1L << (WORD_INDEX_MASK - (index & WORD_INDEX_MASK));
     }
 
     public Bits concatWith(String bitString) {
@@ -45,13 +261,13 @@ public final class Bits {
     }
 
     public Bits concatWith(Bits b) {
-        boolean[] array = Arrays.copyOf(bits, bits.length + b.bits.length);
-        System.arraycopy(b.bits, 0, array, bits.length, b.bits.length);
-        return Bits.from(array);
+        Bits result = new Bits(Arrays.copyOf(words, numWords(length + b.length)), length + b.length);
+        result.write(length, b);
+        return result;
     }
 
     public Bits position(int position) {
-        Preconditions.checkArgument(position >= 0 && position <= bits.length);
+        Preconditions.checkArgument(position >= 0 && position <= length);
         this.pos = position;
         return this;
     }
@@ -62,11 +278,72 @@ public final class Bits {
     }
 
     public boolean atEnd() {
-        return pos == bits.length;
+        return pos == length;
+    }
+
+    private boolean get(int index) {
+        return (words[index >>> LOG2_BITS_PER_WORD] & mask(index)) != 0;
+    }
+
+    /**
+     * Returns {@code numBits} bits starting at {@code index} right-aligned in a
+     * long. Straddles at most two words.
+     *
+     * @param index   start bit index
+     * @param numBits number of bits to read, between 1 and 64 inclusive
+     * @return bits as an unsigned value
+     */
+    long extract(int index, int numBits) {
+        int w = index >>> LOG2_BITS_PER_WORD;
+        int offset = index & WORD_INDEX_MASK;
+        long v = words[w] << offset;
+        if (offset + numBits > BITS_PER_WORD) {
+            v |= words[w + 1] >>> (BITS_PER_WORD - offset);
+        }
+        return v >>> (BITS_PER_WORD - numBits);
+    }
+
+    /**
+     * Writes the low {@code numBits} bits of {@code value} at {@code index}.
+     * Straddles at most two words.
+     */
+    void insert(int index, long value, int numBits) {
+        int w = index >>> LOG2_BITS_PER_WORD;
+        int offset = index & WORD_INDEX_MASK;
+        long m = -1L >>> (BITS_PER_WORD - numBits);
+        long v = value & m;
+        int shift = BITS_PER_WORD - offset - numBits;
+        if (shift >= 0) {
+            words[w] = (words[w] & ~(m << shift)) | (v << shift);
+        } else {
+            words[w] = (words[w] & ~(m >>> -shift)) | (v >>> -shift);
+            int s = BITS_PER_WORD + shift;
+            words[w + 1] = (words[w + 1] & ~(m << s)) | (v << s);
+        }
+    }
+
+    /**
+     * Copies all of {@code b} into this at {@code index}, a word at a time.
+     */
+    private void write(int index, Bits b) {
+        int i = 0;
+        while (i < b.length) {
+            int n = Math.min(BITS_PER_WORD, b.length - i);
+            insert(index + i, b.extract(i, n), n);
+            i += n;
+        }
     }
 
-    private int value(int index) {
-        return bits[index] ? 1 : 0;
+    /**
+     * Returns the packed word at {@code index}: bits {@code 64 * index} to
+     * {@code 64 * index + 63} most significant bit first (unused bits of the last
+     * word are zero).
+     *
+     * @param index word index
+     * @return packed word
+     */
+    public long word(int index) {
+        return words[index];
     }
 
     /**
@@ -76,63 +353,169 @@ public final class Bits {
      * @return the bits as an integer
      */
     public int readUnsignedInt(int numBits) {
-        Preconditions.checkArgument(numBits > 0);
-        Preconditions.checkArgument(pos + numBits <= bits.length);
-        int result = 0;
-        for (int i = pos; i < pos + numBits; i++) {
-            result = 2 * result + value(i);
-        }
+        return (int) readUnsignedLong(numBits);
+    }
+
+    /**
+     * Assumes the most significant bit is on the left.
+     *
+     * @param numBits number of bits reads (at most 64)
+     * @return the bits as a long
+     */
+    public long readUnsignedLong(int numBits) {
+        Preconditions.checkArgument(numBits > 0 && numBits <= BITS_PER_WORD);
+        Preconditions.checkArgument(pos + numBits <= length);
+        long result = extract(pos, numBits);
         pos += numBits;
         return result;
     }
 
+    /**
+     * Returns the {@code numBits} bits starting at {@code index} as an unsigned
+     * int without changing the position. Assumes the most significant bit is on
+     * the left.
+     *
+     * @param index   index of the first bit
+     * @param numBits number of bits (at most 32)
+     * @return the bits as an integer
+     */
+    public int getUnsignedInt(int index, int numBits) {
+        Preconditions.checkArgument(numBits > 0 && numBits <= 32);
+        Preconditions.checkArgument(index >= 0 && index + numBits <= length);
+        return (int) extract(index, numBits);
+    }
+
+    /**
+     * Returns the {@code numBits} bits starting at {@code index} as an unsigned
+     * long without changing the position. Assumes the most significant bit is on
+     * the left.
+     *
+     * @param index   index of the first bit
+     * @param numBits number of bits (at most 64)
+     * @return the bits as a long
+     */
+    public long getUnsignedLong(int index, int numBits) {
+        Preconditions.checkArgument(numBits > 0 && numBits <= BITS_PER_WORD);
+        Preconditions.checkArgument(index >= 0 && index + numBits <= length);
+        return extract(index, numBits);
+    }
+
+    /**
+     * Returns the bit at {@code index} without changing the position.
+     *
+     * @param index index of the bit
+     * @return true if the bit is 1
+     */
+    public boolean getBoolean(int index) {
+        Preconditions.checkArgument(index >= 0 && index < length);
+        return get(index);
+    }
+
+    /**
+     * Returns a new Bits sharing the content of this but with its own position
+     * (initially 0). Bits content is not changed after construction (other than
+     * by the load methods on caller owned instances) so the duplicate can be read
+     * independently (for example from another thread).
+     *
+     * @return duplicate
+     */
+    public Bits duplicate() {
+        return new Bits(words, length);
+    }
+
     //////////////////////////////////////////////////////////////
     // Modified Baudot parsing
     //////////////////////////////////////////////////////////////
 
     private static final int SHORT_BAUDOT_CODE_BINARY_LENGTH = 5;
     private static final int BAUDOT_CODE_BINARY_LENGTH = 6;
-    
+
+    /**
+     * Value returned by the bulk Baudot reads when all characters were valid.
+     */
+    public static final int ALL_VALID = -1;
+
     public String readBaudotCharactersShort(int numChars) {
-        return readBaudotCharactersShort(numChars, Optional.empty());
+        return readBaudotCharactersShort(numChars, null);
     }
-    
+
     public String readBaudotCharactersShort(int numChars, String context) {
-        return readBaudotCharactersShort(numChars, Optional.ofNullable(context));
-    }
-    
-    private String readBaudotCharactersShort(int numChars, Optional<String> context) {
-        try {
-            StringBuilder s = new StringBuilder();
-            for (int i = 0; i < numChars; i++) {
-                int v = readUnsignedInt(SHORT_BAUDOT_CODE_BINARY_LENGTH);
-                s.append(BaudotCode.toCharFromShortCode(v));
-            }
-            return s.toString();
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException(context.map(x -> x + ": ").orElse("") + e.getMessage(), e);
+        char[] chars = new char[numChars];
+        int invalid = readBaudotCharactersShort(chars, 0, numChars);
+        if (invalid != ALL_VALID) {
+            throw invalidBaudotCode(context, invalid, numChars, SHORT_BAUDOT_CODE_BINARY_LENGTH,
+                    1 << SHORT_BAUDOT_CODE_BINARY_LENGTH);
         }
+        return new String(chars);
     }
 
     public String readBaudotCharacters(int numChars) {
-        return readBaudotCharacters(numChars, (String) null);
+        return readBaudotCharacters(numChars, null);
     }
-    
+
     public String readBaudotCharacters(int numChars, String context) {
-        return readBaudotCharacters(numChars, Optional.ofNullable(context));
+        char[] chars = new char[numChars];
+        int invalid = readBaudotCharacters(chars, 0, numChars);
+        if (invalid != ALL_VALID) {
+            throw invalidBaudotCode(context, invalid, numChars, BAUDOT_CODE_BINARY_LENGTH, 0);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Reads {@code numChars} 6 bit Modified Baudot characters into {@code dest}
+     * starting at {@code offset}. An invalid code is written as
+     * {@link BaudotCode#INVALID}. The position always advances by
+     * {@code numChars} characters.
+     *
+     * @param dest     destination (reusable) buffer
+     * @param offset   index in {@code dest} of the first character
+     * @param numChars number of characters to read
+     * @return index (relative to {@code offset}) of the first invalid character
+     *         or {@link #ALL_VALID}
+     */
+    public int readBaudotCharacters(char[] dest, int offset, int numChars) {
+        return readBaudotCharacters(dest, offset, numChars, BAUDOT_CODE_BINARY_LENGTH, 0);
+    }
+
+    /**
+     * Reads {@code numChars} 5 bit (short) Modified Baudot characters into
+     * {@code dest} starting at {@code offset}. An invalid code is written as
+     * {@link BaudotCode#INVALID}. The position always advances by
+     * {@code numChars} characters.
+     *
+     * @param dest     destination (reusable) buffer
+     * @param offset   index in {@code dest} of the first character
+     * @param numChars number of characters to read
+     * @return index (relative to {@code offset}) of the first invalid character
+     *         or {@link #ALL_VALID}
+     */
+    public int readBaudotCharactersShort(char[] dest, int offset, int numChars) {
+        // a short code is a 6 bit code with a leading 1 bit
+        return readBaudotCharacters(dest, offset, numChars, SHORT_BAUDOT_CODE_BINARY_LENGTH,
+                1 << SHORT_BAUDOT_CODE_BINARY_LENGTH);
     }
-    
-    private String readBaudotCharacters(int numChars, Optional<String> context) {
-        try {
-        StringBuilder s = new StringBuilder();
+
+    private int readBaudotCharacters(char[] dest, int offset, int numChars, int codeLength, int codePrefix) {
+        Preconditions.checkArgument(numChars >= 0 && pos + numChars * codeLength <= length);
+        int invalid = ALL_VALID;
         for (int i = 0; i < numChars; i++) {
-            int v = readUnsignedInt(BAUDOT_CODE_BINARY_LENGTH);
-            s.append(BaudotCode.toChar(v));
-        }
-        return s.toString();
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException(context.map(x -> x + ": ").orElse("") + e.getMessage(), e);
+            char ch = BaudotCode.lookup(codePrefix | (int) extract(pos, codeLength));
+            pos += codeLength;
+            if (ch == BaudotCode.INVALID && invalid == ALL_VALID) {
+                invalid = i;
+            }
+            dest[offset + i] = ch;
         }
+        return invalid;
+    }
+
+    private IllegalArgumentException invalidBaudotCode(String context, int invalidIndex, int numChars,
+            int codeLength, int codePrefix) {
+        int code = codePrefix | (int) extract(pos - (numChars - invalidIndex) * codeLength, codeLength);
+        // same message as BaudotCode.toChar (short codes are reported as 6 bit codes)
+        String message = "character not found for decimal BaudotCode " + code;
+        return new IllegalArgumentException(context == null ? message : context + ": " + message);
     }
 
     //////////////////////////////////////////////////////////////
@@ -140,11 +523,22 @@ public final class Bits {
     public boolean readBoolean() {
         Preconditions.checkArgument(!atEnd(), "already at end");
         pos += 1;
-        return bits[pos - 1];
+        return get(pos - 1);
     }
 
     public String readHex(int numChars) {
-        return Hex.bitStringToHex(readBitString(numChars * BITS_PER_HEX_CHAR));
+        Preconditions.checkArgument(numChars >= 0 && pos + numChars * BITS_PER_HEX_CHAR <= length);
+        String s = toHex(pos, numChars);
+        pos += numChars * BITS_PER_HEX_CHAR;
+        return s;
+    }
+
+    private String toHex(int pos, int numChars) {
+        char[] hex = new char[numChars];
+        for (int i = 0; i < numChars; i++) {
+            hex[i] = Hex.toChar((int) extract(pos + i * BITS_PER_HEX_CHAR, BITS_PER_HEX_CHAR));
+        }
+        return new String(hex);
     }
 
     public String readBitString(int numBits) {
@@ -154,15 +548,15 @@ public final class Bits {
     }
 
     private String readBitsString(int pos, int numBits) {
-        StringBuilder b = new StringBuilder();
+        StringBuilder b = new StringBuilder(numBits);
         for (int i = pos; i < pos + numBits; i++) {
-            b.append(bits[i] ? '1' : '0');
+            b.append(get(i) ? '1' : '0');
         }
         return b.toString();
     }
 
     public boolean isEqualTo(Bits b) {
-        return b != null && b.bits.length == bits.length && Arrays.equals(b.bits, bits);
+        return b != null && b.length == length && Arrays.equals(b.words, words);
     }
 
     public boolean[] readBooleanArray(int numBits) {
@@ -173,17 +567,34 @@ public final class Bits {
 
     private boolean[] readBooleanArray(int pos, int numBits) {
         Preconditions.checkArgument(numBits > 0);
-        Preconditions.checkArgument(pos + numBits <= bits.length);
-        return Arrays.copyOfRange(bits, pos, pos + numBits);
+        Preconditions.checkArgument(pos + numBits <= length);
+        boolean[] b = new boolean[numBits];
+        for (int i = 0; i < numBits; i++) {
+            b[i] = get(pos + i);
+        }
+        return b;
     }
 
     public Bits readBits(int numBits) {
-        return Bits.from(readBooleanArray(numBits));
+        Bits b = copyOfRange(pos, numBits);
+        pos += numBits;
+        return b;
+    }
+
+    private Bits copyOfRange(int pos, int numBits) {
+        Preconditions.checkArgument(numBits > 0);
+        Preconditions.checkArgument(pos + numBits <= length);
+        long[] w = new long[numWords(numBits)];
+        for (int i = 0; i < w.length; i++) {
+            int n = Math.min(BITS_PER_WORD, numBits - i * BITS_PER_WORD);
+            w[i] = extract(pos + i * BITS_PER_WORD, n) << (BITS_PER_WORD - n);
+        }
+        return new Bits(w, numBits);
     }
 
     public boolean isZero() {
-        for (boolean b : bits) {
-            if (b) {
+        for (long w : words) {
+            if (w != 0) {
                 return false;
             }
         }
@@ -195,42 +606,51 @@ public final class Bits {
     }
 
     public int length() {
-        return bits.length;
+        return length;
     }
 
     public String toBitString() {
-        return readBitsString(0, bits.length);
+        return readBitsString(0, length);
     }
 
     public Bits remainderOnPolynomialDivision(Bits divisor) {
         divisor = divisor.trimLeadingZeros();
-        Bits b = new Bits(this.bits);
+        Bits b = new Bits(words.clone(), length);
         int i = 0;
         while (i <= b.length() - divisor.length()) {
-            if (b.bits[i]) {
-                for (int j = i; j < i + divisor.length(); j++) {
-                    b.bits[j] = b.bits[j] ^ divisor.bits[j - i];
-                }
+            if (b.get(i)) {
+                b.xor(i, divisor);
             }
             i++;
         }
         return b;
     }
 
+    /**
+     * Xors all of {@code b} into this at {@code index}, a word at a time.
+     */
+    private void xor(int index, Bits b) {
+        int i = 0;
+        while (i < b.length) {
+            int n = Math.min(BITS_PER_WORD, b.length - i);
+            insert(index + i, extract(index + i, n) ^ b.extract(i, n), n);
+            i += n;
+        }
+    }
+
     public Bits trimLeadingZeros() {
-        int p = bits.length - 1;
-        for (int i = 0; i < bits.length - 1; i++) {
-            if (bits[i]) {
-                p = i;
+        int p = length - 1;
+        for (int i = 0; i < words.length; i++) {
+            if (words[i] != 0) {
+                p = Math.min(p, i * BITS_PER_WORD + Long.numberOfLeadingZeros(words[i]));
                 break;
             }
         }
-        boolean[] b = Arrays.copyOfRange(bits, p, bits.length);
-        return Bits.from(b);
+        return copyOfRange(p, length - p);
     }
 
     public Bits last(int numBits) {
-        return Bits.from(readBooleanArray(length() - numBits, numBits));
+        return copyOfRange(length() - numBits, numBits);
     }
 
     @Override
@@ -239,13 +659,54 @@ public final class Bits {
     }
 
     public Bits replace(int i, Bits b) {
-        boolean[] a = Arrays.copyOf(bits, bits.length);
-        System.arraycopy(b.bits, 0, a, i, b.bits.length);
-        return Bits.from(a);
+        Preconditions.checkArgument(i >= 0 && i + b.length <= length);
+        Bits result = new Bits(words.clone(), length);
+        result.write(i, b);
+        return result;
     }
 
     public String toHex() {
-        return Hex.bitStringToHex(toBitString());
+        Preconditions.checkArgument(length % BITS_PER_HEX_CHAR == 0);
+        return toHex(0, length / BITS_PER_HEX_CHAR);
+    }
+
+    /**
+     * Returns the bits in bytes, preceded by {@code numLeadingZeroBits} zero bits
+     * and followed by zero bits to fill the last byte.
+     *
+     * @param numLeadingZeroBits number of zero bits before the first bit (0 to 7)
+     * @return bytes
+     */
+    public byte[] toBytes(int numLeadingZeroBits) {
+        byte[] bytes = new byte[numBytes(numLeadingZeroBits)];
+        writeBytes(bytes, 0, numLeadingZeroBits);
+        return bytes;
+    }
+
+    /**
+     * Writes the bytes of {@link #toBytes(int)} into {@code dest} starting at
+     * {@code offset} without allocating.
+     *
+     * @param dest               destination
+     * @param offset             index of the first byte written
+     * @param numLeadingZeroBits number of zero bits before the first bit (0 to 7)
+     */
+    public void writeBytes(byte[] dest, int offset, int numLeadingZeroBits) {
+        Preconditions.checkArgument(numLeadingZeroBits >= 0 && numLeadingZeroBits < 8,
+                "numLeadingZeroBits must be between 0 and 7");
+        int numBytes = numBytes(numLeadingZeroBits);
+        Preconditions.checkArgument(offset >= 0 && offset + numBytes <= dest.length, "not enough room in dest");
+        for (int i = 0; i < numBytes; i++) {
+            // bit range of this byte in this Bits
+            int from = Math.max(0, i * 8 - numLeadingZeroBits);
+            int to = Math.min(length, i * 8 + 8 - numLeadingZeroBits);
+            int v = to > from ? (int) extract(from, to - from) : 0;
+            dest[offset + i] = (byte) (v << (i * 8 + 8 - numLeadingZeroBits - to));
+        }
+    }
+
+    private int numBytes(int numLeadingZeroBits) {
+        return (numLeadingZeroBits + length + 7) / 8;
     }
 
 }
@@ -1,10 +1,5 @@
 package au.gov.amsa.sgb.decoder.internal;
 
-import java.util.HashMap;
-import java.util.Locale;
-import java.util.Map;
-import java.util.stream.Collectors;
-
 import com.github.davidmoten.guavamini.Preconditions;
 
 public final class Hex {
@@ -13,50 +8,92 @@ public final class Hex {
         // prevent instantiation
     }
 
-    private static Map<String, String> map = createMap();
-    private static Map<String, String> inverse = createInverse();
-
-    private static Map<String, String> createMap() {
-        Map<String, String> m = new HashMap<>();
-        m.put("0", "0000");
-        m.put("1", "0001");
-        m.put("2", "0010");
-        m.put("3", "0011");
-        m.put("4", "0100");
-        m.put("5", "0101");
-        m.put("6", "0110");
-        m.put("7", "0111");
-        m.put("8", "1000");
-        m.put("9", "1001");
-        m.put("A", "1010");
-        m.put("B", "1011");
-        m.put("C", "1100");
-        m.put("D", "1101");
-        m.put("E", "1110");
-        m.put("F", "1111");
-        return m;
+    private static final char[] HEX_CHARS = "0123456789ABCDEF".toCharArray();
+
+    private static final int INVALID = -1;
+
+    // indexed by char, INVALID if not a hex character (either case)
+    private static final byte[] VALUES = createValues();
+
+    private static byte[] createValues() {
+        byte[] values = new byte[128];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = INVALID;
+        }
+        for (int i = 0; i < HEX_CHARS.length; i++) {
+            values[HEX_CHARS[i]] = (byte) i;
+            values[Character.toLowerCase(HEX_CHARS[i])] = (byte) i;
+        }
+        return values;
+    }
+
+    /**
+     * Returns the value (0 to 15) of an upper or lower case hex character.
+     *
+     * @param ch hex character
+     * @return value of the hex character
+     * @throws IllegalArgumentException if {@code ch} is not a hex character
+     */
+    public static int digit(char ch) {
+        int v = ch < VALUES.length ? VALUES[ch] : INVALID;
+        if (v == INVALID) {
+            throw new IllegalArgumentException("illegal hex character: " + ch);
+        }
+        return v;
+    }
+
+    /**
+     * Returns the index of the first character of {@code s} that is not an upper
+     * or lower case hex character, or -1 if there is none. Does not throw.
+     *
+     * @param s characters to check
+     * @return index of the first non-hex character or -1
+     */
+    public static int indexOfNonHex(CharSequence s) {
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch >= VALUES.length || VALUES[ch] == INVALID) {
+                return i;
+            }
+        }
+        return -1;
     }
 
-    private static Map<String, String> createInverse() {
-        return map.entrySet().stream().collect(Collectors.toMap(entry -> entry.getValue(), entry -> entry.getKey()));
+    /**
+     * Returns the upper case hex character for the lowest 4 bits of
+     * {@code nibble}.
+     *
+     * @param nibble value
+     * @return hex character
+     */
+    public static char toChar(int nibble) {
+        return HEX_CHARS[nibble & 0xF];
     }
 
     public static String hexToBinary(String s) {
-        char[] hex = s.toUpperCase(Locale.ENGLISH).toCharArray();
-        StringBuilder b = new StringBuilder();
-        for (char h : hex) {
-            b.append(map.get(String.valueOf(h)));
+        char[] b = new char[s.length() * 4];
+        for (int i = 0; i < s.length(); i++) {
+            int v = digit(s.charAt(i));
+            for (int j = 0; j < 4; j++) {
+                b[4 * i + j] = (v & (8 >>> j)) == 0 ? '0' : '1';
+            }
         }
-        return b.toString();
+        return new String(b);
     }
 
     public static String bitStringToHex(String bitString) {
         Preconditions.checkArgument(bitString.length() % 4 == 0);
-        StringBuilder b = new StringBuilder();
-        for (int i = 0; i < bitString.length(); i += 4) {
-            b.append(inverse.get(bitString.substring(i, i + 4)));
+        char[] hex = new char[bitString.length() / 4];
+        for (int i = 0; i < hex.length; i++) {
+            int v = 0;
+            for (int j = 0; j < 4; j++) {
+                char ch = bitString.charAt(4 * i + j);
+                Preconditions.checkArgument(ch == '0' || ch == '1', "illegal character in bit string");
+                v = (v << 1) | (ch - '0');
+            }
+            hex[i] = HEX_CHARS[v];
         }
-        return b.toString();
+        return new String(hex);
     }
 
 }
@@ -0,0 +1,137 @@
+package au.gov.amsa.sgb.decoder.internal;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import com.github.davidmoten.guavamini.Preconditions;
+
+/**
+ * Thread-safe size bounded least recently used cache. Keys are split by hash
+ * into stripes, each an access ordered {@link LinkedHashMap} with its own lock
+ * and its share of the capacity (the shares add up to the capacity), so
+ * recency is tracked per stripe. Values are loaded outside the lock.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public final class LruCache<K, V> {
+
+    private static final int MAX_STRIPES = 16;
+
+    private final int capacity;
+    private final Stripe<K, V>[] stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public LruCache(int capacity) {
+        Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+        this.capacity = capacity;
+        int numStripes = Math.min(MAX_STRIPES, Integer.highestOneBit(capacity));
+        this.stripes = new Stripe[numStripes];
+        int remainder = capacity % numStripes;
+        for (int i = 0; i < numStripes; i++) {
+            stripes[i] = new Stripe<>(capacity / numStripes + (i < remainder ? 1 : 0), evictions);
+        }
+    }
+
+    private Stripe<K, V> stripe(K key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    /**
+     * Returns the cached value for {@code key} or loads, caches and returns it.
+     * If two threads load the same key at once the first value cached wins.
+     *
+     * @param key    key
+     * @param loader called on a miss, must not return null
+     * @return value
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Stripe<K, V> stripe = stripe(key);
+        V v = stripe.get(key);
+        if (v != null) {
+            hits.increment();
+            return v;
+        }
+        misses.increment();
+        V loaded = Preconditions.checkNotNull(loader.apply(key), "loader returned null");
+        return stripe.putIfAbsent(key, loaded);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        int n = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            n += stripe.size();
+        }
+        return n;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public void clear() {
+        for (Stripe<K, V> stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    private static final class Stripe<K, V> {
+
+        private final int capacity;
+        private final LongAdder evictions;
+        // access ordered so iteration starts at the least recently used
+        private final LinkedHashMap<K, V> map = new LinkedHashMap<>(16, 0.75f, true);
+
+        Stripe(int capacity, LongAdder evictions) {
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        synchronized V get(K key) {
+            return map.get(key);
+        }
+
+        synchronized V putIfAbsent(K key, V value) {
+            V existing = map.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            map.put(key, value);
+            if (map.size() > capacity) {
+                Iterator<K> it = map.keySet().iterator();
+                it.next();
+                it.remove();
+                evictions.increment();
+            }
+            return value;
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+
+        synchronized void clear() {
+            map.clear();
+        }
+    }
+
+}
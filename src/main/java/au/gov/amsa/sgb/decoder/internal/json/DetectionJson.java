@@ -0,0 +1,386 @@
+package au.gov.amsa.sgb.decoder.internal.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.OffsetTime;
+import java.util.Optional;
+
+import com.fasterxml.jackson.core.ErrorReportConfiguration;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.core.StreamWriteConstraints;
+import com.fasterxml.jackson.core.io.ContentReference;
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.json.UTF8JsonGenerator;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+
+import au.gov.amsa.sgb.decoder.Beacon23HexId;
+import au.gov.amsa.sgb.decoder.Detection;
+import au.gov.amsa.sgb.decoder.EncodedGnssPosition;
+import au.gov.amsa.sgb.decoder.FieldSet;
+import au.gov.amsa.sgb.decoder.rotatingfield.BeaconFeedback;
+import au.gov.amsa.sgb.decoder.rotatingfield.Cancellation;
+import au.gov.amsa.sgb.decoder.rotatingfield.EltDtInFlightEmergency;
+import au.gov.amsa.sgb.decoder.rotatingfield.NationalUse;
+import au.gov.amsa.sgb.decoder.rotatingfield.ObjectiveRequirements;
+import au.gov.amsa.sgb.decoder.rotatingfield.Range;
+import au.gov.amsa.sgb.decoder.rotatingfield.RangeEnd;
+import au.gov.amsa.sgb.decoder.rotatingfield.Rls;
+import au.gov.amsa.sgb.decoder.rotatingfield.RotatingField;
+import au.gov.amsa.sgb.decoder.rotatingfield.UnknownRotatingField;
+import au.gov.amsa.sgb.decoder.vesselid.AircraftOperatorAndSerialNumber;
+import au.gov.amsa.sgb.decoder.vesselid.AircraftRegistrationMarking;
+import au.gov.amsa.sgb.decoder.vesselid.Aviation24BitAddress;
+import au.gov.amsa.sgb.decoder.vesselid.Mmsi;
+import au.gov.amsa.sgb.decoder.vesselid.RadioCallSign;
+import au.gov.amsa.sgb.decoder.vesselid.VesselId;
+
+/**
+ * Hand-written {@link JsonGenerator} serialization of {@link Detection},
+ * {@link Beacon23HexId} and their rotating fields and vessel ids. The output is
+ * byte-identical to {@link Json#toJson(Object)} (and to
+ * {@link Json#prettyPrint(String)} of that when pretty) but does not use
+ * reflection or build an intermediate String.
+ *
+ * <p>
+ * Fields are written in declaration order and absent {@link Optional} values
+ * are omitted, as the reflection based mapper does. {@link OffsetTime} values
+ * are written as the same timestamp array as the mapper's
+ * {@code JavaTimeModule} writes. The {@link Detection} writers optionally
+ * write only the fields selected by a {@link FieldSet}.
+ */
+public final class DetectionJson {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private DetectionJson() {
+        // prevent instantiation
+    }
+
+    public static JsonGenerator createGenerator(OutputStream out, boolean pretty) {
+        try {
+            return configure(FACTORY.createGenerator(out, JsonEncoding.UTF8), pretty);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns a compact UTF-8 generator that encodes into {@code buffer} and
+     * hands it to {@code out} (as {@code out.write(buffer, 0, n)}) each time
+     * the next value does not fit and on flush, so no other buffer is involved.
+     * The buffer should be at least 512 bytes.
+     *
+     * @param out    receives the contents of the buffer
+     * @param buffer encoding buffer, owned by the generator until closed
+     * @return generator
+     */
+    public static JsonGenerator createGenerator(OutputStream out, byte[] buffer) {
+        IOContext context = new IOContext(StreamReadConstraints.defaults(), StreamWriteConstraints.defaults(),
+                ErrorReportConfiguration.defaults(), new BufferRecycler(), ContentReference.rawReference(out), false);
+        context.setEncoding(JsonEncoding.UTF8);
+        return configure(new UTF8JsonGenerator(context, FACTORY.getGeneratorFeatures(), null, out,
+                JsonFactory.DEFAULT_QUOTE_CHAR, buffer, 0, false), false);
+    }
+
+    public static JsonGenerator createGenerator(Writer writer, boolean pretty) {
+        try {
+            return configure(FACTORY.createGenerator(writer), pretty);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static JsonGenerator configure(JsonGenerator g, boolean pretty) {
+        // the caller owns the stream
+        g.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        if (pretty) {
+            g.setPrettyPrinter(new DefaultPrettyPrinter());
+        }
+        return g;
+    }
+
+    public static void write(Beacon23HexId b, OutputStream out, boolean pretty) {
+        try (JsonGenerator g = createGenerator(out, pretty)) {
+            write(b, g);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void write(Beacon23HexId b, Writer writer, boolean pretty) {
+        try (JsonGenerator g = createGenerator(writer, pretty)) {
+            write(b, g);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static String toJson(Detection d) {
+        return toJson(d, FieldSet.all());
+    }
+
+    public static String toJson(Detection d, FieldSet fields) {
+        StringWriter w = new StringWriter(1024);
+        write(d, fields, w, false);
+        return w.toString();
+    }
+
+    public static String toJson(Beacon23HexId b) {
+        StringWriter w = new StringWriter(256);
+        write(b, w, false);
+        return w.toString();
+    }
+
+    public static void write(Detection d, FieldSet fields, OutputStream out, boolean pretty) {
+        try (JsonGenerator g = createGenerator(out, pretty)) {
+            write(d, fields, g);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void write(Detection d, FieldSet fields, Writer writer, boolean pretty) {
+        try (JsonGenerator g = createGenerator(writer, pretty)) {
+            write(d, fields, g);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void write(Detection d, JsonGenerator g) throws IOException {
+        write(d, FieldSet.all(), g);
+    }
+
+    public static void write(Detection d, FieldSet f, JsonGenerator g) throws IOException {
+        g.writeStartObject();
+        writeNumberField(g, f, "tac", d.tac());
+        writeNumberField(g, f, "serialNo", d.serialNo());
+        writeNumberField(g, f, "countryCode", d.countryCode());
+        writeBooleanField(g, f, "hasAtLeastOneEnabledHomingSignal", d.hasAtLeastOneEnabledHomingSignal());
+        writeBooleanField(g, f, "hasEnabledRls", d.hasEnabledRls());
+        writeBooleanField(g, f, "testProtocolMessage", d.isTestProtocolMessage());
+        if (d.encodedGnssPosition().isPresent() && f.contains("encodedGnssPosition")) {
+            EncodedGnssPosition p = d.encodedGnssPosition().get();
+            FieldSet pf = f.field("encodedGnssPosition");
+            g.writeFieldName("encodedGnssPosition");
+            g.writeStartObject();
+            if (pf.contains("lat")) {
+                g.writeNumberField("lat", p.lat());
+            }
+            if (pf.contains("lon")) {
+                g.writeNumberField("lon", p.lon());
+            }
+            g.writeEndObject();
+        }
+        if (d.vesselId().isPresent() && f.contains("vesselId")) {
+            g.writeFieldName("vesselId");
+            write(d.vesselId().get(), f.field("vesselId"), g);
+        }
+        writeStringField(g, f, "beaconType", d.beaconType().name());
+        if (f.contains("rotatingField")) {
+            g.writeFieldName("rotatingField");
+            write(d.rotatingField(), f.field("rotatingField"), g);
+        }
+        writeStringField(g, f, "beacon23HexId", d.beacon23HexId());
+        writeStringField(g, f, "beacon15HexId", d.beacon15HexId());
+        g.writeEndObject();
+    }
+
+    public static void write(Beacon23HexId b, JsonGenerator g) throws IOException {
+        g.writeStartObject();
+        g.writeNumberField("countryCode", b.countryCode());
+        g.writeNumberField("tac", b.tac());
+        if (b.tacDescription().isPresent()) {
+            g.writeStringField("tacDescription", b.tacDescription().get());
+        }
+        g.writeNumberField("serialNumber", b.serialNumber());
+        g.writeBooleanField("testProtocolFlag", b.testProtocolFlag());
+        if (b.vesselId().isPresent()) {
+            g.writeFieldName("vesselId");
+            write(b.vesselId().get(), g);
+        }
+        g.writeEndObject();
+    }
+
+    public static void write(VesselId v, JsonGenerator g) throws IOException {
+        write(v, FieldSet.all(), g);
+    }
+
+    public static void write(VesselId v, FieldSet f, JsonGenerator g) throws IOException {
+        g.writeStartObject();
+        writeStringField(g, f, "vesselIdType", v.vesselIdType().name());
+        if (v instanceof Mmsi) {
+            Mmsi m = (Mmsi) v;
+            writeOptionalIntField(g, f, "mmsi", m.mmsi());
+            writeOptionalIntField(g, f, "epirbMmsi", m.epirbMmsi());
+        } else if (v instanceof RadioCallSign) {
+            writeOptionalStringField(g, f, "value", ((RadioCallSign) v).value());
+        } else if (v instanceof AircraftRegistrationMarking) {
+            writeOptionalStringField(g, f, "value", ((AircraftRegistrationMarking) v).value());
+        } else if (v instanceof Aviation24BitAddress) {
+            Aviation24BitAddress a = (Aviation24BitAddress) v;
+            writeStringField(g, f, "addressHex", a.addressHex());
+            writeOptionalStringField(g, f, "aircraftOperatorDesignator", a.aircraftOperatorDesignator());
+        } else if (v instanceof AircraftOperatorAndSerialNumber) {
+            AircraftOperatorAndSerialNumber a = (AircraftOperatorAndSerialNumber) v;
+            writeStringField(g, f, "aircraftOperatorDesignator", a.aircraftOperatorDesignator());
+            writeNumberField(g, f, "serialNumber", a.serialNumber());
+        } else {
+            throw new IllegalArgumentException("unsupported vessel id type: " + v.getClass().getName());
+        }
+        g.writeEndObject();
+    }
+
+    public static void write(RotatingField r, JsonGenerator g) throws IOException {
+        write(r, FieldSet.all(), g);
+    }
+
+    public static void write(RotatingField r, FieldSet f, JsonGenerator g) throws IOException {
+        g.writeStartObject();
+        writeStringField(g, f, "rotatingFieldType", r.rotatingFieldType().name());
+        if (r instanceof ObjectiveRequirements) {
+            ObjectiveRequirements o = (ObjectiveRequirements) r;
+            writeNumberField(g, f, "elapsedTimeSinceActivationHours", o.elapsedTimeSinceActivationHours());
+            writeNumberField(g, f, "timeSinceLastEncodedLocationMinutes", o.timeSinceLastEncodedLocationMinutes());
+            writeNumberField(g, f, "altitudeEncodedLocationMetres", o.altitudeEncodedLocationMetres());
+            writeOptionalRangeField(g, f, "dilutionPrecisionHdop", o.dilutionPrecisionHdop());
+            writeOptionalRangeField(g, f, "dilutionPrecisionVdop", o.dilutionPrecisionDop());
+            writeStringField(g, f, "activationMethod", o.activationMethod().name());
+            writeOptionalRangeField(g, f, "remainingBatteryCapacityPercent", o.remainingBatteryCapacityPercent());
+            writeStringField(g, f, "gnssStatus", o.gnssStatus().name());
+        } else if (r instanceof EltDtInFlightEmergency) {
+            EltDtInFlightEmergency e = (EltDtInFlightEmergency) r;
+            if (f.contains("timeOfLastEncodedLocation")) {
+                g.writeFieldName("timeOfLastEncodedLocation");
+                write(e.timeOfLastEncodedLocation(), g);
+            }
+            writeNumberField(g, f, "altitudeEncodedLocationMetres", e.altitudeEncodedLocationMetres());
+            writeStringField(g, f, "triggeringEvent", e.triggeringEvent().name());
+            writeStringField(g, f, "gnssStatus", e.gnssStatus().name());
+            writeOptionalRangeField(g, f, "remainingBatteryCapacityPercent", e.remainingBatteryCapacityPercent());
+        } else if (r instanceof Rls) {
+            Rls rls = (Rls) r;
+            writeBooleanField(g, f, "canProcessAutomaticallyGeneratedAckRlmType1",
+                    rls.canProcessAutomaticallyGeneratedAckRlmType1());
+            writeBooleanField(g, f, "canProcessManuallyGeneratedRlm", rls.canProcessManuallyGeneratedRlm());
+            writeStringField(g, f, "rlsProvider", rls.rlsProvider().name());
+            if (rls.beaconFeedback().isPresent() && f.contains("beaconFeedback")) {
+                g.writeFieldName("beaconFeedback");
+                write(rls.beaconFeedback().get(), f.field("beaconFeedback"), g);
+            }
+        } else if (r instanceof Cancellation) {
+            writeStringField(g, f, "deactivationMethod", ((Cancellation) r).deactivationMethod().name());
+        } else if (r instanceof NationalUse) {
+            writeStringField(g, f, "bitString", ((NationalUse) r).bitString());
+        } else if (r instanceof UnknownRotatingField) {
+            writeStringField(g, f, "bitString", ((UnknownRotatingField) r).bitString());
+        } else {
+            throw new IllegalArgumentException("unsupported rotating field type: " + r.getClass().getName());
+        }
+        g.writeEndObject();
+    }
+
+    private static void write(BeaconFeedback b, FieldSet f, JsonGenerator g) throws IOException {
+        g.writeStartObject();
+        writeBooleanField(g, f, "rlmType1FeedbackReceived", b.rlmType1FeedbackReceived());
+        writeBooleanField(g, f, "rlmType2FeedbackReceived", b.rlmType2FeedbackReceived());
+        writeStringField(g, f, "rlsType", b.rlsType().name());
+        writeOptionalStringField(g, f, "shortRlmParametersBitString", b.shortRlmParametersBitString());
+        g.writeEndObject();
+    }
+
+    private static void write(Range range, FieldSet f, JsonGenerator g) throws IOException {
+        g.writeStartObject();
+        writeOptionalRangeEndField(g, f, "min", range.min());
+        writeOptionalRangeEndField(g, f, "max", range.max());
+        g.writeEndObject();
+    }
+
+    /**
+     * Writes the same array as the {@code JavaTimeModule} serializer with
+     * timestamps enabled: hour, minute, then second (and nanos) only if non-zero,
+     * then the offset id.
+     */
+    private static void write(OffsetTime t, JsonGenerator g) throws IOException {
+        g.writeStartArray();
+        g.writeNumber(t.getHour());
+        g.writeNumber(t.getMinute());
+        int second = t.getSecond();
+        int nano = t.getNano();
+        if (second > 0 || nano > 0) {
+            g.writeNumber(second);
+            if (nano > 0) {
+                g.writeNumber(nano);
+            }
+        }
+        g.writeString(t.getOffset().toString());
+        g.writeEndArray();
+    }
+
+    private static void writeNumberField(JsonGenerator g, FieldSet f, String name, int value) throws IOException {
+        if (f.contains(name)) {
+            g.writeNumberField(name, value);
+        }
+    }
+
+    private static void writeBooleanField(JsonGenerator g, FieldSet f, String name, boolean value)
+            throws IOException {
+        if (f.contains(name)) {
+            g.writeBooleanField(name, value);
+        }
+    }
+
+    private static void writeStringField(JsonGenerator g, FieldSet f, String name, String value)
+            throws IOException {
+        if (f.contains(name)) {
+            g.writeStringField(name, value);
+        }
+    }
+
+    private static void writeOptionalRangeField(JsonGenerator g, FieldSet f, String name, Optional<Range> value)
+            throws IOException {
+        if (value.isPresent() && f.contains(name)) {
+            g.writeFieldName(name);
+            write(value.get(), f.field(name), g);
+        }
+    }
+
+    private static void writeOptionalRangeEndField(JsonGenerator g, FieldSet f, String name,
+            Optional<RangeEnd> value) throws IOException {
+        if (value.isPresent() && f.contains(name)) {
+            RangeEnd end = value.get();
+            FieldSet ef = f.field(name);
+            g.writeFieldName(name);
+            g.writeStartObject();
+            if (ef.contains("value")) {
+                g.writeNumberField("value", end.value());
+            }
+            if (ef.contains("exclusive")) {
+                g.writeBooleanField("exclusive", end.isExclusive());
+            }
+            g.writeEndObject();
+        }
+    }
+
+    private static void writeOptionalStringField(JsonGenerator g, FieldSet f, String name, Optional<String> value)
+            throws IOException {
+        if (value.isPresent() && f.contains(name)) {
+            g.writeStringField(name, value.get());
+        }
+    }
+
+    private static void writeOptionalIntField(JsonGenerator g, FieldSet f, String name, Optional<Integer> value)
+            throws IOException {
+        if (value.isPresent() && f.contains(name)) {
+            g.writeNumberField(name, value.get());
+        }
+    }
+
+}
@@ -2,6 +2,8 @@ package au.gov.amsa.sgb.decoder;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 
@@ -51,4 +53,28 @@ public class Beacon23HexIdTest {
         assertEquals("J1234", r.value().get());
     }
 
+    @Test
+    public void testCached() {
+        Beacon23HexId.setCacheCapacity(100);
+        Beacon23HexId a = Beacon23HexId.cached("ADF7DA6D7092E33BA475940");
+        assertSame(a, Beacon23HexId.cached("adf7da6d7092e33ba475940"));
+        assertEquals(Beacon23HexId.fromHex("ADF7DA6D7092E33BA475940").toJson(), a.toJson());
+        CacheStatistics s = Beacon23HexId.cacheStatistics();
+        assertEquals(100, s.capacity());
+        assertEquals(1, s.size());
+        assertEquals(1, s.hitCount());
+        assertEquals(1, s.missCount());
+        assertEquals(0, s.evictionCount());
+        assertEquals(0.5, s.hitRate(), 0.0001);
+        assertTrue(s.toString().contains("hitCount=1"));
+        Beacon23HexId.setCacheCapacity(Beacon23HexId.DEFAULT_CACHE_CAPACITY);
+        assertEquals(0, Beacon23HexId.cacheStatistics().size());
+        assertEquals(0, Beacon23HexId.cacheStatistics().hitRate(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCachedWrongLength() {
+        Beacon23HexId.cached("123");
+    }
+
 }
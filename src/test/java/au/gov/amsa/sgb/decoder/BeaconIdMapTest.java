@@ -0,0 +1,78 @@
+package au.gov.amsa.sgb.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BeaconIdMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        BeaconIdMap<String> map = new BeaconIdMap<>();
+        assertTrue(map.isEmpty());
+        BeaconId id = BeaconId.fromHex("9934039823D000000000000");
+        assertNull(map.put(id, "a"));
+        assertEquals("a", map.get(id));
+        assertEquals("a", map.get(id.beacon15Bits(), id.remainingBits()));
+        assertTrue(map.containsKey(id));
+        assertEquals("a", map.put(id, "b"));
+        assertEquals(1, map.size());
+        assertEquals("b", map.remove(id));
+        assertNull(map.remove(id));
+        assertFalse(map.containsKey(id));
+        assertEquals(0, map.size());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testPutNullValue() {
+        new BeaconIdMap<String>().put(BeaconId.fromBits(1, 2), null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeExpectedSize() {
+        new BeaconIdMap<String>(-1);
+    }
+
+    @Test
+    public void testAgainstHashMap() {
+        Random r = new Random(789);
+        BeaconIdMap<Integer> map = new BeaconIdMap<>(4);
+        Map<BeaconId, Integer> expected = new HashMap<>();
+        List<BeaconId> keys = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            // clustered keys so that probe runs collide
+            keys.add(BeaconId.fromBits(r.nextInt(64), r.nextInt(64)));
+        }
+        for (int i = 0; i < 50000; i++) {
+            BeaconId key = keys.get(r.nextInt(keys.size()));
+            int op = r.nextInt(3);
+            if (op == 0) {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            } else if (op == 1) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (BeaconId key : keys) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        Map<BeaconId, Integer> copy = new HashMap<>();
+        map.forEach(copy::put);
+        assertEquals(expected, copy);
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(keys.get(0)));
+    }
+
+}
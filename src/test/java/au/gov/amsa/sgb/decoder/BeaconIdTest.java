@@ -0,0 +1,92 @@
+package au.gov.amsa.sgb.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BeaconIdTest {
+
+    private static final String HEX = "9934039823D000000000000";
+
+    @Test
+    public void testFromHexRoundTrip() {
+        BeaconId id = BeaconId.fromHex(HEX);
+        assertEquals(HEX, id.beacon23HexId());
+        assertEquals("9934039823D0000", id.beacon15HexId());
+        assertEquals(HEX, id.toString());
+        assertEquals(0x9934039823D0000L, id.beacon15Bits());
+        assertEquals(0, id.remainingBits());
+    }
+
+    @Test
+    public void testFromHexCaseInsensitive() {
+        assertEquals(BeaconId.fromHex("ADF7DA6D7092E33BA475940"), BeaconId.fromHex("adf7da6d7092e33ba475940"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromHexWrongLength() {
+        BeaconId.fromHex("123");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromBitsTooLarge() {
+        BeaconId.fromBits(1L << 60, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromBitsRemainingTooLarge() {
+        BeaconId.fromBits(0, 1L << 32);
+    }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        BeaconId a = BeaconId.fromHex(HEX);
+        BeaconId b = BeaconId.fromBits(a.beacon15Bits(), a.remainingBits());
+        assertEquals(a, a);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, BeaconId.fromBits(a.beacon15Bits(), 1));
+        assertNotEquals(a, BeaconId.fromBits(0, a.remainingBits()));
+        assertFalse(a.equals(HEX));
+    }
+
+    @Test
+    public void testCompareToConsistentWithHexOrdering() {
+        Random r = new Random(123);
+        for (int i = 0; i < 1000; i++) {
+            BeaconId a = random(r);
+            BeaconId b = i % 10 == 0 ? BeaconId.fromBits(a.beacon15Bits(), r.nextInt() & 0xFFFFFFFFL) : random(r);
+            int expected = Integer.signum(a.beacon23HexId().compareTo(b.beacon23HexId()));
+            assertEquals(expected, Integer.signum(a.compareTo(b)));
+            assertEquals(a, BeaconId.fromHex(a.beacon23HexId()));
+        }
+    }
+
+    @Test
+    public void testFromDetection() {
+        Detection d = Detection.fromHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX);
+        assertEquals(BeaconId.fromHex(d.beacon23HexId()), d.beaconId());
+        assertEquals(d.beacon15HexId(), d.beaconId().beacon15HexId());
+        Detection d2 = Detection.from(DetectionTest.createBitsWithVesselIdFieldMmsi());
+        assertEquals(BeaconId.fromHex(d2.beacon23HexId()), d2.beaconId());
+        assertEquals(d2.beaconId(),
+                DetectionView.fromBitString(DetectionTest.createBitsWithVesselIdFieldMmsi().toBitString()).beaconId());
+    }
+
+    @Test
+    public void testFromBeacon23HexId() {
+        String hex = "ADF7DA6D7092E33BA475940";
+        assertEquals(BeaconId.fromHex(hex), Beacon23HexId.fromHex(hex).beaconId());
+        assertTrue(Beacon23HexId.fromHex(hex).toJson().indexOf("beaconId") == -1);
+    }
+
+    private static BeaconId random(Random r) {
+        return BeaconId.fromBits(r.nextLong() >>> 4, r.nextInt() & 0xFFFFFFFFL);
+    }
+
+}
@@ -0,0 +1,166 @@
+package au.gov.amsa.sgb.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import au.gov.amsa.sgb.decoder.internal.Bits;
+
+public class CachingDetectionDecoderTest {
+
+    @Test
+    public void testHitReturnsSameInstance() {
+        CachingDetectionDecoder c = new CachingDetectionDecoder(100, 1, TimeUnit.MINUTES);
+        Detection a = c.fromHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX);
+        Detection b = c.fromHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX.toLowerCase());
+        assertSame(a, b);
+        assertEquals(1, c.hitCount());
+        assertEquals(1, c.missCount());
+        assertEquals(1, c.size());
+        assertEquals(Detection.fromHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX).toJson(), a.toJson());
+    }
+
+    @Test
+    public void testSizeBounded() {
+        CachingDetectionDecoder c = new CachingDetectionDecoder(4, 1, TimeUnit.MINUTES);
+        for (int i = 0; i < 100; i++) {
+            c.fromHexGroundSegmentRepresentation(hex(i));
+        }
+        assertTrue(c.size() <= 4);
+        assertEquals(100, c.missCount());
+        assertEquals(100 - c.size(), c.evictionCount());
+    }
+
+    @Test
+    public void testSizeRemainderSpreadAcrossStripes() {
+        // 16 stripes, four of them with room for an extra entry
+        CachingDetectionDecoder c = new CachingDetectionDecoder(20, 1, TimeUnit.MINUTES);
+        for (int i = 0; i < 1000; i++) {
+            c.fromHexGroundSegmentRepresentation(hex(i));
+        }
+        assertEquals(20, c.size());
+        assertEquals(1000 - 20, c.evictionCount());
+    }
+
+    @Test
+    public void testOldestEvictedFirst() {
+        // a single stripe
+        CachingDetectionDecoder c = new CachingDetectionDecoder(1, 1, TimeUnit.MINUTES);
+        Detection a = c.fromHexGroundSegmentRepresentation(hex(1));
+        c.fromHexGroundSegmentRepresentation(hex(2));
+        assertEquals(1, c.evictionCount());
+        assertNotSame(a, c.fromHexGroundSegmentRepresentation(hex(1)));
+        assertEquals(3, c.missCount());
+    }
+
+    @Test
+    public void testExpiry() {
+        AtomicLong now = new AtomicLong();
+        CachingDetectionDecoder c = new CachingDetectionDecoder(100, 10, now::get);
+        Detection a = c.fromHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX);
+        now.set(9);
+        assertSame(a, c.fromHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX));
+        now.set(10);
+        Detection b = c.fromHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX);
+        assertNotSame(a, b);
+        assertEquals(1, c.hitCount());
+        assertEquals(2, c.missCount());
+        assertEquals(0, c.evictionCount());
+        assertEquals(1, c.size());
+    }
+
+    @Test
+    public void testExpiredEntryDroppedNotEvicted() {
+        AtomicLong now = new AtomicLong();
+        // a single stripe
+        CachingDetectionDecoder c = new CachingDetectionDecoder(1, 10, now::get);
+        c.fromHexGroundSegmentRepresentation(hex(1));
+        now.set(10);
+        Detection b = c.fromHexGroundSegmentRepresentation(hex(2));
+        assertEquals(0, c.evictionCount());
+        assertEquals(1, c.size());
+        assertSame(b, c.fromHexGroundSegmentRepresentation(hex(2)));
+    }
+
+    @Test
+    public void testReplacedExpiredEntryNotEvictedTwice() {
+        AtomicLong now = new AtomicLong();
+        // a single stripe
+        CachingDetectionDecoder c = new CachingDetectionDecoder(1, 10, now::get);
+        c.fromHexGroundSegmentRepresentation(hex(1));
+        now.set(10);
+        Detection a = c.fromHexGroundSegmentRepresentation(hex(1));
+        now.set(11);
+        assertSame(a, c.fromHexGroundSegmentRepresentation(hex(1)));
+        c.fromHexGroundSegmentRepresentation(hex(2));
+        assertEquals(1, c.evictionCount());
+        assertEquals(1, c.size());
+        assertEquals(3, c.missCount());
+    }
+
+    @Test
+    public void testClear() {
+        CachingDetectionDecoder c = new CachingDetectionDecoder(100, 1, TimeUnit.MINUTES);
+        c.fromHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX);
+        c.clear();
+        assertEquals(0, c.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongHexLength() {
+        new CachingDetectionDecoder(100, 1, TimeUnit.MINUTES).fromHexGroundSegmentRepresentation("00");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxSizeMustBePositive() {
+        new CachingDetectionDecoder(0, 1, TimeUnit.MINUTES);
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        CachingDetectionDecoder c = new CachingDetectionDecoder(64, 1, TimeUnit.MINUTES);
+        List<String> hexes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            hexes.add(hex(i));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        String hex = hexes.get(i % hexes.size());
+                        Detection d = c.fromHexGroundSegmentRepresentation(hex);
+                        assertEquals(Detection.fromHexGroundSegmentRepresentation(hex).beacon23HexId(),
+                                d.beacon23HexId());
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(4000, c.hitCount() + c.missCount());
+        assertTrue(c.size() <= 20);
+    }
+
+    // sample detection with the given serial number
+    private static String hex(int serialNo) {
+        Bits b = Bits.from(DetectionTest.BITS).replace(16, Bits.from(serialNo, 14));
+        return Bits.from("00").concatWith(b).toHex();
+    }
+
+}
@@ -0,0 +1,100 @@
+package au.gov.amsa.sgb.decoder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.davidmoten.junit.Asserts;
+
+import au.gov.amsa.sgb.decoder.internal.json.Json;
+
+public class CborTest {
+
+    private static final List<String> DETECTIONS = Arrays.asList(
+            "0039823D32618658622811F0000000000003FFF004030680258",
+            "0039823D32618658622811F23ADE68AA17E3FFF004030680258",
+            "0039823D32618658622811FB7AC403C00003FFF004030680258",
+            "0039823D32618658622811F725F2B1C67703FFF004030680258");
+
+    private static final List<String> BEACON_23_HEX_IDS = Arrays.asList("9977DA6D709000000000000",
+            "ADF587AA62B157AE36DC552", "A2F669AB2D930E18709B40C", "ADF68E50F4B47C5D5700000",
+            "A794B4C00872E33B9D64A04", "9A749FFF0395CB3D62BBFFF");
+
+    @Test
+    public void isUtilityClass() {
+        Asserts.assertIsUtilityClass(Cbor.class);
+    }
+
+    @Test
+    public void testDetectionRoundTripToSameJson() {
+        for (String hex : DETECTIONS) {
+            Detection d = Detection.fromHexGroundSegmentRepresentation(hex);
+            byte[] cbor = d.toCbor();
+            assertEquals(d.toJson(), Cbor.toJson(cbor));
+            assertEquals(Json.prettyPrint(d.toJson()), Cbor.toJson(cbor, true));
+            assertTrue(cbor.length < d.toJson().getBytes(StandardCharsets.UTF_8).length);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            d.writeCbor(out);
+            assertArrayEquals(cbor, out.toByteArray());
+        }
+    }
+
+    @Test
+    public void testRandomDetectionsRoundTripToSameJson() {
+        Random random = new Random(6789);
+        int count = 0;
+        for (int i = 0; i < 1000; i++) {
+            char[] bits = new char[202];
+            for (int j = 0; j < bits.length; j++) {
+                bits[j] = random.nextBoolean() ? '1' : '0';
+            }
+            Detection d;
+            try {
+                d = Detection.fromBitString(new String(bits));
+            } catch (RuntimeException e) {
+                continue;
+            }
+            assertEquals(d.toJson(), Cbor.toJson(d.toCbor()));
+            count++;
+        }
+        assertTrue(count > 500);
+    }
+
+    @Test
+    public void testBeacon23HexIdRoundTripToSameJson() {
+        for (String hex : BEACON_23_HEX_IDS) {
+            Beacon23HexId b = Beacon23HexId.fromHex(hex);
+            assertEquals(b.toJson(), Cbor.toJson(b.toCbor()));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            b.writeCbor(out);
+            assertArrayEquals(b.toCbor(), out.toByteArray());
+        }
+    }
+
+    @Test
+    public void testProjection() {
+        Detection d = Detection.fromHexGroundSegmentRepresentation(DETECTIONS.get(1));
+        FieldSet fields = FieldSet.of("/beacon15HexId", "/rotatingField/rotatingFieldType");
+        assertEquals(d.toJson(fields), Cbor.toJson(d.toCbor(fields)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmpty() {
+        Cbor.toJson(new byte[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncated() {
+        byte[] cbor = Detection.fromHexGroundSegmentRepresentation(DETECTIONS.get(0)).toCbor();
+        Cbor.toJson(Arrays.copyOf(cbor, cbor.length / 2));
+    }
+
+}
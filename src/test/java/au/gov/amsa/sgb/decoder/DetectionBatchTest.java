@@ -0,0 +1,141 @@
+package au.gov.amsa.sgb.decoder;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.junit.Test;
+
+import au.gov.amsa.sgb.decoder.internal.Bits;
+import au.gov.amsa.sgb.decoder.internal.json.Json;
+
+public class DetectionBatchTest {
+
+    private static final Bits[] SAMPLES = new Bits[] { Bits.from(DetectionTest.BITS),
+            DetectionTest.createBitsWithVesselIdFieldMmsi(),
+            DetectionTest.createBitsWithVesselIdFieldAircraftOperatorAndSerialNumber(),
+            DetectionTest.createBitsWithVesselIdFieldAircraftRegistrationMarkingVhAbc(),
+            Bits.fromHex(DetectionTest.SAMPLE_HEX, 2) };
+
+    @Test
+    public void testDecodeByteArrays() {
+        byte[][] messages = new byte[SAMPLES.length + 1][];
+        for (int i = 0; i < SAMPLES.length; i++) {
+            messages[i] = toBytes(SAMPLES[i]);
+        }
+        // not decoded
+        messages[SAMPLES.length] = new byte[0];
+        DetectionBatch b = DetectionBatch.decode(messages, SAMPLES.length);
+        assertEquals(SAMPLES.length, b.size());
+        checkMatches(b);
+    }
+
+    @Test
+    public void testDecodeByteBuffer() {
+        ByteBuffer bb = ByteBuffer.allocate(3 + SAMPLES.length * 26);
+        bb.position(3);
+        for (Bits bits : SAMPLES) {
+            bb.put(toBytes(bits));
+        }
+        bb.position(3);
+        DetectionBatch b = DetectionBatch.decode(bb, SAMPLES.length);
+        assertEquals(3, bb.position());
+        checkMatches(b);
+    }
+
+    @Test
+    public void testDecodeByteBufferPastIntBitOffset() throws IOException {
+        // records at a position whose bit index overflows int (past 256MB). The
+        // file is sparse and mapped so the untouched bytes use no memory.
+        int position = (1 << 28) + 5;
+        File file = File.createTempFile(DetectionBatchTest.class.getSimpleName(), ".bin");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer bb = channel.map(MapMode.READ_WRITE, 0, position + SAMPLES.length * 26L);
+            bb.position(position);
+            for (Bits bits : SAMPLES) {
+                bb.put(toBytes(bits));
+            }
+            bb.position(position);
+            DetectionBatch b = DetectionBatch.decode(bb, SAMPLES.length);
+            assertEquals(position, bb.position());
+            checkMatches(b);
+        } finally {
+            // a mapped file cannot be deleted on some platforms until unmapped
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    @Test
+    public void testReuse() {
+        DetectionBatch b = new DetectionBatch(10);
+        b.decodeFrom(new byte[][] { toBytes(SAMPLES[1]), toBytes(SAMPLES[2]) }, 2);
+        assertEquals(2, b.size());
+        byte[][] messages = new byte[SAMPLES.length][];
+        for (int i = 0; i < SAMPLES.length; i++) {
+            messages[i] = toBytes(SAMPLES[i]);
+        }
+        b.decodeFrom(messages, SAMPLES.length);
+        assertEquals(10, b.capacity());
+        checkMatches(b);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeExceedsCapacity() {
+        new DetectionBatch(1).decodeFrom(new byte[][] { new byte[26], new byte[26] }, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeMessageTooShort() {
+        DetectionBatch.decode(new byte[][] { new byte[25] }, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeByteBufferNotEnough() {
+        DetectionBatch.decode(ByteBuffer.allocate(51), 2);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRowOutOfRange() {
+        new DetectionBatch(2).tac(0);
+    }
+
+    private static byte[] toBytes(Bits bits) {
+        byte[] bytes = new byte[26];
+        Bits b = Bits.from("000000").concatWith(bits);
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) b.readUnsignedInt(8);
+        }
+        return bytes;
+    }
+
+    private static void checkMatches(DetectionBatch b) {
+        for (int i = 0; i < SAMPLES.length; i++) {
+            Detection d = Detection.from(SAMPLES[i].position(0));
+            assertEquals(d.tac(), b.tac(i));
+            assertEquals(d.serialNo(), b.serialNo(i));
+            assertEquals(d.countryCode(), b.countryCode(i));
+            assertEquals(d.hasAtLeastOneEnabledHomingSignal(), b.hasAtLeastOneEnabledHomingSignal(i));
+            assertEquals(d.hasEnabledRls(), b.hasEnabledRls(i));
+            assertEquals(d.isTestProtocolMessage(), b.isTestProtocolMessage(i));
+            assertEquals(d.encodedGnssPosition().isPresent(), b.hasEncodedGnssPosition(i));
+            assertEquals(d.encodedGnssPosition().map(p -> p.lat()).orElse(Double.NaN), b.latitude(i), 0);
+            assertEquals(d.encodedGnssPosition().map(p -> p.lon()).orElse(Double.NaN), b.longitude(i), 0);
+            assertEquals(d.beaconType(), b.beaconType(i));
+            assertEquals(d.rotatingField().rotatingFieldType(), b.rotatingFieldType(i));
+            assertEquals(d.vesselId().map(x -> x.vesselIdType()), b.vesselIdType(i));
+            assertEquals(Json.toJson(d.vesselId()), Json.toJson(b.vesselId(i)));
+            assertEquals(Json.toJson(d.rotatingField()), Json.toJson(b.rotatingField(i)));
+            assertEquals(d.beacon23HexId(), b.beacon23HexId(i));
+            assertEquals(d.beacon15HexId(), b.beacon15HexId(i));
+        }
+    }
+
+}
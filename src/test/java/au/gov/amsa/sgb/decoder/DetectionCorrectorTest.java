@@ -0,0 +1,78 @@
+package au.gov.amsa.sgb.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+import au.gov.amsa.sgb.decoder.internal.Bits;
+
+public class DetectionCorrectorTest {
+
+    private static final String SPEC_EXAMPLE_BCH = "010010010010101001001111110001010111101001001001";
+
+    @Test
+    public void testCorrectHexWithoutErrors() {
+        CorrectedDetection c = new DetectionCorrector().correct(fullMessage().toHex()).get();
+        assertEquals(0, c.numBitsCorrected());
+        assertEquals("9934039823D000000000000", c.detection().beacon23HexId());
+    }
+
+    @Test
+    public void testCorrectHexWithErrors() {
+        Bits b = flip(flip(flip(fullMessage(), 5), 100), 240);
+        CorrectedDetection c = new DetectionCorrector().correct(b.toHex().toLowerCase()).get();
+        assertEquals(3, c.numBitsCorrected());
+        assertEquals(Detection.fromBitString(DetectionTest.BITS).toJson(), c.detection().toJson());
+    }
+
+    @Test
+    public void testCorrectBytesWithErrors() {
+        Bits b = flip(Bits.from("0000").concatWith(fullMessage()), 10);
+        byte[] bytes = new byte[33];
+        for (int i = 1; i < bytes.length; i++) {
+            bytes[i] = (byte) b.readUnsignedInt(8);
+        }
+        CorrectedDetection c = new DetectionCorrector().correct(bytes, 1).get();
+        assertEquals(1, c.numBitsCorrected());
+        assertEquals(230, c.detection().tac());
+    }
+
+    @Test
+    public void testTooManyErrors() {
+        Bits b = fullMessage();
+        for (int i = 0; i < 12; i++) {
+            b = flip(b, 10 + i * 20);
+        }
+        assertFalse(new DetectionCorrector().correct(b.toHex()).isPresent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHexWrongLength() {
+        new DetectionCorrector().correct("123");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHexIllegalCharacter() {
+        new DetectionCorrector().correct("Z" + fullMessage().toHex().substring(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBytesNotEnough() {
+        new DetectionCorrector().correct(new byte[31], 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBytesOffsetOverflow() {
+        new DetectionCorrector().correct(new byte[40], Integer.MAX_VALUE - 10);
+    }
+
+    private static Bits flip(Bits b, int index) {
+        return b.replace(index, Bits.from(b.position(index).readBoolean() ? "0" : "1"));
+    }
+
+    private static Bits fullMessage() {
+        return Bits.from("00" + DetectionTest.BITS + SPEC_EXAMPLE_BCH);
+    }
+
+}
@@ -0,0 +1,208 @@
+package au.gov.amsa.sgb.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.Files;
+
+import au.gov.amsa.sgb.decoder.rotatingfield.EltDtInFlightEmergency;
+
+public class DetectionCsvWriterTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void testColumns() {
+        List<String> columns = DetectionCsvWriter.columns();
+        assertEquals(47, columns.size());
+        assertEquals("tac", columns.get(0));
+        assertEquals("encodedGnssPosition.lat", columns.get(6));
+        assertEquals("vesselId.vesselIdType", columns.get(8));
+        assertTrue(columns.contains("rotatingField.dilutionPrecisionVdop.max.exclusive"));
+        assertTrue(columns.contains("rotatingField.beaconFeedback.shortRlmParametersBitString"));
+        assertEquals("beacon15HexId", columns.get(columns.size() - 1));
+        for (String column : columns) {
+            FieldSet.of("/" + column.replace('.', '/'));
+        }
+    }
+
+    @Test
+    public void testComplianceKitCellsMatchJson() throws IOException {
+        File base = new File("src/test/resources/compliance-kit");
+        List<String> lines = Files.readLines(new File(base, "tests.csv"), StandardCharsets.UTF_8);
+        List<Detection> detections = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] items = line.split(",");
+            if (items[0].contains("Detection")) {
+                detections.add(Detection.fromHexGroundSegmentRepresentation(items[2].replace("\"", "").trim()));
+            }
+        }
+        assertEquals(4, detections.size());
+        checkCellsMatchJson(detections);
+    }
+
+    @Test
+    public void testRandomDetectionsCellsMatchJson() throws IOException {
+        Random random = new Random(2468);
+        List<Detection> detections = new ArrayList<>();
+        while (detections.size() < 2000) {
+            char[] bits = new char[202];
+            for (int j = 0; j < bits.length; j++) {
+                bits[j] = random.nextBoolean() ? '1' : '0';
+            }
+            try {
+                detections.add(Detection.fromBitString(new String(bits)));
+            } catch (RuntimeException e) {
+                // not decodable
+            }
+        }
+        checkCellsMatchJson(detections);
+    }
+
+    private static void checkCellsMatchJson(List<Detection> detections) throws IOException {
+        StringWriter w = new StringWriter();
+        try (DetectionCsvWriter csv = new DetectionCsvWriter(w)) {
+            csv.writeDetections(detections);
+            assertEquals(detections.size(), csv.rowsWritten());
+        }
+        // same rows from the decoder without building a Detection
+        StringWriter w2 = new StringWriter();
+        DetectionDecoder decoder = new DetectionDecoder();
+        MutableDetection m = new MutableDetection();
+        try (DetectionCsvWriter csv = new DetectionCsvWriter(w2)) {
+            for (Detection d : detections) {
+                csv.write(decoder.decode(d.toBytes(), 0, m));
+            }
+            assertEquals(detections.size(), csv.rowsWritten());
+        }
+        assertEquals(w.toString(), w2.toString());
+        List<List<String>> rows = parse(w.toString());
+        assertEquals(detections.size() + 1, rows.size());
+        List<String> columns = rows.get(0);
+        assertEquals(DetectionCsvWriter.columns(), columns);
+        for (int i = 0; i < detections.size(); i++) {
+            Detection d = detections.get(i);
+            JsonNode json = MAPPER.readTree(d.toJson());
+            List<String> row = rows.get(i + 1);
+            assertEquals(columns.size(), row.size());
+            for (int j = 0; j < columns.size(); j++) {
+                String column = columns.get(j);
+                JsonNode node = json.at("/" + column.replace('.', '/'));
+                String expected;
+                if (node.isMissingNode()) {
+                    expected = "";
+                } else if (column.equals("rotatingField.timeOfLastEncodedLocation")) {
+                    // JSON has the time as an array
+                    expected = DateTimeFormatter.ISO_OFFSET_TIME
+                            .format(((EltDtInFlightEmergency) d.rotatingField()).timeOfLastEncodedLocation());
+                } else {
+                    expected = node.asText();
+                }
+                assertEquals(column, expected, row.get(j));
+            }
+        }
+    }
+
+    @Test
+    public void testNoHeaderAndSmallBuffer() {
+        Detection d = Detection.fromHexGroundSegmentRepresentation("0039823D32618658622811F23ADE68AA17E3FFF004030680258");
+        StringWriter w1 = new StringWriter();
+        try (DetectionCsvWriter csv = new DetectionCsvWriter(w1)) {
+            csv.write(d).write(d);
+        }
+        StringWriter w2 = new StringWriter();
+        try (DetectionCsvWriter csv = new DetectionCsvWriter(w2, false, 7)) {
+            csv.writeDetections(Arrays.asList(d, d).stream());
+        }
+        String s = w1.toString();
+        assertEquals(s.substring(s.indexOf('\n') + 1), w2.toString());
+        assertTrue(w2.toString().startsWith("230,573,201,true,false,false,48.79315185546875,69.00875854492188,MMSI,"));
+    }
+
+    @Test
+    public void testHeaderOnly() {
+        StringWriter w = new StringWriter();
+        new DetectionCsvWriter(w).close();
+        assertEquals(String.join(",", DetectionCsvWriter.columns()) + "\n", w.toString());
+    }
+
+    @Test
+    public void testCloseTwice() {
+        DetectionCsvWriter csv = new DetectionCsvWriter(new StringWriter());
+        csv.close();
+        csv.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWriteAfterClose() {
+        DetectionCsvWriter csv = new DetectionCsvWriter(new StringWriter());
+        csv.close();
+        csv.write(Detection.fromHexGroundSegmentRepresentation("0039823D32618658622811F0000000000003FFF004030680258"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWriteMutableDetectionNotDecoded() {
+        new DetectionCsvWriter(new StringWriter()).write(new MutableDetection());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBufferSizeMustBePositive() {
+        new DetectionCsvWriter(new StringWriter(), true, 0);
+    }
+
+    /**
+     * Parses RFC 4180 CSV with {@code '\n'} line ends.
+     */
+    private static List<List<String>> parse(String csv) {
+        List<List<String>> rows = new ArrayList<>();
+        List<String> row = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < csv.length(); i++) {
+            char ch = csv.charAt(i);
+            if (quoted) {
+                if (ch == '"') {
+                    if (i + 1 < csv.length() && csv.charAt(i + 1) == '"') {
+                        cell.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    cell.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                row.add(cell.toString());
+                cell.setLength(0);
+            } else if (ch == '\n') {
+                row.add(cell.toString());
+                cell.setLength(0);
+                rows.add(row);
+                row = new ArrayList<>();
+            } else {
+                cell.append(ch);
+            }
+        }
+        return rows;
+    }
+
+}
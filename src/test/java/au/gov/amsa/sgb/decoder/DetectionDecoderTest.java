@@ -0,0 +1,235 @@
+package au.gov.amsa.sgb.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import au.gov.amsa.sgb.decoder.internal.Bits;
+import au.gov.amsa.sgb.decoder.internal.json.Json;
+import au.gov.amsa.sgb.decoder.rotatingfield.RotatingFieldType;
+import au.gov.amsa.sgb.decoder.vesselid.VesselIdType;
+import com.sun.management.ThreadMXBean;
+
+public class DetectionDecoderTest {
+
+    private static final DetectionDecoder DECODER = new DetectionDecoder();
+
+    @Test
+    public void testDecodeHex() {
+        MutableDetection d = DECODER.decodeHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX,
+                new MutableDetection());
+        checkMatches(d, Detection.fromHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX));
+        assertEquals(RotatingFieldType.OBJECTIVE_REQUIREMENTS, d.rotatingFieldType());
+        assertEquals(0, d.rotatingFieldId());
+        assertFalse(d.vesselIdType().isPresent());
+    }
+
+    @Test
+    public void testDecodeHexLowerCase() {
+        MutableDetection d = DECODER.decodeHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX.toLowerCase(),
+                new MutableDetection());
+        checkMatches(d, Detection.fromHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeHexWrongLength() {
+        DECODER.decodeHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX + "0", new MutableDetection());
+    }
+
+    @Test
+    public void testDecodeBytes() {
+        byte[] bytes = toBytes(DetectionTest.createBitsWithVesselIdFieldMmsi(), 3);
+        MutableDetection d = DECODER.decode(bytes, 3, new MutableDetection());
+        checkMatches(d, Detection.from(bytes, 3));
+        assertEquals(Optional.of(VesselIdType.MMSI), d.vesselIdType());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeBytesNotEnough() {
+        DECODER.decode(new byte[26], 1, new MutableDetection());
+    }
+
+    @Test
+    public void testDecodeBytesOffsetOverflow() {
+        MutableDetection d = new MutableDetection();
+        try {
+            DECODER.decode(new byte[30], Integer.MAX_VALUE - 10, d);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("not enough bytes for a 202 bit detection", e.getMessage());
+        }
+        assertFalse(d.isDecoded());
+    }
+
+    @Test
+    public void testDecodeByteBuffer() {
+        // 202 bits starting at bit 13
+        Bits b = Bits.from("1010101010101" + DetectionTest.BITS + "1");
+        ByteBuffer bb = ByteBuffer.allocate(27);
+        while (!b.atEnd()) {
+            bb.put((byte) b.readUnsignedInt(8));
+        }
+        bb.position(5);
+        MutableDetection d = DECODER.decode(bb, 13, new MutableDetection());
+        checkMatches(d, Detection.from(bb, 13));
+        assertEquals(5, bb.position());
+    }
+
+    @Test
+    public void testReuse() {
+        MutableDetection d = new MutableDetection();
+        CharSequence id = d.beacon23HexId();
+        Bits[] samples = new Bits[] { DetectionTest.createBitsWithVesselIdFieldMmsi(),
+                DetectionTest.createBitsWithVesselIdFieldAircraftOperatorAndSerialNumber(),
+                DetectionTest.createBitsWithVesselIdFieldAircraftRegistrationMarkingVhAbc(),
+                Bits.from(DetectionTest.BITS) };
+        for (Bits bits : samples) {
+            DECODER.decode(toBytes(bits, 0), 0, d);
+            checkMatches(d, Detection.from(bits));
+            // view is reused
+            assertSame(id, d.beacon23HexId());
+        }
+    }
+
+    @Test
+    public void testReset() {
+        MutableDetection d = DECODER.decodeHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX,
+                new MutableDetection());
+        assertTrue(d.isDecoded());
+        d.reset();
+        assertFalse(d.isDecoded());
+        checkAccessorsThrow(d);
+    }
+
+    @Test
+    public void testAccessorsThrowWhenNothingDecoded() {
+        checkAccessorsThrow(new MutableDetection());
+    }
+
+    private static void checkAccessorsThrow(MutableDetection d) {
+        List<Runnable> accessors = Arrays.asList(d::tac, d::serialNo, d::countryCode,
+                d::hasAtLeastOneEnabledHomingSignal, d::hasEnabledRls, d::isTestProtocolMessage,
+                d::hasEncodedGnssPosition, d::latitude, d::longitude, d::vesselIdType, d::beaconType,
+                d::rotatingFieldId, d::rotatingFieldType, () -> d.beacon23HexId().charAt(0),
+                () -> d.beacon15HexId().toString(), d::vesselId, d::rotatingField, d::toDetection);
+        for (Runnable accessor : accessors) {
+            try {
+                accessor.run();
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                assertEquals("no detection has been decoded", e.getMessage());
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testToDetectionWhenNothingDecoded() {
+        new MutableDetection().toDetection();
+    }
+
+    @Test
+    public void testFailedDecodeLeavesNothingDecoded() {
+        MutableDetection d = DECODER.decodeHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX,
+                new MutableDetection());
+        try {
+            DECODER.decodeHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX.replace('F', 'G'), d);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            assertFalse(d.isDecoded());
+            checkAccessorsThrow(d);
+        }
+    }
+
+    @Test
+    public void testCharSequenceViews() {
+        MutableDetection d = DECODER.decodeHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX,
+                new MutableDetection());
+        CharSequence id = d.beacon15HexId();
+        assertEquals(15, id.length());
+        assertEquals(id.toString().charAt(2), id.charAt(2));
+        assertEquals(id.toString().substring(1, 4), id.subSequence(1, 4).toString());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testCharSequenceViewOutOfBounds() {
+        DECODER.decodeHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX, new MutableDetection())
+                .beacon15HexId().charAt(15);
+    }
+
+    @Test
+    public void testSteadyStateDecodeDoesNotAllocate() {
+        Object mx = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(mx instanceof ThreadMXBean);
+        ThreadMXBean bean = (ThreadMXBean) mx;
+        Assume.assumeTrue(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+        MutableDetection d = new MutableDetection();
+        String hex = DetectionTest.SAMPLE_HEX;
+        byte[] bytes = toBytes(Bits.from(DetectionTest.BITS), 0);
+        ByteBuffer bb = ByteBuffer.wrap(bytes);
+        int n = 100000;
+        // warm up so that measurement is of compiled code
+        decodeMany(d, hex, bytes, bb, n);
+        long threadId = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(threadId);
+        int tacs = decodeMany(d, hex, bytes, bb, n);
+        long allocated = bean.getThreadAllocatedBytes(threadId) - before;
+        assertEquals(3 * n * d.tac(), tacs);
+        // allow for allocation by the measurement itself, far less than one byte
+        // per message
+        assertTrue("allocated " + allocated + " bytes", allocated < n);
+    }
+
+    private static int decodeMany(MutableDetection d, String hex, byte[] bytes, ByteBuffer bb, int n) {
+        int tacs = 0;
+        for (int i = 0; i < n; i++) {
+            tacs += DECODER.decodeHexGroundSegmentRepresentation(hex, d).tac();
+            tacs += DECODER.decode(bytes, 0, d).tac();
+            tacs += DECODER.decode(bb, DetectionLayout.NUM_PAD_BITS, d).tac();
+        }
+        return tacs;
+    }
+
+    private static byte[] toBytes(Bits bits, int offset) {
+        byte[] bytes = new byte[offset + 26];
+        Bits b = Bits.from("000000").concatWith(bits);
+        for (int i = 0; i < 26; i++) {
+            bytes[offset + i] = (byte) b.readUnsignedInt(8);
+        }
+        return bytes;
+    }
+
+    private static void checkMatches(MutableDetection m, Detection d) {
+        assertTrue(m.isDecoded());
+        assertEquals(d.tac(), m.tac());
+        assertEquals(d.serialNo(), m.serialNo());
+        assertEquals(d.countryCode(), m.countryCode());
+        assertEquals(d.hasAtLeastOneEnabledHomingSignal(), m.hasAtLeastOneEnabledHomingSignal());
+        assertEquals(d.hasEnabledRls(), m.hasEnabledRls());
+        assertEquals(d.isTestProtocolMessage(), m.isTestProtocolMessage());
+        assertEquals(d.encodedGnssPosition().isPresent(), m.hasEncodedGnssPosition());
+        if (m.hasEncodedGnssPosition()) {
+            assertEquals(d.encodedGnssPosition().get().lat(), m.latitude(), 0);
+            assertEquals(d.encodedGnssPosition().get().lon(), m.longitude(), 0);
+        }
+        assertEquals(d.vesselId().map(x -> x.vesselIdType()), m.vesselIdType());
+        assertEquals(Json.toJson(d.vesselId()), Json.toJson(m.vesselId()));
+        assertEquals(d.beaconType(), m.beaconType());
+        assertEquals(d.rotatingField().rotatingFieldType(), m.rotatingFieldType());
+        assertEquals(Json.toJson(d.rotatingField()), Json.toJson(m.rotatingField()));
+        assertEquals(d.beacon23HexId(), m.beacon23HexId().toString());
+        assertEquals(d.beacon15HexId(), m.beacon15HexId().toString());
+        assertEquals(d.toJson(), m.toDetection().toJson());
+    }
+
+}
@@ -0,0 +1,174 @@
+package au.gov.amsa.sgb.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+import au.gov.amsa.sgb.decoder.internal.Bits;
+import au.gov.amsa.sgb.decoder.internal.Hex;
+import au.gov.amsa.sgb.decoder.rotatingfield.RotatingFieldType;
+import au.gov.amsa.sgb.decoder.vesselid.VesselIdType;
+
+public class DetectionFilterTest {
+
+    @Test
+    public void testSample() {
+        // tac 230, country code 201, ELT_NOT_DT, not test protocol, objective
+        // requirements, no vessel id
+        Detection d = Detection.fromHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX);
+        assertEquals(230, d.tac());
+        assertEquals(201, d.countryCode());
+        checkSample(DetectionFilter.all(), true);
+        checkSample(DetectionFilter.countryCode(201), true);
+        checkSample(DetectionFilter.countryCode(503, 512), false);
+        checkSample(DetectionFilter.tacRange(200, 230), true);
+        checkSample(DetectionFilter.tacRange(231, 65535), false);
+        checkSample(DetectionFilter.tac(1, 230), true);
+        checkSample(DetectionFilter.beaconType(BeaconType.ELT_NOT_DT, BeaconType.EPIRB), true);
+        checkSample(DetectionFilter.beaconType(BeaconType.SYSTEM), false);
+        checkSample(DetectionFilter.testProtocolMessage(false), true);
+        checkSample(DetectionFilter.testProtocolMessage(true), false);
+        checkSample(DetectionFilter.rotatingFieldId(0), true);
+        checkSample(DetectionFilter.rotatingFieldType(RotatingFieldType.CANCELLATION), false);
+        checkSample(DetectionFilter.vesselIdType(VesselIdType.MMSI), false);
+        checkSample(DetectionFilter.vesselIdType(VesselIdType.MMSI).negate(), true);
+        checkSample(DetectionFilter.countryCode(201).and(DetectionFilter.tac(1)), false);
+        checkSample(DetectionFilter.countryCode(201).or(DetectionFilter.tac(1)), true);
+    }
+
+    private static void checkSample(DetectionFilter filter, boolean expected) {
+        Detection d = Detection.fromHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX);
+        assertEquals(expected, filter.test(DetectionTest.SAMPLE_HEX));
+        assertEquals(expected, filter.test(DetectionTest.SAMPLE_HEX.toLowerCase()));
+        byte[] bytes = new byte[28];
+        d.writeBytes(bytes, 2);
+        assertEquals(expected, filter.test(bytes, 2));
+        assertEquals(expected, filter.test(d));
+    }
+
+    @Test
+    public void testRandomMessagesMatchFieldValues() {
+        Random random = new Random(112233);
+        for (int i = 0; i < 2000; i++) {
+            int[] countryCodes = { random.nextInt(1024), random.nextInt(1024), random.nextInt(1024) };
+            int min = random.nextInt(65536);
+            int max = min + random.nextInt(65536 - min);
+            BeaconType beaconType = BeaconType.values()[random.nextInt(BeaconType.values().length)];
+            RotatingFieldType rotatingFieldType = RotatingFieldType.values()[random
+                    .nextInt(RotatingFieldType.values().length)];
+            VesselIdType vesselIdType = VesselIdType.values()[random.nextInt(VesselIdType.values().length)];
+            int rotatingFieldId = random.nextInt(16);
+            byte[] bytes = new byte[26];
+            random.nextBytes(bytes);
+            bytes[0] &= 0x03;
+            Bits bits = Detection.bitsFrom(bytes, 0);
+            if (random.nextBoolean()) {
+                // make the country code match sometimes
+                bits = bits.replace(DetectionLayout.COUNTRY_CODE_OFFSET, Bits.from(countryCodes[1], 10));
+                bytes = bits.toBytes(6);
+            }
+            int countryCode = bits.getUnsignedInt(DetectionLayout.COUNTRY_CODE_OFFSET, 10);
+            int tac = bits.getUnsignedInt(DetectionLayout.TAC_OFFSET, 16);
+            int beaconTypeCode = bits.getUnsignedInt(DetectionLayout.BEACON_TYPE_OFFSET, 3);
+            int rid = bits.getUnsignedInt(DetectionLayout.ROTATING_FIELD_OFFSET, 4);
+            int vesselIdTypeCode = bits.getUnsignedInt(DetectionLayout.VESSEL_ID_OFFSET, 3);
+            boolean test = bits.getBoolean(DetectionLayout.TEST_PROTOCOL_OFFSET);
+            String hex = Hex.bitStringToHex("00" + bits.toBitString());
+            check(DetectionFilter.countryCode(countryCodes), bytes, hex,
+                    Arrays.stream(countryCodes).anyMatch(c -> c == countryCode));
+            check(DetectionFilter.tacRange(min, max), bytes, hex, tac >= min && tac <= max);
+            check(DetectionFilter.tac(min, max), bytes, hex, tac == min || tac == max);
+            check(DetectionFilter.beaconType(beaconType), bytes, hex,
+                    Detection.toBeaconType(beaconTypeCode) == beaconType);
+            check(DetectionFilter.testProtocolMessage(true), bytes, hex, test);
+            check(DetectionFilter.rotatingFieldId(rotatingFieldId), bytes, hex, rid == rotatingFieldId);
+            check(DetectionFilter.rotatingFieldType(rotatingFieldType), bytes, hex,
+                    Detection.toRotatingFieldType(rid) == rotatingFieldType);
+            check(DetectionFilter.vesselIdType(vesselIdType), bytes, hex,
+                    Detection.toVesselIdType(vesselIdTypeCode).filter(Predicate.isEqual(vesselIdType)).isPresent());
+            check(DetectionFilter.parse("not testProtocolMessage = true and beaconType != " + beaconType
+                    + " or countryCode in (" + countryCodes[0] + ", " + countryCodes[1] + ")"), bytes, hex,
+                    !test && Detection.toBeaconType(beaconTypeCode) != beaconType
+                            || countryCode == countryCodes[0] || countryCode == countryCodes[1]);
+        }
+    }
+
+    private static void check(DetectionFilter filter, byte[] bytes, String hex, boolean expected) {
+        assertEquals(filter.toString(), expected, filter.test(bytes, 0));
+        assertEquals(filter.toString(), expected, filter.test(hex));
+        assertEquals(filter.toString(), !expected, filter.negate().test(bytes, 0));
+    }
+
+    @Test
+    public void testParse() {
+        assertEquals("(countryCode in (503, 512..515) and tac in (1000..1999))",
+                DetectionFilter.parse("countryCode in (503, 512..515) AND tac in (1000..1999)").toString());
+        assertEquals("((testProtocolMessage in (0) and not beaconType in (7)) or rotatingFieldId in (15))",
+                DetectionFilter
+                        .parse(" testProtocolMessage=false and beaconType!=SYSTEM or rotatingFieldId = 15 ")
+                        .toString());
+        assertEquals("(rotatingFieldId in (15) and (countryCode in (1) or countryCode in (2)))",
+                DetectionFilter.parse("rotatingFieldId = 15 and (countryCode = 1 or countryCode = 2)").toString());
+        assertEquals("not not vesselIdType in (1, 2)",
+                DetectionFilter.parse("not not vesselIdType in (MMSI, RADIO_CALL_SIGN)").toString());
+        assertEquals("rotatingFieldId in (4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14)",
+                DetectionFilter.parse("rotatingFieldType = UNKNOWN").toString());
+        assertEquals("testProtocolMessage in (1)", DetectionFilter.parse("testProtocolMessage = TRUE").toString());
+        assertTrue(DetectionFilter.parse("countryCode = 201").test(DetectionTest.SAMPLE_HEX));
+        assertFalse(DetectionFilter.parse("countryCode = 201 and not tac in (0..1000)").test(DetectionTest.SAMPLE_HEX));
+    }
+
+    @Test
+    public void testParseErrors() {
+        checkParseError("countryCode", "expected '=', '!=' or 'in' at position 11 of filter: countryCode");
+        checkParseError("countryCode = 2000", "countryCode value out of range: 2000 at position 0");
+        checkParseError("tac in (5..2)", "tac value out of range: 5..2 at position 0");
+        checkParseError("colour = 1", "unknown field 'colour' at position 0");
+        checkParseError("beaconType = BOAT", "not a BeaconType: BOAT at position 0");
+        checkParseError("countryCode = x", "not an integer: x at position 0");
+        checkParseError("testProtocolMessage = yes", "not a boolean: yes at position 0");
+        checkParseError("testProtocolMessage in (true, false)", "one value expected at position 0");
+        checkParseError("countryCode = 1 countryCode = 2", "unexpected 'c' at position 16");
+        checkParseError("(countryCode = 1", "expected ')' at position 16");
+        checkParseError("countryCode in (", "expected a value at position 16");
+        checkParseError("= 1", "expected field name at position 0");
+        checkParseError("", "expected field name at position 0");
+    }
+
+    private static void checkParseError(String expression, String expectedMessagePrefix) {
+        try {
+            DetectionFilter.parse(expression);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(expectedMessagePrefix));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeCountryCode() {
+        DetectionFilter.countryCode(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotEnoughBytes() {
+        DetectionFilter.all().test(new byte[26], 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffsetOverflow() {
+        DetectionFilter.all().test(new byte[30], Integer.MAX_VALUE - 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHexWrongLength() {
+        DetectionFilter.all().test("0123");
+    }
+
+}
@@ -0,0 +1,162 @@
+package au.gov.amsa.sgb.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import au.gov.amsa.sgb.decoder.DetectionJsonWriter.Format;
+import au.gov.amsa.sgb.decoder.internal.json.Json;
+
+public class DetectionJsonWriterTest {
+
+    private static final List<Detection> DETECTIONS = Arrays.asList( //
+            Detection.fromHexGroundSegmentRepresentation("0039823D32618658622811F0000000000003FFF004030680258"), //
+            Detection.fromHexGroundSegmentRepresentation("0039823D32618658622811F23ADE68AA17E3FFF004030680258"));
+
+    private static final Beacon23HexId BEACON = Beacon23HexId.fromHex("ADF587AA62B157AE36DC552");
+
+    @Test
+    public void testNdjson() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DetectionJsonWriter w = new DetectionJsonWriter(Channels.newChannel(bytes), Format.NDJSON)) {
+            w.writeDetections(DETECTIONS).write(BEACON);
+            assertEquals(3, w.recordsWritten());
+            // nothing reaches the channel until flushed
+            assertEquals(0, w.bytesWritten());
+            w.flush();
+            assertEquals(bytes.size(), w.bytesWritten());
+        }
+        String expected = DETECTIONS.get(0).toJson() + "\n" + DETECTIONS.get(1).toJson() + "\n" + BEACON.toJson()
+                + "\n";
+        assertEquals(expected, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DetectionJsonWriter w = new DetectionJsonWriter(Channels.newChannel(bytes), Format.ARRAY);
+        w.writeDetections(DETECTIONS.stream()).writeBeacon23HexIds(Arrays.asList(BEACON, BEACON));
+        w.close();
+        String json = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        String expected = "[" + DETECTIONS.get(0).toJson() + "," + DETECTIONS.get(1).toJson() + ","
+                + BEACON.toJson() + "," + BEACON.toJson() + "]";
+        assertEquals(expected, json);
+        assertTrue(Json.equals(expected, json));
+        assertEquals(4, w.recordsWritten());
+        assertEquals(bytes.size(), w.bytesWritten());
+    }
+
+    @Test
+    public void testEmptyArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DetectionJsonWriter(Channels.newChannel(bytes), Format.ARRAY).close();
+        assertEquals("[]", new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testSmallBufferWritesInChunksOfUpToBufferSize() {
+        RecordingChannel channel = new RecordingChannel(Integer.MAX_VALUE);
+        List<Detection> list = detections(1000);
+        DetectionJsonWriter w = new DetectionJsonWriter(channel, Format.NDJSON, 4096);
+        w.writeDetections(list.stream()).close();
+        String expected = list.stream().map(d -> d.toJson() + "\n").collect(Collectors.joining());
+        assertEquals(expected, new String(channel.bytes.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(list.size(), w.recordsWritten());
+        assertEquals(channel.bytes.size(), w.bytesWritten());
+        assertTrue(channel.writes.size() > 1);
+        // the buffer is written when the next value does not fit
+        for (int i = 0; i < channel.writes.size() - 1; i++) {
+            int n = channel.writes.get(i);
+            assertTrue(n <= 4096 && n > 4096 - DetectionJsonWriter.MIN_BUFFER_SIZE);
+        }
+    }
+
+    @Test
+    public void testPartialChannelWrites() {
+        RecordingChannel channel = new RecordingChannel(7);
+        List<Detection> list = detections(100);
+        DetectionJsonWriter w = new DetectionJsonWriter(channel, Format.ARRAY, 1000);
+        w.writeDetections(list).close();
+        String expected = list.stream().map(Detection::toJson).collect(Collectors.joining(",", "[", "]"));
+        assertEquals(expected, new String(channel.bytes.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(channel.bytes.size(), w.bytesWritten());
+    }
+
+    private static List<Detection> detections(int n) {
+        List<Detection> list = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            list.add(DETECTIONS.get(i % DETECTIONS.size()));
+        }
+        return list;
+    }
+
+    @Test
+    public void testCloseTwiceHasNoEffect() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DetectionJsonWriter w = new DetectionJsonWriter(Channels.newChannel(bytes), Format.ARRAY);
+        w.close();
+        w.close();
+        assertEquals(2, bytes.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWriteAfterCloseThrows() {
+        DetectionJsonWriter w = new DetectionJsonWriter(Channels.newChannel(new ByteArrayOutputStream()),
+                Format.NDJSON);
+        w.close();
+        w.write(BEACON);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroBufferSize() {
+        new DetectionJsonWriter(Channels.newChannel(new ByteArrayOutputStream()), Format.NDJSON, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBufferSizeBelowMinimum() {
+        new DetectionJsonWriter(Channels.newChannel(new ByteArrayOutputStream()), Format.NDJSON,
+                DetectionJsonWriter.MIN_BUFFER_SIZE - 1);
+    }
+
+    private static final class RecordingChannel implements WritableByteChannel {
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final List<Integer> writes = new ArrayList<>();
+        private final int maxBytesPerWrite;
+
+        RecordingChannel(int maxBytesPerWrite) {
+            this.maxBytesPerWrite = maxBytesPerWrite;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int n = Math.min(maxBytesPerWrite, src.remaining());
+            byte[] b = new byte[n];
+            src.get(b);
+            bytes.write(b, 0, n);
+            writes.add(n);
+            return n;
+        }
+    }
+
+}
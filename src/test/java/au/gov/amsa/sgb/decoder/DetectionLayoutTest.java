@@ -0,0 +1,33 @@
+package au.gov.amsa.sgb.decoder;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.github.davidmoten.junit.Asserts;
+
+public class DetectionLayoutTest {
+
+    @Test
+    public void isUtilityClass() {
+        Asserts.assertIsUtilityClass(DetectionLayout.class);
+    }
+
+    @Test
+    public void testFieldsAreContiguous() {
+        assertEquals(DetectionLayout.SERIAL_NO_OFFSET, DetectionLayout.TAC_OFFSET + DetectionLayout.TAC_LENGTH);
+        assertEquals(DetectionLayout.COUNTRY_CODE_OFFSET,
+                DetectionLayout.SERIAL_NO_OFFSET + DetectionLayout.SERIAL_NO_LENGTH);
+        assertEquals(DetectionLayout.HOMING_SIGNAL_OFFSET,
+                DetectionLayout.COUNTRY_CODE_OFFSET + DetectionLayout.COUNTRY_CODE_LENGTH);
+        assertEquals(DetectionLayout.VESSEL_ID_OFFSET,
+                DetectionLayout.POSITION_OFFSET + DetectionLayout.POSITION_LENGTH);
+        assertEquals(DetectionLayout.BEACON_TYPE_OFFSET,
+                DetectionLayout.VESSEL_ID_OFFSET + DetectionLayout.VESSEL_ID_LENGTH);
+        assertEquals(DetectionLayout.ROTATING_FIELD_OFFSET,
+                DetectionLayout.SPARE_OFFSET + DetectionLayout.SPARE_LENGTH);
+        assertEquals(DetectionLayout.NUM_BITS,
+                DetectionLayout.ROTATING_FIELD_OFFSET + DetectionLayout.ROTATING_FIELD_LENGTH);
+    }
+
+}
@@ -2,22 +2,28 @@ package au.gov.amsa.sgb.decoder;
 
 import static au.gov.amsa.sgb.decoder.TestingUtil.ones;
 import static au.gov.amsa.sgb.decoder.TestingUtil.zeros;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.text.DecimalFormat;
 import java.time.OffsetTime;
 import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Random;
 
 import org.junit.Test;
 
 import au.gov.amsa.sgb.decoder.internal.Bits;
+import au.gov.amsa.sgb.decoder.internal.Hex;
 import au.gov.amsa.sgb.decoder.internal.json.Json;
 import au.gov.amsa.sgb.decoder.rotatingfield.ActivationMethod;
 import au.gov.amsa.sgb.decoder.rotatingfield.BeaconFeedback;
@@ -31,6 +37,7 @@ import au.gov.amsa.sgb.decoder.rotatingfield.Range;
 import au.gov.amsa.sgb.decoder.rotatingfield.Rls;
 import au.gov.amsa.sgb.decoder.rotatingfield.RlsProvider;
 import au.gov.amsa.sgb.decoder.rotatingfield.RlsType;
+import au.gov.amsa.sgb.decoder.rotatingfield.RotatingField;
 import au.gov.amsa.sgb.decoder.rotatingfield.TriggeringEvent;
 import au.gov.amsa.sgb.decoder.rotatingfield.UnknownRotatingField;
 import au.gov.amsa.sgb.decoder.vesselid.AircraftOperatorAndSerialNumber;
@@ -57,12 +64,62 @@ public class DetectionTest {
         checkDetection(d);
     }
 
+    @Test
+    public void testFromHexLowerCase() {
+        checkDetection(Detection.fromHexGroundSegmentRepresentation(SAMPLE_HEX.toLowerCase()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromHexIllegalCharacter() {
+        Detection.fromHexGroundSegmentRepresentation(SAMPLE_HEX.replace('F', 'G'));
+    }
+
     @Test
     public void testToBits() {
         Detection d = Detection.fromBitString(BITS);
         checkDetection(d);
     }
 
+    @Test
+    public void testFromBytes() {
+        byte[] bytes = new byte[30];
+        Bits b = Bits.from("000000" + BITS);
+        for (int i = 0; i < 26; i++) {
+            bytes[i + 3] = (byte) b.readUnsignedInt(8);
+        }
+        // pad bits are ignored
+        bytes[3] |= (byte) 0xFC;
+        checkDetection(Detection.from(bytes, 3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromBytesNotEnough() {
+        Detection.from(new byte[26], 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromBytesOffsetOverflow() {
+        Detection.from(new byte[30], Integer.MAX_VALUE - 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromBytesNegativeOffset() {
+        Detection.from(new byte[26], -1);
+    }
+
+    @Test
+    public void testFromByteBuffer() {
+        // 202 bits starting at bit 13
+        Bits b = Bits.from("1010101010101" + BITS + "1");
+        ByteBuffer bb = ByteBuffer.allocate(27);
+        while (!b.atEnd()) {
+            bb.put((byte) b.readUnsignedInt(8));
+        }
+        bb.position(5);
+        checkDetection(Detection.from(bb, 13));
+        assertEquals(5, bb.position());
+    }
+
     @Test
     public void testDetectionToString() {
         Detection d = Detection.fromBitString(BITS);
@@ -197,6 +254,24 @@ public class DetectionTest {
         assertEquals("ABC 123", a.value().get());
     }
 
+    @Test
+    public void testReadVesselIdSpareTypeSkipsVesselIdField() {
+        for (String type : new String[] { "110", "111" }) {
+            Bits b = Bits.from(type + zeros(44) + "1");
+            assertFalse(Detection.readVesselId(b).isPresent());
+            assertTrue(b.readBoolean());
+        }
+    }
+
+    @Test
+    public void testSpareVesselIdTypeFieldsAfterVesselIdDecoded() {
+        Detection d = Detection.fromBitString(BITS.substring(0, 90) + "111" + BITS.substring(93));
+        assertFalse(d.vesselId().isPresent());
+        Detection expected = Detection.fromBitString(BITS);
+        assertEquals(expected.beaconType(), d.beaconType());
+        assertEquals(Json.toJson(expected.rotatingField()), Json.toJson(d.rotatingField()));
+    }
+
     @Test
     public void testPadLeft() {
         assertEquals("001", Detection.padLeftWithZeros(1, 3));
@@ -245,6 +320,25 @@ public class DetectionTest {
         assertFalse(Detection.readDop(Bits.from("1111")).isPresent());
     }
 
+    @Test
+    public void testCodedFieldsReturnSharedInstances() {
+        assertTrue(Detection.readDop(Bits.from("0101")) == Detection.readDop(Bits.from("0101")));
+        assertTrue(Detection.readDop(Bits.from("1111")) == Detection.readBatteryPercent(Bits.from("111")));
+        assertTrue(Detection.readBatteryPercent(Bits.from("010")) == Detection.readBatteryPercent(Bits.from("010")));
+        assertTrue(Detection.readBatteryPercentInFlightEmergency(Bits.from("01")) == Detection
+                .readBatteryPercentInFlightEmergency(Bits.from("01")));
+    }
+
+    @Test
+    public void testReadRotatingFieldDispatchesOnEveryId() {
+        for (int rid = 0; rid < 16; rid++) {
+            Bits bits = Bits.zeros(DetectionLayout.ROTATING_FIELD_LENGTH)
+                    .replace(0, Bits.from(rid, DetectionLayout.ROTATING_FIELD_ID_LENGTH));
+            RotatingField r = Detection.readRotatingField(bits);
+            assertEquals(Detection.toRotatingFieldType(rid), r.rotatingFieldType());
+        }
+    }
+
     @Test
     public void testReadRlsType() {
         assertEquals(RlsType.ACKNOWLEDGEMENT_SERVICE, Detection.readRlsType(Bits.from("0001")));
@@ -554,6 +648,88 @@ public class DetectionTest {
                 d.calculateBchErrorCorrectionCode().toBitString());
     }
 
+    @Test
+    public void testDetectionBchCalculationAsLong() {
+        Detection d = Detection.fromHexGroundSegmentRepresentation(SAMPLE_HEX);
+        assertEquals(Long.parseLong("010010010010101001001111110001010111101001001001", 2),
+                d.calculateBchErrorCorrectionCodeAsLong());
+    }
+
+    @Test
+    public void testVerifyBch() {
+        Detection d = Detection.fromHexGroundSegmentRepresentation(SAMPLE_HEX);
+        Bits full = Bits.from("000000" + BITS).concatWith(d.calculateBchErrorCorrectionCode());
+        assertTrue(Detection.verifyBch(full.position(4).readBits(252).toHex()));
+        byte[] bytes = new byte[32];
+        full.position(0);
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) full.readUnsignedInt(8);
+        }
+        assertTrue(Detection.verifyBch(bytes, 0));
+        bytes[31] ^= 1;
+        assertFalse(Detection.verifyBch(bytes, 0));
+    }
+
+    @Test
+    public void testFromFullMessage() {
+        Detection d = Detection.fromHexGroundSegmentRepresentation(SAMPLE_HEX);
+        Bits full = Bits.from("000000" + BITS).concatWith(d.calculateBchErrorCorrectionCode());
+        String hex = full.position(4).readBits(252).toHex();
+        VerifiedDetection v = Detection.fromFullMessage(hex);
+        assertTrue(v.isBchValid());
+        assertEquals(VerifiedDetection.BchStatus.VALID, v.bchStatus());
+        assertEquals(d.toJson(), v.detection().toJson());
+        assertEquals(SAMPLE_HEX, v.detection().toHexGroundSegmentRepresentation());
+        byte[] bytes = new byte[33];
+        full.position(0);
+        for (int i = 1; i < bytes.length; i++) {
+            bytes[i] = (byte) full.readUnsignedInt(8);
+        }
+        v = Detection.fromFullMessage(bytes, 1);
+        assertTrue(v.isBchValid());
+        assertEquals(d.toJson(), v.detection().toJson());
+        // error in the BCH bits
+        bytes[32] ^= 1;
+        v = Detection.fromFullMessage(bytes, 1);
+        assertFalse(v.isBchValid());
+        assertEquals(VerifiedDetection.BchStatus.INVALID, v.bchStatus());
+        assertEquals(d.toJson(), v.detection().toJson());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromFullMessageOffsetOverflow() {
+        Detection.fromFullMessage(new byte[40], Integer.MAX_VALUE - 10);
+    }
+
+    @Test
+    public void testFromFullMessageMatchesSeparateDecodeAndVerify() {
+        Random r = new Random(24680);
+        for (int i = 0; i < 1000; i++) {
+            byte[] bytes = new byte[32];
+            r.nextBytes(bytes);
+            Detection d;
+            try {
+                d = Detection.from(bytes, 0);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            if (r.nextBoolean()) {
+                // make the BCH code valid
+                long bch = d.calculateBchErrorCorrectionCodeAsLong();
+                for (int j = 0; j < 6; j++) {
+                    bytes[31 - j] = (byte) (bch >>> (8 * j));
+                }
+            }
+            VerifiedDetection v = Detection.fromFullMessage(bytes, 0);
+            assertEquals(d.toJson(), v.detection().toJson());
+            assertEquals(Detection.verifyBch(bytes, 0), v.isBchValid());
+            String hex = Hex.bitStringToHex("00" + Bits.from(bytes, 6, 250).toBitString());
+            VerifiedDetection w = Detection.fromFullMessage(hex);
+            assertEquals(d.toJson(), w.detection().toJson());
+            assertEquals(v.bchStatus(), w.bchStatus());
+        }
+    }
+
     @Test
     public void testReadLocationNegativeLatNegativeLon() {
         Bits bits = Bits.from("10110000110010110000110101000101000000100011111");
@@ -562,6 +738,37 @@ public class DetectionTest {
         assertEquals(-69.00875854492188, p.lon(), 0.0000001);
     }
     
+    @Test
+    public void testToCoordinateIsBitForBitIdenticalToBigDecimalCalculation() {
+        for (int degrees : new int[] {0, 1, 45, 89, 90, 127, 179, 180, 255 }) {
+            for (int fraction = 0; fraction < 1 << 15; fraction++) {
+                for (boolean negative : new boolean[] {false, true }) {
+                    double expected = toCoordinateUsingBigDecimal(negative, degrees, fraction);
+                    double actual = Detection.toCoordinate(negative, degrees, fraction);
+                    if (Double.doubleToRawLongBits(expected) != Double.doubleToRawLongBits(actual)) {
+                        throw new AssertionError(
+                                "mismatch for " + negative + "," + degrees + "," + fraction + ": " + actual);
+                    }
+                }
+            }
+        }
+    }
+
+    // the calculation used before exact double arithmetic was adopted
+    private static double toCoordinateUsingBigDecimal(boolean negative, int degrees, int fraction) {
+        BigDecimal d = BigDecimal.ZERO;
+        BigDecimal f = BigDecimal.ONE;
+        for (int i = 14; i >= 0; i--) {
+            f = f.divide(BigDecimal.valueOf(2));
+            if ((fraction & (1 << i)) != 0) {
+                d = d.add(f);
+            }
+        }
+        d = d.add(BigDecimal.valueOf(degrees));
+        d = d.multiply(BigDecimal.valueOf(negative ? -1 : 1));
+        return d.doubleValue();
+    }
+
     @Test
     public void testReadVesselId() {
         Bits bits = Bits.from("11100011001110111010010001110101100101000000");
@@ -594,4 +801,165 @@ public class DetectionTest {
         }
 
     }
+
+    @Test
+    public void testBeacon23HexIdMatchesBitStringAssembly() {
+        Random r = new Random(12345);
+        for (int i = 0; i < 1000; i++) {
+            boolean[] b = new boolean[202];
+            for (int j = 0; j < b.length; j++) {
+                b[j] = r.nextBoolean();
+            }
+            Bits bits = Bits.from(b);
+            String expected = beacon23HexIdFromBitStrings(bits.toBitString());
+            assertEquals(expected, Detection.readBeacon23HexID(bits));
+            char[] chars = new char[23];
+            Detection.writeBeacon23HexId(bits, chars);
+            assertEquals(expected, new String(chars));
+        }
+    }
+
+    // reference implementation assembling the id from bit strings (C/T.018
+    // Appendix B)
+    private static String beacon23HexIdFromBitStrings(String bits) {
+        String s = "1" + bits.substring(30, 40) + "101" + bits.substring(0, 16) + bits.substring(16, 30)
+                + bits.substring(42, 43) + bits.substring(90, 137);
+        return new BigInteger(s, 2).toString(16).toUpperCase();
+    }
+
+    @Test
+    public void testToBytesAndHexGroundSegmentRepresentationRoundTrip() {
+        Random r = new Random(98765);
+        for (int i = 0; i < 1000; i++) {
+            byte[] bytes = new byte[26];
+            r.nextBytes(bytes);
+            // clear the 6 pad bits
+            bytes[0] &= 0x03;
+            Detection d;
+            try {
+                d = Detection.fromBytes(bytes);
+            } catch (RuntimeException e) {
+                continue;
+            }
+            assertArrayEquals(bytes, d.toBytes());
+            String hex = d.toHexGroundSegmentRepresentation();
+            assertEquals(51, hex.length());
+            assertEquals(d.toJson(), Detection.fromHexGroundSegmentRepresentation(hex).toJson());
+            assertEquals(new BigInteger(1, bytes).toString(16).toUpperCase(),
+                    new BigInteger(hex, 16).toString(16).toUpperCase());
+        }
+    }
+
+    @Test
+    public void testToHexGroundSegmentRepresentationOfSample() {
+        Detection d = Detection.fromHexGroundSegmentRepresentation(SAMPLE_HEX);
+        assertEquals(SAMPLE_HEX, d.toHexGroundSegmentRepresentation());
+        assertEquals(SAMPLE_HEX, Detection.fromBytes(d.toBytes()).toHexGroundSegmentRepresentation());
+    }
+
+    @Test
+    public void testWriteBytes() {
+        Detection d = Detection.fromHexGroundSegmentRepresentation(SAMPLE_HEX);
+        byte[] dest = new byte[30];
+        d.writeBytes(dest, 3);
+        assertArrayEquals(d.toBytes(), Arrays.copyOfRange(dest, 3, 29));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromBytesWrongLength() {
+        Detection.fromBytes(new byte[27]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromBytesNonZeroPadBits() {
+        byte[] bytes = Detection.fromHexGroundSegmentRepresentation(SAMPLE_HEX).toBytes();
+        bytes[0] |= 0x04;
+        Detection.fromBytes(bytes);
+    }
+
+    @Test
+    public void testTryDecodeValid() {
+        DecodeResult r = Detection.tryDecode(SAMPLE_HEX);
+        assertTrue(r.isOk());
+        assertEquals(DecodeResult.ErrorCode.NONE, r.errorCode());
+        assertEquals(DecodeResult.NO_ERROR_BIT_OFFSET, r.errorBitOffset());
+        assertEquals(Detection.fromHexGroundSegmentRepresentation(SAMPLE_HEX).toJson(), r.detection().get().toJson());
+        assertTrue(r.detection().get() == r.decodedFields().get());
+        assertEquals("DecodeResult[NONE]", r.toString());
+        DecodeResult r2 = Detection.tryDecode(r.detection().get().toBytes(), 0);
+        assertTrue(r2.isOk());
+        assertEquals(r.detection().get().toJson(), r2.detection().get().toJson());
+    }
+
+    @Test
+    public void testTryDecodeWrongLength() {
+        checkError(Detection.tryDecode(""), DecodeResult.ErrorCode.WRONG_LENGTH, 0);
+        checkError(Detection.tryDecode(SAMPLE_HEX.substring(1)), DecodeResult.ErrorCode.WRONG_LENGTH, 198);
+        checkError(Detection.tryDecode(SAMPLE_HEX + "0"), DecodeResult.ErrorCode.WRONG_LENGTH, 202);
+        checkError(Detection.tryDecode(new byte[30], 5), DecodeResult.ErrorCode.WRONG_LENGTH, 194);
+        checkError(Detection.tryDecode(new byte[30], -1), DecodeResult.ErrorCode.WRONG_LENGTH, 202);
+        checkError(Detection.tryDecode(new byte[3], 0), DecodeResult.ErrorCode.WRONG_LENGTH, 18);
+        // offset + 26 overflows int
+        checkError(Detection.tryDecode(new byte[30], Integer.MAX_VALUE - 10), DecodeResult.ErrorCode.WRONG_LENGTH,
+                0);
+    }
+
+    @Test
+    public void testTryDecodeIllegalCharacter() {
+        checkError(Detection.tryDecode("X" + SAMPLE_HEX.substring(1)), DecodeResult.ErrorCode.ILLEGAL_CHARACTER, 0);
+        DecodeResult r = Detection.tryDecode(SAMPLE_HEX.substring(0, 10) + "g" + SAMPLE_HEX.substring(11));
+        checkError(r, DecodeResult.ErrorCode.ILLEGAL_CHARACTER, 38);
+        assertEquals("DecodeResult[ILLEGAL_CHARACTER at bit 38]", r.toString());
+    }
+
+    private static void checkError(DecodeResult r, DecodeResult.ErrorCode code, int bitOffset) {
+        assertFalse(r.isOk());
+        assertEquals(code, r.errorCode());
+        assertEquals(bitOffset, r.errorBitOffset());
+        assertFalse(r.detection().isPresent());
+        assertFalse(r.decodedFields().isPresent());
+    }
+
+    @Test
+    public void testTryDecodeRandomMatchesThrowingDecode() {
+        Random random = new Random(13579);
+        int invalidCount = 0;
+        for (int i = 0; i < 5000; i++) {
+            byte[] bytes = new byte[26];
+            random.nextBytes(bytes);
+            bytes[0] &= 0x03;
+            // favour vessel id types with Baudot characters
+            Bits bits = Bits.from(bytes, 6, 202).replace(90, Bits.from(2 + random.nextInt(4), 3));
+            String hex = Hex.bitStringToHex("00" + bits.toBitString());
+            DecodeResult r = Detection.tryDecode(hex);
+            assertEquals(r.errorCode(), Detection.tryDecode(Detection.bitsFromHexGroundSegmentRepresentation(hex)
+                    .toBytes(6), 0).errorCode());
+            Detection d;
+            try {
+                d = Detection.fromHexGroundSegmentRepresentation(hex);
+            } catch (IllegalArgumentException e) {
+                invalidCount++;
+                assertEquals(DecodeResult.ErrorCode.INVALID_BAUDOT_CODE, r.errorCode());
+                assertTrue(r.errorBitOffset() >= 93 && r.errorBitOffset() < 137);
+                assertFalse(r.detection().isPresent());
+                Detection partial = r.decodedFields().get();
+                assertFalse(partial.vesselId().isPresent());
+                Detection expected = Detection
+                        .from(Detection.bitsFromHexGroundSegmentRepresentation(hex).replace(90, Bits.from(zeros(47))));
+                assertEquals(expected.tac(), partial.tac());
+                assertEquals(expected.serialNo(), partial.serialNo());
+                assertEquals(expected.countryCode(), partial.countryCode());
+                assertEquals(Json.toJson(expected.encodedGnssPosition()), Json.toJson(partial.encodedGnssPosition()));
+                assertEquals(expected.beaconType(), partial.beaconType());
+                assertEquals(Json.toJson(expected.rotatingField()), Json.toJson(partial.rotatingField()));
+                assertEquals(Detection.readBeacon23HexID(Detection.bitsFromHexGroundSegmentRepresentation(hex)),
+                        partial.beacon23HexId());
+                continue;
+            }
+            assertTrue(r.isOk());
+            assertEquals(d.toJson(), r.detection().get().toJson());
+        }
+        assertTrue(invalidCount > 1000);
+    }
+
 }
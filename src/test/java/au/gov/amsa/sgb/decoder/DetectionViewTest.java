@@ -0,0 +1,99 @@
+package au.gov.amsa.sgb.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import au.gov.amsa.sgb.decoder.internal.Bits;
+import au.gov.amsa.sgb.decoder.internal.json.Json;
+
+public class DetectionViewTest {
+
+    @Test
+    public void testAccessorsMatchDetectionForSample() {
+        checkMatches(DetectionView.fromHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX),
+                Detection.fromHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX));
+    }
+
+    @Test
+    public void testAccessorsMatchDetectionWithMmsi() {
+        checkMatches(DetectionTest.createBitsWithVesselIdFieldMmsi());
+    }
+
+    @Test
+    public void testAccessorsMatchDetectionWithAircraftOperatorAndSerialNumber() {
+        checkMatches(DetectionTest.createBitsWithVesselIdFieldAircraftOperatorAndSerialNumber());
+    }
+
+    @Test
+    public void testAccessorsMatchDetectionWithAircraftRegistrationMarking() {
+        checkMatches(DetectionTest.createBitsWithVesselIdFieldAircraftRegistrationMarkingVhAbc());
+    }
+
+    @Test
+    public void testFromBytes() {
+        byte[] bytes = new byte[30];
+        Bits b = Bits.from("000000" + DetectionTest.BITS);
+        for (int i = 0; i < 26; i++) {
+            bytes[i + 3] = (byte) b.readUnsignedInt(8);
+        }
+        checkMatches(DetectionView.from(bytes, 3), Detection.from(bytes, 3));
+    }
+
+    @Test
+    public void testFromByteBuffer() {
+        // 202 bits starting at bit 13
+        Bits b = Bits.from("1010101010101" + DetectionTest.BITS + "1");
+        ByteBuffer bb = ByteBuffer.allocate(27);
+        while (!b.atEnd()) {
+            bb.put((byte) b.readUnsignedInt(8));
+        }
+        checkMatches(DetectionView.from(bb, 13), Detection.from(bb, 13));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongLength() {
+        DetectionView.fromBitString(DetectionTest.BITS + "0");
+    }
+
+    @Test
+    public void testFieldsAreMemoised() {
+        DetectionView v = DetectionView.fromHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX);
+        assertSame(v.encodedGnssPosition(), v.encodedGnssPosition());
+        assertSame(v.vesselId(), v.vesselId());
+        assertSame(v.rotatingField(), v.rotatingField());
+        assertSame(v.beacon23HexId(), v.beacon23HexId());
+        assertSame(v.beacon15HexId(), v.beacon15HexId());
+    }
+
+    @Test
+    public void testToDetection() {
+        DetectionView v = DetectionView.fromBitString(DetectionTest.BITS);
+        assertEquals(Detection.fromBitString(DetectionTest.BITS).toJson(), v.toDetection().toJson());
+        assertEquals(v.toJson(), v.toString());
+    }
+
+    private static void checkMatches(Bits bits) {
+        checkMatches(DetectionView.fromBitString(bits.toBitString()), Detection.from(bits));
+    }
+
+    private static void checkMatches(DetectionView v, Detection d) {
+        assertEquals(d.tac(), v.tac());
+        assertEquals(d.serialNo(), v.serialNo());
+        assertEquals(d.countryCode(), v.countryCode());
+        assertEquals(d.hasAtLeastOneEnabledHomingSignal(), v.hasAtLeastOneEnabledHomingSignal());
+        assertEquals(d.hasEnabledRls(), v.hasEnabledRls());
+        assertEquals(d.isTestProtocolMessage(), v.isTestProtocolMessage());
+        assertEquals(Json.toJson(d.encodedGnssPosition()), Json.toJson(v.encodedGnssPosition()));
+        assertEquals(Json.toJson(d.vesselId()), Json.toJson(v.vesselId()));
+        assertEquals(d.beaconType(), v.beaconType());
+        assertEquals(Json.toJson(d.rotatingField()), Json.toJson(v.rotatingField()));
+        assertEquals(d.beacon23HexId(), v.beacon23HexId());
+        assertEquals(d.beacon15HexId(), v.beacon15HexId());
+        assertEquals(d.toJson(), v.toJson());
+    }
+
+}
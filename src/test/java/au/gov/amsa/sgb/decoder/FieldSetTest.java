@@ -0,0 +1,113 @@
+package au.gov.amsa.sgb.decoder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import au.gov.amsa.sgb.decoder.internal.json.Json;
+
+public class FieldSetTest {
+
+    private static final Detection DETECTION = Detection
+            .fromHexGroundSegmentRepresentation("0039823D32618658622811F23ADE68AA17E3FFF004030680258");
+
+    @Test
+    public void testAllIsSameAsToJson() {
+        assertEquals(DETECTION.toJson(), DETECTION.toJson(FieldSet.all()));
+        assertTrue(FieldSet.all().isAll());
+    }
+
+    @Test
+    public void testEmptyPointerSelectsAll() {
+        assertSame(FieldSet.all(), FieldSet.of(""));
+        assertSame(FieldSet.all(), FieldSet.of("/tac", ""));
+    }
+
+    @Test
+    public void testLightweightProjection() {
+        FieldSet fields = FieldSet.of("/beacon15HexId", "/countryCode", "/beaconType", "/encodedGnssPosition",
+                "/rotatingField/rotatingFieldType");
+        assertEquals("{\"countryCode\":201,\"encodedGnssPosition\":{\"lat\":48.79315185546875,"
+                + "\"lon\":69.00875854492188},\"beaconType\":\"ELT_NOT_DT\",\"rotatingField\":"
+                + "{\"rotatingFieldType\":\"OBJECTIVE_REQUIREMENTS\"},\"beacon15HexId\":\"9934039823D11D6\"}",
+                DETECTION.toJson(fields));
+    }
+
+    @Test
+    public void testNestedProjection() {
+        FieldSet fields = FieldSet.of("/vesselId/mmsi", "/rotatingField/dilutionPrecisionHdop/max/value",
+                "/encodedGnssPosition/lat");
+        assertEquals("{\"encodedGnssPosition\":{\"lat\":48.79315185546875},\"vesselId\":{\"mmsi\":123456789},"
+                + "\"rotatingField\":{\"dilutionPrecisionHdop\":{\"max\":{\"value\":1}}}}", DETECTION.toJson(fields));
+    }
+
+    @Test
+    public void testPropertyOfAnotherRotatingFieldTypeWritesEmptyObject() {
+        assertEquals("{\"rotatingField\":{}}", DETECTION.toJson(FieldSet.of("/rotatingField/deactivationMethod")));
+    }
+
+    @Test
+    public void testParentPointerWinsOverChildPointer() {
+        String expected = "{\"encodedGnssPosition\":{\"lat\":48.79315185546875,\"lon\":69.00875854492188}}";
+        assertEquals(expected, DETECTION.toJson(FieldSet.of("/encodedGnssPosition/lat", "/encodedGnssPosition")));
+        assertEquals(expected, DETECTION.toJson(FieldSet.of("/encodedGnssPosition", "/encodedGnssPosition/lat")));
+    }
+
+    @Test
+    public void testWriteJsonPretty() {
+        FieldSet fields = FieldSet.of("/tac", "/vesselId");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DETECTION.writeJson(out, true, fields);
+        assertEquals(Json.prettyPrint(DETECTION.toJson(fields)), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testContainsAndField() {
+        FieldSet fields = FieldSet.of("/rotatingField/rotatingFieldType");
+        assertTrue(fields.contains("rotatingField"));
+        assertFalse(fields.contains("tac"));
+        assertFalse(fields.isAll());
+        assertTrue(fields.field("rotatingField").contains("rotatingFieldType"));
+        assertTrue(fields.field("rotatingField").field("rotatingFieldType").isAll());
+        assertEquals("FieldSet[/rotatingField/rotatingFieldType]", fields.toString());
+        assertEquals("FieldSet[all]", FieldSet.all().toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFieldNotSelected() {
+        FieldSet.of("/tac").field("serialNo");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownField() {
+        FieldSet.of("/beaconTyp");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPathBelowLeaf() {
+        FieldSet.of("/tac/value");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPathNotInAnyAlternative() {
+        FieldSet.of("/vesselId/deactivationMethod");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPointerMustStartWithSlash() {
+        FieldSet.of("tac");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEscapedPointerIsUnescaped() {
+        // ~1 is '/' so this is the single token "tac/x" which is not a field
+        FieldSet.of("/tac~1x");
+    }
+
+}
@@ -0,0 +1,149 @@
+package au.gov.amsa.sgb.decoder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import au.gov.amsa.sgb.decoder.internal.Bits;
+
+public class PriorityDispatcherTest {
+
+    @Test
+    public void testUrgentOvertakesBacklog() {
+        PriorityDispatcher<String> d = new PriorityDispatcher<>(PriorityDispatcherTest::priority, 100);
+        assertTrue(d.offer("r1"));
+        assertTrue(d.offer("r2"));
+        assertTrue(d.offer("u1"));
+        assertTrue(d.offer("r3"));
+        assertTrue(d.offer("u2"));
+        assertEquals(5, d.size());
+        assertEquals("u1", d.poll());
+        assertEquals("u2", d.poll());
+        assertEquals("r1", d.poll());
+        assertEquals("r2", d.poll());
+        assertEquals("r3", d.poll());
+        assertNull(d.poll());
+        assertEquals(0, d.size());
+    }
+
+    @Test
+    public void testFullRoutineLaneDoesNotRejectUrgent() {
+        PriorityDispatcher<String> d = new PriorityDispatcher<>(PriorityDispatcherTest::priority, 2);
+        assertTrue(d.offer("r1"));
+        assertTrue(d.offer("r2"));
+        assertFalse(d.offer("r3"));
+        assertTrue(d.offer("u1"));
+        DispatcherStatistics s = d.statistics(Priority.ROUTINE);
+        assertEquals(2, s.capacity());
+        assertEquals(2, s.queueDepth());
+        assertEquals(3, s.offeredCount());
+        assertEquals(1, s.rejectedCount());
+        assertEquals(0, s.dispatchedCount());
+        assertEquals("u1", d.poll());
+        assertEquals("r1", d.poll());
+        // wraps around the ring buffer
+        assertTrue(d.offer("r4"));
+        assertEquals("r2", d.poll());
+        assertEquals("r4", d.poll());
+        assertNull(d.poll());
+    }
+
+    @Test
+    public void testLatencyStatistics() {
+        AtomicLong clock = new AtomicLong();
+        PriorityDispatcher<String> d = new PriorityDispatcher<>(PriorityDispatcherTest::priority, 10,
+                clock::get);
+        d.offer("r1");
+        clock.set(100);
+        d.offer("u1");
+        clock.set(110);
+        d.poll();
+        clock.set(200);
+        d.poll();
+        DispatcherStatistics u = d.statistics(Priority.URGENT);
+        assertEquals(1, u.dispatchedCount());
+        assertEquals(10, u.maxLatencyNanos());
+        assertEquals(10, u.meanLatencyNanos(), 0.0001);
+        DispatcherStatistics r = d.statistics(Priority.ROUTINE);
+        assertEquals(200, r.maxLatencyNanos());
+        assertEquals(200, r.meanLatencyNanos(), 0.0001);
+        assertEquals(0, r.queueDepth());
+        assertEquals(0, new PriorityDispatcher<>(PriorityDispatcherTest::priority, 1)
+                .statistics(Priority.ROUTINE).meanLatencyNanos(), 0.0001);
+        assertEquals("DispatcherStatistics[priority=URGENT, capacity=10, queueDepth=0, offeredCount=1, "
+                + "rejectedCount=0, dispatchedCount=1, meanLatencyNanos=10.0, maxLatencyNanos=10]", u.toString());
+    }
+
+    @Test(timeout = 10000)
+    public void testTakeWaitsForOffer() throws InterruptedException {
+        PriorityDispatcher<String> d = new PriorityDispatcher<>(PriorityDispatcherTest::priority, 10);
+        AtomicReference<String> taken = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        Thread t = new Thread(() -> {
+            try {
+                taken.set(d.take());
+                latch.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        t.start();
+        d.offer("u1");
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("u1", taken.get());
+    }
+
+    @Test
+    public void testPollWithTimeout() throws InterruptedException {
+        PriorityDispatcher<String> d = new PriorityDispatcher<>(PriorityDispatcherTest::priority, 10);
+        assertNull(d.poll(1, TimeUnit.MILLISECONDS));
+        d.offer("r1");
+        assertEquals("r1", d.poll(1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testForMessagesAndForHex() {
+        Bits sample = Detection.fromHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX).bits();
+        Detection cancellation = Detection
+                .from(sample.replace(DetectionLayout.ROTATING_FIELD_OFFSET, Bits.from(15, 4)));
+        Detection routine = Detection.fromHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX);
+
+        PriorityDispatcher<String> hex = PriorityDispatcher.forHex(10);
+        hex.offer(routine.toHexGroundSegmentRepresentation());
+        hex.offer(cancellation.toHexGroundSegmentRepresentation());
+        assertEquals(cancellation.toHexGroundSegmentRepresentation(), hex.poll());
+
+        PriorityDispatcher<byte[]> bytes = PriorityDispatcher.forMessages(10);
+        byte[] a = new byte[26];
+        routine.writeBytes(a, 0);
+        byte[] b = new byte[26];
+        cancellation.writeBytes(b, 0);
+        bytes.offer(a);
+        bytes.offer(b);
+        assertArrayEquals(b, bytes.poll());
+        assertArrayEquals(a, bytes.poll());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacityMustBePositive() {
+        new PriorityDispatcher<String>(PriorityDispatcherTest::priority, 0);
+    }
+
+    private static Priority priority(String s) {
+        if (s.startsWith("u")) {
+            return Priority.URGENT;
+        } else {
+            return Priority.ROUTINE;
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package au.gov.amsa.sgb.decoder;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import au.gov.amsa.sgb.decoder.internal.Bits;
+import au.gov.amsa.sgb.decoder.rotatingfield.RotatingFieldType;
+
+public class PriorityTest {
+
+    @Test
+    public void testOf() {
+        assertEquals(Priority.URGENT, Priority.of(15));
+        assertEquals(Priority.URGENT, Priority.of(1));
+        assertEquals(Priority.ROUTINE, Priority.of(0));
+        assertEquals(Priority.ROUTINE, Priority.of(2));
+        assertEquals(Priority.ROUTINE, Priority.of(14));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfRotatingFieldIdOutOfRange() {
+        Priority.of(16);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfRotatingFieldIdNegative() {
+        Priority.of(-1);
+    }
+
+    @Test
+    public void testSample() {
+        assertEquals(Priority.ROUTINE, Priority.of(DetectionTest.SAMPLE_HEX));
+    }
+
+    @Test
+    public void testEveryRotatingFieldIdAndBeaconTypeFromRawBitsMatchesDecode() {
+        Bits sample = Detection.fromHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX).bits();
+        for (int rid = 0; rid < 16; rid++) {
+            for (int type = 0; type < 8; type++) {
+                // beacon type does not change the priority
+                Bits bits = sample //
+                        .replace(DetectionLayout.ROTATING_FIELD_OFFSET, Bits.from(rid, 4)) //
+                        .replace(DetectionLayout.BEACON_TYPE_OFFSET, Bits.from(type, 3));
+                Detection d = Detection.from(bits);
+                Priority expected = Priority.of(rid);
+                assertEquals(expected, Priority.of(d));
+                assertEquals(expected, Priority.of(d.toHexGroundSegmentRepresentation()));
+                assertEquals(expected, Priority.of(d.toHexGroundSegmentRepresentation().toLowerCase()));
+                byte[] bytes = new byte[29];
+                d.writeBytes(bytes, 3);
+                assertEquals(expected, Priority.of(bytes, 3));
+            }
+        }
+    }
+
+    @Test
+    public void testCancellationAndInFlightEmergencyTypesAreUrgent() {
+        Bits sample = Detection.fromHexGroundSegmentRepresentation(DetectionTest.SAMPLE_HEX).bits();
+        for (int rid = 0; rid < 16; rid++) {
+            Detection d = Detection.from(sample.replace(DetectionLayout.ROTATING_FIELD_OFFSET, Bits.from(rid, 4)));
+            RotatingFieldType type = d.rotatingField().rotatingFieldType();
+            boolean urgent = type == RotatingFieldType.CANCELLATION
+                    || type == RotatingFieldType.ELT_DT_IN_FLIGHT_EMERGENCY;
+            assertEquals(urgent, Priority.of(d) == Priority.URGENT);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHexWrongLength() {
+        Priority.of(DetectionTest.SAMPLE_HEX.substring(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotEnoughBytes() {
+        Priority.of(new byte[26], 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffsetOverflow() {
+        Priority.of(new byte[30], Integer.MAX_VALUE - 10);
+    }
+
+}
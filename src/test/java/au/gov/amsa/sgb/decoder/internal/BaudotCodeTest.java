@@ -39,6 +39,15 @@ public class BaudotCodeTest {
         assertEquals('A', BaudotCode.toCharFromShortCode(toInt("11000")));
     }
 
+    @Test
+    public void testLookup() {
+        assertEquals('A', BaudotCode.lookup(toInt("111000")));
+        assertEquals('A', BaudotCode.lookupShortCode(toInt("11000")));
+        assertEquals(BaudotCode.INVALID, BaudotCode.lookup(toInt("111111")));
+        assertEquals(BaudotCode.INVALID, BaudotCode.lookup(-1));
+        assertEquals(BaudotCode.INVALID, BaudotCode.lookup(64));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testNonExistentCodeThrows() {
         BaudotCode.toChar(1000000);
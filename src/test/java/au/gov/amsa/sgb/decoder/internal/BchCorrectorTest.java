@@ -0,0 +1,103 @@
+package au.gov.amsa.sgb.decoder.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BchCorrectorTest {
+
+    @Test
+    public void testCorrectsUpToSixErrors() {
+        Random random = new Random(98765);
+        BchCorrector corrector = new BchCorrector();
+        for (int numErrors = 0; numErrors <= BchCorrector.MAX_CORRECTABLE_ERRORS; numErrors++) {
+            for (int trial = 0; trial < 200; trial++) {
+                byte[] message = randomMessage(random);
+                byte[] received = message.clone();
+                flipRandomBits(random, received, numErrors);
+                assertEquals(numErrors, corrector.correct(received, 0));
+                assertArrayEquals(message, received);
+            }
+        }
+    }
+
+    @Test
+    public void testErrorsInPadBitsIgnored() {
+        Random random = new Random(1);
+        byte[] message = randomMessage(random);
+        byte[] received = message.clone();
+        received[0] ^= (byte) 0xFC;
+        assertEquals(0, new BchCorrector().correct(received, 0));
+    }
+
+    @Test
+    public void testCorrectsAtOffset() {
+        Random random = new Random(2);
+        byte[] message = randomMessage(random);
+        byte[] received = new byte[message.length + 3];
+        System.arraycopy(message, 0, received, 3, message.length);
+        received[3 + 31] ^= 1;
+        received[3] ^= 2;
+        assertEquals(2, new BchCorrector().correct(received, 3));
+        assertEquals(message[31], received[3 + 31]);
+        assertEquals(message[0], received[3]);
+    }
+
+    @Test
+    public void testTooManyErrorsNotCorrectedAsSixOrFewer() {
+        Random random = new Random(3);
+        BchCorrector corrector = new BchCorrector();
+        int uncorrectable = 0;
+        for (int trial = 0; trial < 500; trial++) {
+            byte[] message = randomMessage(random);
+            byte[] received = message.clone();
+            flipRandomBits(random, received, 7);
+            byte[] copy = received.clone();
+            int n = corrector.correct(received, 0);
+            if (n == BchCorrector.UNCORRECTABLE) {
+                uncorrectable++;
+                // unchanged
+                assertArrayEquals(copy, received);
+            } else {
+                // miscorrected to some other codeword
+                assertFalse(Arrays.equals(message, received));
+            }
+        }
+        assertTrue(uncorrectable > 400);
+    }
+
+    private static byte[] randomMessage(Random random) {
+        boolean[] data = new boolean[202];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = random.nextBoolean();
+        }
+        Bits bits = Bits.from(data);
+        Bits full = Bits.zeros(6).concatWith(bits).concatWith(Bits.from(Bch.parity(bits), 48));
+        byte[] bytes = new byte[32];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) full.readUnsignedInt(8);
+        }
+        return bytes;
+    }
+
+    private static void flipRandomBits(Random random, byte[] bytes, int numBits) {
+        boolean[] flipped = new boolean[250];
+        int n = 0;
+        while (n < numBits) {
+            int i = random.nextInt(250);
+            if (!flipped[i]) {
+                flipped[i] = true;
+                int index = i + 6;
+                bytes[index / 8] ^= (byte) (0x80 >>> (index % 8));
+                n++;
+            }
+        }
+    }
+
+}
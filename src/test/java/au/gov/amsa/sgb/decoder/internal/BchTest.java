@@ -0,0 +1,167 @@
+package au.gov.amsa.sgb.decoder.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.davidmoten.junit.Asserts;
+
+import au.gov.amsa.sgb.decoder.DetectionTest;
+
+public class BchTest {
+
+    private static final String SPEC_EXAMPLE_BCH = "010010010010101001001111110001010111101001001001";
+
+    @Test
+    public void isUtilityClass() {
+        Asserts.assertIsUtilityClass(Bch.class);
+    }
+
+    @Test
+    public void testParityUsingSpecExample() {
+        assertEquals(Long.parseLong(SPEC_EXAMPLE_BCH, 2), Bch.parity(Bits.from(DetectionTest.BITS)));
+    }
+
+    @Test
+    public void testParityMatchesPolynomialDivision() {
+        Bits divisor = Bits.from(Bch.GENERATOR_BIT_STRING);
+        Random random = new Random(12345);
+        for (int n = 1; n < 260; n += 7) {
+            Bits bits = randomBits(random, n);
+            long expected = bits.concatWith(Bits.zeros(48)).remainderOnPolynomialDivision(divisor).last(48)
+                    .readUnsignedLong(48);
+            assertEquals(expected, Bch.parity(bits));
+        }
+    }
+
+    @Test
+    public void testParityOfBytes() {
+        Bits bits = Bits.from("000000" + DetectionTest.BITS);
+        byte[] bytes = new byte[26];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) bits.readUnsignedInt(8);
+        }
+        assertEquals(Long.parseLong(SPEC_EXAMPLE_BCH, 2), Bch.parity(bytes, 0, bytes.length));
+    }
+
+    @Test
+    public void testVerifyHex() {
+        String hex = fullMessage().toHex();
+        assertEquals(63, hex.length());
+        assertTrue(Bch.verify(hex));
+        assertTrue(Bch.verify(hex.toLowerCase()));
+        // pad bits are ignored
+        assertTrue(Bch.verify("C" + hex.substring(1)));
+    }
+
+    @Test
+    public void testVerifyHexDetectsSingleBitErrors() {
+        Bits full = fullMessage();
+        for (int i = 2; i < full.length(); i++) {
+            Bits b = full.replace(i, Bits.from(full.position(i).readBoolean() ? "0" : "1"));
+            assertFalse(Bch.verify(b.toHex()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testVerifyHexWrongLength() {
+        Bch.verify("0123");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testVerifyHexIllegalCharacter() {
+        String hex = fullMessage().toHex();
+        Bch.verify("Z" + hex.substring(1));
+    }
+
+    @Test
+    public void testVerifyBytes() {
+        byte[] bytes = new byte[34];
+        Bits full = Bits.from("000000").concatWith(fullMessage().position(2).readBits(250));
+        for (int i = 0; i < 32; i++) {
+            bytes[i + 2] = (byte) full.readUnsignedInt(8);
+        }
+        assertTrue(Bch.verify(bytes, 2));
+        bytes[20] ^= 4;
+        assertFalse(Bch.verify(bytes, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testVerifyBytesNotEnough() {
+        Bch.verify(new byte[32], 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemainderOffsetOverflow() {
+        Bch.remainder(new byte[40], Integer.MAX_VALUE - 10);
+    }
+
+    @Test
+    public void testLoadHex() {
+        String hex = fullMessage().toHex();
+        Bits data = Bits.zeros(202);
+        assertEquals(0, Bch.load(hex, data));
+        assertEquals(DetectionTest.BITS, data.toBitString());
+        assertEquals(0, data.position());
+        // reuse, pad bits ignored
+        char first = Hex.toChar(Hex.digit(hex.charAt(0)) | 0xC);
+        assertEquals(0, Bch.load(first + hex.substring(1), data));
+        assertEquals(DetectionTest.BITS, data.toBitString());
+    }
+
+    @Test
+    public void testLoadMatchesVerify() {
+        Random random = new Random(1357);
+        Bits data = Bits.zeros(202);
+        for (int i = 0; i < 1000; i++) {
+            byte[] bytes = new byte[32];
+            random.nextBytes(bytes);
+            if (i % 2 == 0) {
+                // valid BCH code
+                long parity = Bch.parity(Bits.from(bytes, 6, 202));
+                for (int j = 0; j < 6; j++) {
+                    bytes[31 - j] = (byte) (parity >>> (8 * j));
+                }
+            }
+            long remainder = Bch.load(bytes, 0, data);
+            assertEquals(Bch.remainder(bytes, 0), remainder);
+            assertEquals(i % 2 == 0, remainder == 0);
+            assertEquals(Bits.from(bytes, 6, 202).toBitString(), data.toBitString());
+            String hex = Bits.from(bytes, 4, 252).toHex();
+            assertEquals(remainder, Bch.load(hex, data));
+            assertEquals(Bits.from(bytes, 6, 202).toBitString(), data.toBitString());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoadOffsetOverflow() {
+        Bch.load(new byte[40], Integer.MAX_VALUE - 10, Bits.zeros(202));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoadWrongDataLength() {
+        Bch.load(new byte[32], 0, Bits.zeros(201));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoadHexWrongLength() {
+        Bch.load("0123", Bits.zeros(202));
+    }
+
+    private static Bits fullMessage() {
+        return Bits.from("00" + DetectionTest.BITS + SPEC_EXAMPLE_BCH);
+    }
+
+    private static Bits randomBits(Random random, int n) {
+        boolean[] b = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            b[i] = random.nextBoolean();
+        }
+        return Bits.from(b);
+    }
+
+}
@@ -1,10 +1,15 @@
 package au.gov.amsa.sgb.decoder.internal;
 
+import static au.gov.amsa.sgb.decoder.TestingUtil.ones;
+import static au.gov.amsa.sgb.decoder.TestingUtil.zeros;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
+import java.util.Random;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -223,4 +228,294 @@ public final class BitsTest {
         assertEquals("00", Bits.from("00000000").toHex());
     }
 
+    @Test
+    public void testReadUnsignedLongAcrossWordBoundary() {
+        Bits b = Bits.from(zeros(60) + "1011" + "0110" + ones(56));
+        b.position(60);
+        assertEquals(0xB6L, b.readUnsignedLong(8));
+        assertEquals(-1L >>> 8, b.readUnsignedLong(56));
+        assertTrue(b.atEnd());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadUnsignedLongTooManyBits() {
+        Bits.zeros(100).readUnsignedLong(65);
+    }
+
+    @Test
+    public void testConcatReplaceAndLastAcrossWordBoundaries() {
+        String a = "1101" + zeros(70) + "1";
+        String b = ones(3) + zeros(65) + "10";
+        Bits c = Bits.from(a).concatWith(Bits.from(b));
+        assertEquals(a + b, c.toBitString());
+        assertEquals(b, c.last(b.length()).toBitString());
+        assertEquals(a, c.readBits(a.length()).toBitString());
+        String r = ones(66);
+        assertEquals(a.substring(0, 5) + r + a.substring(71) + b, c.replace(5, Bits.from(r)).toBitString());
+        assertTrue(c.replace(5, Bits.from(r)).isEqualTo(Bits.from(a.substring(0, 5) + r + a.substring(71) + b)));
+        assertFalse(c.isEqualTo(Bits.from(a + b).replace(140, Bits.from("1"))));
+    }
+
+    @Test
+    public void testFromBooleanArray() {
+        assertEquals("1001", Bits.from(new boolean[] {true, false, false, true }).toBitString());
+    }
+
+    @Test
+    public void testRemainderOnPolynomialDivisionDoesNotChangeSource() {
+        Bits a = Bits.from("10010011100101101");
+        a.remainderOnPolynomialDivision(Bits.from("11010010101"));
+        assertEquals("10010011100101101", a.toBitString());
+    }
+
+    @Test
+    public void testFromBytes() {
+        byte[] bytes = new byte[] {(byte) 0xA5, (byte) 0x0F, (byte) 0xF0 };
+        assertEquals("101001010000111111110000", Bits.from(bytes, 0, 24).toBitString());
+        assertEquals("0100101000011111111", Bits.from(bytes, 1, 19).toBitString());
+        assertEquals("10", Bits.from(bytes, 2, 2).toBitString());
+        assertEquals("0000111111", Bits.from(bytes, 8, 10).toBitString());
+        assertEquals(0, Bits.from(bytes, 3, 0).length());
+    }
+
+    @Test
+    public void testFromByteBufferDoesNotChangePosition() {
+        ByteBuffer bb = ByteBuffer.wrap(new byte[] {(byte) 0xA5, (byte) 0x0F });
+        bb.position(1);
+        assertEquals("0101000011", Bits.from(bb, 4, 10).toBitString());
+        assertEquals(1, bb.position());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromBytesNotEnough() {
+        Bits.from(new byte[2], 1, 16);
+    }
+
+    @Test
+    public void testFromLong() {
+        assertEquals("0101", Bits.from(5L, 4).toBitString());
+        assertEquals(-1L, Bits.from(-1L, 64).readUnsignedLong(64));
+    }
+
+    @Test
+    public void testFromHex() {
+        String hex = "0123456789abcdefFEDCBA98765432100f";
+        assertEquals(Hex.hexToBinary(hex), Bits.fromHex(hex).toBitString());
+        assertEquals(hex.toUpperCase(), Bits.fromHex(hex).toHex());
+    }
+
+    @Test
+    public void testFromHexSkippingLeadingBits() {
+        String hex = "3123456789abcdefFEDCBA98765432100f";
+        for (int skip = 0; skip < 64; skip++) {
+            assertEquals(Hex.hexToBinary(hex).substring(skip), Bits.fromHex(hex, skip).toBitString());
+        }
+        assertEquals("11", Bits.fromHex("3", 2).toBitString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromHexSkippingTooManyBits() {
+        Bits.fromHex("3", 5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromHexIllegalCharacter() {
+        Bits.fromHex("12x4");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testToHexWrongLength() {
+        Bits.from("101").toHex();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadHexPastEnd() {
+        Bits.from("1010").readHex(2);
+    }
+
+    @Test
+    public void testReadBaudotIntoBuffer() {
+        char[] chars = new char[4];
+        Bits b = Bits.from("111000110011");
+        assertEquals(Bits.ALL_VALID, b.readBaudotCharacters(chars, 1, 2));
+        assertEquals('A', chars[1]);
+        assertEquals('B', chars[2]);
+        assertTrue(b.atEnd());
+    }
+
+    @Test
+    public void testReadBaudotIntoBufferReportsFirstInvalid() {
+        char[] chars = new char[3];
+        Bits b = Bits.from("111000111111111111");
+        assertEquals(1, b.readBaudotCharacters(chars, 0, 3));
+        assertEquals('A', chars[0]);
+        assertEquals(BaudotCode.INVALID, chars[1]);
+        assertEquals(BaudotCode.INVALID, chars[2]);
+        assertTrue(b.atEnd());
+    }
+
+    @Test
+    public void testReadBaudotShortIntoBuffer() {
+        char[] chars = new char[2];
+        Bits b = Bits.from("1100011111");
+        assertEquals(1, b.readBaudotCharactersShort(chars, 0, 2));
+        assertEquals('A', chars[0]);
+    }
+
+    @Test
+    public void testReadBaudotErrorMessageWithoutContext() {
+        try {
+            Bits.from("111000111111").readBaudotCharacters(2);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("character not found for decimal BaudotCode 63", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testReadBaudotShortErrorMessageWithContext() {
+        try {
+            Bits.from("1100011111").readBaudotCharactersShort(2, "Aircraft Operator Designator");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Aircraft Operator Designator: character not found for decimal BaudotCode 63",
+                    e.getMessage());
+        }
+    }
+
+    @Test
+    public void testReadBaudotShortErrorMessageWithoutContext() {
+        try {
+            Bits.from("1100011111").readBaudotCharactersShort(2);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("character not found for decimal BaudotCode 63", e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadBaudotPastEnd() {
+        Bits.from("111000").readBaudotCharacters(2);
+    }
+
+    @Test
+    public void testGetUnsignedIntDoesNotChangePosition() {
+        Bits b = Bits.from(zeros(60) + "1011" + "0110");
+        assertEquals(0xB6, b.getUnsignedInt(60, 8));
+        assertEquals(0, b.position());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetUnsignedIntPastEnd() {
+        Bits.from("1011").getUnsignedInt(1, 4);
+    }
+
+    @Test
+    public void testGetBoolean() {
+        Bits b = Bits.from("0100");
+        assertFalse(b.getBoolean(0));
+        assertTrue(b.getBoolean(1));
+        assertEquals(0, b.position());
+    }
+
+    @Test
+    public void testDuplicateHasOwnPosition() {
+        Bits b = Bits.from("1011");
+        b.skip(2);
+        Bits d = b.duplicate();
+        assertEquals(0, d.position());
+        assertEquals(2, d.readUnsignedInt(2));
+        assertEquals(2, b.position());
+        assertEquals(3, b.readUnsignedInt(2));
+    }
+
+    @Test
+    public void testGetUnsignedLong() {
+        Bits b = Bits.from("1" + ones(64));
+        assertEquals(-1L, b.getUnsignedLong(1, 64));
+        assertEquals(0, b.position());
+    }
+
+    @Test
+    public void testLoadBytesOverwritesAndResetsPosition() {
+        Bits b = Bits.from("1111111111");
+        b.skip(3);
+        assertTrue(b == b.load(new byte[] { (byte) 0xA5, (byte) 0x0F }, 4));
+        assertEquals("0101000011", b.toBitString());
+        assertEquals(0, b.position());
+    }
+
+    @Test
+    public void testLoadByteBufferSameAsFrom() {
+        ByteBuffer bb = ByteBuffer.wrap(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 });
+        for (int offset = 0; offset < 20; offset++) {
+            assertEquals(Bits.from(bb, offset, 70).toBitString(), Bits.zeros(70).load(bb, offset).toBitString());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoadBytesNotEnough() {
+        Bits.zeros(10).load(new byte[1], 0);
+    }
+
+    @Test
+    public void testLoadHex() {
+        Bits b = Bits.zeros(10);
+        assertEquals("1010111111", b.loadHex("2BF", 2).toBitString());
+        assertEquals("0000000001", b.loadHex("001", 2).toBitString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoadHexWrongLength() {
+        Bits.zeros(10).loadHex("2BF0", 2);
+    }
+
+    @Test
+    public void testClear() {
+        Bits b = Bits.from("1011");
+        b.skip(1);
+        assertTrue(b.clear().isZero());
+        assertEquals(0, b.position());
+    }
+
+    @Test
+    public void testToBytesMatchesBitStringPacking() {
+        Random r = new Random(123);
+        for (int length = 0; length < 140; length++) {
+            StringBuilder b = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                b.append(r.nextBoolean() ? '1' : '0');
+            }
+            Bits bits = Bits.from(b.toString());
+            for (int pad = 0; pad < 8; pad++) {
+                StringBuilder padded = new StringBuilder(zeros(pad)).append(b);
+                while (padded.length() % 8 != 0) {
+                    padded.append('0');
+                }
+                byte[] expected = new byte[padded.length() / 8];
+                for (int i = 0; i < expected.length; i++) {
+                    expected[i] = (byte) Integer.parseInt(padded.substring(i * 8, i * 8 + 8), 2);
+                }
+                assertArrayEquals(expected, bits.toBytes(pad));
+            }
+        }
+    }
+
+    @Test
+    public void testWriteBytesAtOffset() {
+        byte[] dest = new byte[4];
+        Bits.from("1111111111").writeBytes(dest, 1, 6);
+        assertArrayEquals(new byte[] { 0, 3, (byte) 0xFF, 0 }, dest);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWriteBytesNotEnoughRoom() {
+        Bits.from("1111111111").writeBytes(new byte[2], 1, 6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testToBytesPadTooLarge() {
+        Bits.from("1").toBytes(8);
+    }
+
 }
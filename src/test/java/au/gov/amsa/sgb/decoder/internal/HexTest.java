@@ -1,5 +1,7 @@
 package au.gov.amsa.sgb.decoder.internal;
 
+import static org.junit.Assert.assertEquals;
+
 import org.junit.Test;
 
 import com.github.davidmoten.junit.Asserts;
@@ -16,4 +18,46 @@ public class HexTest {
         Hex.bitStringToHex("000");
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void testBitStringToHexIllegalCharacter() {
+        Hex.bitStringToHex("0002");
+    }
+
+    @Test
+    public void testHexToBinary() {
+        assertEquals("0000000110101011110011011110111110100101", Hex.hexToBinary("01abCDeFa5"));
+    }
+
+    @Test
+    public void testBitStringToHex() {
+        assertEquals("01ABCDEFA5", Hex.bitStringToHex("0000000110101011110011011110111110100101"));
+    }
+
+    @Test
+    public void testIndexOfNonHex() {
+        assertEquals(-1, Hex.indexOfNonHex(""));
+        assertEquals(-1, Hex.indexOfNonHex("09afAF"));
+        assertEquals(2, Hex.indexOfNonHex("01G3"));
+        assertEquals(0, Hex.indexOfNonHex("\u00e9"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHexToBinaryIllegalCharacter() {
+        Hex.hexToBinary("0G");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHexToBinaryIllegalNonAsciiCharacter() {
+        Hex.hexToBinary("0\u0661");
+    }
+
+    @Test
+    public void testDigitAndToChar() {
+        for (int i = 0; i < 16; i++) {
+            char ch = Hex.toChar(i);
+            assertEquals(i, Hex.digit(ch));
+            assertEquals(i, Hex.digit(Character.toLowerCase(ch)));
+        }
+    }
+
 }
@@ -0,0 +1,102 @@
+package au.gov.amsa.sgb.decoder.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class LruCacheTest {
+
+    @Test
+    public void testHitAndMiss() {
+        LruCache<Integer, String> c = new LruCache<>(10);
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals("1", c.get(1, k -> load(k, loads)));
+        assertEquals("1", c.get(1, k -> load(k, loads)));
+        assertEquals(1, loads.get());
+        assertEquals(1, c.hitCount());
+        assertEquals(1, c.missCount());
+        assertEquals(1, c.size());
+        assertEquals(10, c.capacity());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        // capacity 1 has a single stripe
+        LruCache<Integer, String> c = new LruCache<>(1);
+        AtomicInteger loads = new AtomicInteger();
+        c.get(1, k -> load(k, loads));
+        c.get(2, k -> load(k, loads));
+        assertEquals(1, c.evictionCount());
+        c.get(1, k -> load(k, loads));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testAccessOrder() {
+        // 16 stripes of capacity 2, keys 0, 16 and 32 share a stripe
+        LruCache<Integer, String> c = new LruCache<>(32);
+        AtomicInteger loads = new AtomicInteger();
+        c.get(0, k -> load(k, loads));
+        c.get(16, k -> load(k, loads));
+        // refresh 0 so 16 is the least recently used
+        c.get(0, k -> load(k, loads));
+        c.get(32, k -> load(k, loads));
+        assertEquals(1, c.evictionCount());
+        assertEquals(3, loads.get());
+        c.get(0, k -> load(k, loads));
+        assertEquals(3, loads.get());
+        c.get(16, k -> load(k, loads));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void testSizeBounded() {
+        LruCache<Integer, String> c = new LruCache<>(100);
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 10000; i++) {
+            c.get(i, k -> load(k, loads));
+        }
+        assertTrue(c.size() <= 100);
+        assertEquals(10000 - c.size(), c.evictionCount());
+        c.clear();
+        assertEquals(0, c.size());
+    }
+
+    @Test
+    public void testCapacityRemainderSpreadAcrossStripes() {
+        // 16 stripes, stripes 0 to 3 have room for an extra entry
+        LruCache<Integer, String> c = new LruCache<>(20);
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 1000; i++) {
+            c.get(i, k -> load(k, loads));
+        }
+        assertEquals(20, c.size());
+        assertEquals(1000 - 20, c.evictionCount());
+        // stripe 0 holds its last two keys, stripe 4 only its last
+        c.get(976, k -> load(k, loads));
+        c.get(992, k -> load(k, loads));
+        c.get(996, k -> load(k, loads));
+        assertEquals(1000, loads.get());
+        c.get(980, k -> load(k, loads));
+        assertEquals(1001, loads.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacityMustBePositive() {
+        new LruCache<Integer, String>(0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testLoaderMustNotReturnNull() {
+        new LruCache<Integer, String>(1).get(1, k -> null);
+    }
+
+    private static String load(int k, AtomicInteger loads) {
+        loads.incrementAndGet();
+        return String.valueOf(k);
+    }
+
+}
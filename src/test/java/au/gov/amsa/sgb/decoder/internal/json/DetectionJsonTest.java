@@ -0,0 +1,197 @@
+package au.gov.amsa.sgb.decoder.internal.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.davidmoten.junit.Asserts;
+import com.google.common.io.Files;
+
+import au.gov.amsa.sgb.decoder.Beacon23HexId;
+import au.gov.amsa.sgb.decoder.Detection;
+import au.gov.amsa.sgb.decoder.rotatingfield.ActivationMethod;
+import au.gov.amsa.sgb.decoder.rotatingfield.BeaconFeedback;
+import au.gov.amsa.sgb.decoder.rotatingfield.Cancellation;
+import au.gov.amsa.sgb.decoder.rotatingfield.DeactivationMethod;
+import au.gov.amsa.sgb.decoder.rotatingfield.EltDtInFlightEmergency;
+import au.gov.amsa.sgb.decoder.rotatingfield.GnssStatus;
+import au.gov.amsa.sgb.decoder.rotatingfield.NationalUse;
+import au.gov.amsa.sgb.decoder.rotatingfield.ObjectiveRequirements;
+import au.gov.amsa.sgb.decoder.rotatingfield.Range;
+import au.gov.amsa.sgb.decoder.rotatingfield.Rls;
+import au.gov.amsa.sgb.decoder.rotatingfield.RlsProvider;
+import au.gov.amsa.sgb.decoder.rotatingfield.RlsType;
+import au.gov.amsa.sgb.decoder.rotatingfield.RotatingField;
+import au.gov.amsa.sgb.decoder.rotatingfield.TriggeringEvent;
+import au.gov.amsa.sgb.decoder.rotatingfield.UnknownRotatingField;
+import au.gov.amsa.sgb.decoder.vesselid.AircraftOperatorAndSerialNumber;
+import au.gov.amsa.sgb.decoder.vesselid.AircraftRegistrationMarking;
+import au.gov.amsa.sgb.decoder.vesselid.Aviation24BitAddress;
+import au.gov.amsa.sgb.decoder.vesselid.Mmsi;
+import au.gov.amsa.sgb.decoder.vesselid.RadioCallSign;
+import au.gov.amsa.sgb.decoder.vesselid.VesselId;
+import au.gov.amsa.sgb.decoder.vesselid.VesselIdType;
+
+public class DetectionJsonTest {
+
+    @Test
+    public void isUtilityClass() {
+        Asserts.assertIsUtilityClass(DetectionJson.class);
+    }
+
+    @Test
+    public void testComplianceKitMatchesReflectionMapper() throws IOException {
+        File base = new File("src/test/resources/compliance-kit");
+        List<String> lines = Files.readLines(new File(base, "tests.csv"), StandardCharsets.UTF_8);
+        int count = 0;
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] items = line.split(",");
+            String hex = items[2].replace("\"", "").trim();
+            String expected = String.join("\n",
+                    Files.readLines(new File(base, items[3].replace("\"", "").trim()), StandardCharsets.UTF_8));
+            if (items[0].contains("Detection")) {
+                Detection d = Detection.fromHexGroundSegmentRepresentation(hex);
+                assertMatchesReflectionMapper(d);
+                assertEquals(expected, prettyJson(d).replace(System.lineSeparator(), "\n"));
+            } else {
+                Beacon23HexId b = Beacon23HexId.fromHex(hex);
+                assertEquals(Json.toJson((Object) b), b.toJson());
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                b.writeJson(out, true);
+                assertEquals(Json.prettyPrint(Json.toJson((Object) b)), utf8(out));
+                assertEquals(expected, utf8(out).replace(System.lineSeparator(), "\n"));
+                StringWriter w = new StringWriter();
+                b.writeJson(w, false);
+                assertEquals(b.toJson(), w.toString());
+            }
+            count++;
+        }
+        assertEquals(15, count);
+    }
+
+    @Test
+    public void testRandomDetectionsMatchReflectionMapper() {
+        Random random = new Random(12345);
+        int count = 0;
+        for (int i = 0; i < 2000; i++) {
+            char[] bits = new char[202];
+            for (int j = 0; j < bits.length; j++) {
+                bits[j] = random.nextBoolean() ? '1' : '0';
+            }
+            Detection d;
+            try {
+                d = Detection.fromBitString(new String(bits));
+            } catch (RuntimeException e) {
+                // not every random message decodes (for example invalid Baudot)
+                continue;
+            }
+            assertMatchesReflectionMapper(d);
+            count++;
+        }
+        assertTrue(count > 1000);
+    }
+
+    @Test
+    public void testEveryRotatingFieldMatchesReflectionMapper() {
+        List<RotatingField> fields = Arrays.asList( //
+                new ObjectiveRequirements(1, 6, 432, Optional.of(Range.min(0).max(1).build()),
+                        Optional.of(Range.min(1).exclusive().max(2).build()),
+                        ActivationMethod.MANUAL_ACTIVATION_BY_USER, Optional.of(Range.min(75).exclusive().build()),
+                        GnssStatus.LOCATION_3D),
+                new ObjectiveRequirements(0, 0, -400, Optional.empty(), Optional.of(Range.unlimited()),
+                        ActivationMethod.OTHER, Optional.empty(), GnssStatus.NO_FIX),
+                new EltDtInFlightEmergency(OffsetTime.of(2, 16, 31, 0, ZoneOffset.UTC), 1552,
+                        TriggeringEvent.G_SWITCH_OR_DEFORMATION_ACTIVATION, GnssStatus.LOCATION_2D,
+                        Optional.of(Range.min(66).exclusive().max(100).build())),
+                new EltDtInFlightEmergency(OffsetTime.of(0, 0, 0, 0, ZoneOffset.UTC), 0,
+                        TriggeringEvent.MANUAL_ACTIVATION_BY_CREW, GnssStatus.NO_FIX, Optional.empty()),
+                new EltDtInFlightEmergency(OffsetTime.of(23, 5, 0, 0, ZoneOffset.ofHours(10)), 0,
+                        TriggeringEvent.MANUAL_ACTIVATION_BY_CREW, GnssStatus.NO_FIX, Optional.empty()),
+                new Rls(true, false, RlsProvider.GALILEO, Optional.empty()),
+                new Rls(false, true, RlsProvider.GLONASS,
+                        Optional.of(new BeaconFeedback(true, false, RlsType.TEST_SERVICE, Optional.of("0101")))),
+                new Rls(false, false, RlsProvider.OTHER,
+                        Optional.of(new BeaconFeedback(false, true, RlsType.OTHER, Optional.empty()))),
+                new Cancellation(DeactivationMethod.MANUAL_DEACTIVATION_BY_USER), //
+                new NationalUse("0101"), //
+                new UnknownRotatingField("1100"));
+        for (RotatingField field : fields) {
+            assertEquals(Json.toJson(field), write(g -> DetectionJson.write(field, g)));
+        }
+    }
+
+    @Test
+    public void testEveryVesselIdMatchesReflectionMapper() {
+        List<VesselId> ids = Arrays.asList( //
+                new Mmsi(Optional.of(123456789), Optional.of(974454287)), //
+                new Mmsi(Optional.empty(), Optional.of(1)), //
+                new Mmsi(Optional.of(2), Optional.empty()), //
+                new RadioCallSign("VH\"ABC"), //
+                new RadioCallSign("  "), //
+                new AircraftRegistrationMarking("VH-ABC"), //
+                new AircraftRegistrationMarking("   "), //
+                new Aviation24BitAddress("44914B", Optional.empty()), //
+                new Aviation24BitAddress("44914B", Optional.of("QFA")), //
+                new AircraftOperatorAndSerialNumber("QFA", 4095));
+        for (VesselId id : ids) {
+            assertEquals(Json.toJson(id), write(g -> DetectionJson.write(id, g)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedVesselId() {
+        write(g -> DetectionJson.write(() -> VesselIdType.MMSI, g));
+    }
+
+    private static void assertMatchesReflectionMapper(Detection d) {
+        String expected = Json.toJson((Object) d);
+        assertEquals(expected, d.toJson());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        d.writeJson(out, false);
+        assertEquals(expected, utf8(out));
+        assertEquals(Json.prettyPrint(expected), prettyJson(d));
+    }
+
+    private static String prettyJson(Detection d) {
+        StringWriter w = new StringWriter();
+        d.writeJson(w, true);
+        return w.toString();
+    }
+
+    private static String utf8(ByteArrayOutputStream out) {
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private interface Writing {
+        void write(JsonGenerator g) throws IOException;
+    }
+
+    private static String write(Writing writing) {
+        StringWriter w = new StringWriter();
+        try (JsonGenerator g = DetectionJson.createGenerator(w, false)) {
+            writing.write(g);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return w.toString();
+    }
+
+}